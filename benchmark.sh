@@ -0,0 +1,8 @@
+#! /bin/sh
+targetdir=target
+
+if [ ! -d "$targetdir" ]; then mkdir $targetdir; fi
+
+javac -sourcepath src -d $targetdir -extdirs lib/ src/benchmark/*.java || exit 1
+
+java -Xmx2G -cp $targetdir:lib/ECLA.jar:lib/DTNConsoleConnection.jar benchmark.BenchmarkRunner $*
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import core.DTNSim;
+import core.SettingsError;
+import core.SimScenario;
+import core.World;
+
+/**
+ * Superclass of the benchmarks run by {@link BenchmarkRunner}. A benchmark
+ * measures the average time of one operation ({@link #run()}) after
+ * {@link #setUp()} has created the state it needs. Benchmarks with
+ * parameters (e.g., number of hosts) are created once for every set of
+ * parameter values.
+ */
+public abstract class Benchmark {
+	private String operation;
+	private Map<String, String> params;
+
+	/**
+	 * Constructor.
+	 * @param operation Name of the benchmarked operation
+	 */
+	protected Benchmark(String operation) {
+		this.operation = operation;
+		this.params = new LinkedHashMap<String, String>();
+	}
+
+	/**
+	 * Adds a parameter to the benchmark's description
+	 * @param name Name of the parameter
+	 * @param value Value of the parameter
+	 */
+	protected void addParam(String name, Object value) {
+		this.params.put(name, String.valueOf(value));
+	}
+
+	/**
+	 * Returns the full name of the benchmark (class name and operation)
+	 * @return The name
+	 */
+	public String getName() {
+		return getClass().getName() + "." + this.operation;
+	}
+
+	/**
+	 * Returns the parameters of the benchmark
+	 * @return The parameter names and values
+	 */
+	public Map<String, String> getParams() {
+		return this.params;
+	}
+
+	/**
+	 * Creates the state needed by the benchmarked operation. Called once
+	 * before the warmup iterations.
+	 * @throws Exception If the setup fails
+	 */
+	public void setUp() throws Exception {}
+
+	/**
+	 * Runs the benchmarked operation once
+	 * @return A value computed by the operation (so that the JIT compiler
+	 * can't remove the work)
+	 * @throws Exception If the operation fails
+	 */
+	public abstract Object run() throws Exception;
+
+	/**
+	 * Releases the state of the benchmark. Called once after the
+	 * measurement iterations.
+	 * @throws Exception If releasing the state fails
+	 */
+	public void tearDown() throws Exception {}
+
+	/**
+	 * Replaces the current settings with the given ones and resets the
+	 * simulator's static state
+	 * @param settings The settings as "key = value" strings
+	 */
+	protected static void initSettings(String ... settings) {
+		StringBuilder sb = new StringBuilder();
+		for (String s : settings) {
+			sb.append(s).append('\n');
+		}
+		try {
+			core.Settings.initFromStream(new ByteArrayInputStream(
+					sb.toString().getBytes("UTF-8")));
+		} catch (UnsupportedEncodingException e) {
+			throw new SettingsError(e);
+		}
+		DTNSim.resetForNextRun();
+	}
+
+	/**
+	 * Creates a new simulation world with the given settings
+	 * @param settings The settings as "key = value" strings
+	 * @return The new world
+	 * @see #initSettings(String...)
+	 */
+	protected static World createWorld(String ... settings) {
+		initSettings(settings);
+		return SimScenario.getInstance().getWorld();
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package benchmark;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import core.NetworkInterface;
+
+/**
+ * Runs the simulator's benchmarks and writes the results as JSON. The
+ * output has the same structure as the JSON output of JMH (average time
+ * mode, microseconds per operation), so the results of different runs can
+ * be compared with the tools made for JMH results.
+ * <P>
+ * Usage: <code>BenchmarkRunner [-w warmupIterations] [-i iterations]
+ * [-t iterationMillis] [-o outputFile] [-s worldSettingsFile] [filter...]
+ * </code><BR>
+ * Only the benchmarks whose name contains some of the filters are run (all
+ * benchmarks if no filters are given). The score error is the half width
+ * of the 99.9% confidence interval of the iteration averages.</P>
+ */
+public class BenchmarkRunner {
+	/** Warmup iterations -option ({@value}) */
+	public static final String WARMUP_ITERATIONS_OPT = "-w";
+	/** Measurement iterations -option ({@value}) */
+	public static final String ITERATIONS_OPT = "-i";
+	/** Length of one iteration in milliseconds -option ({@value}) */
+	public static final String ITERATION_TIME_OPT = "-t";
+	/** Output file -option ({@value}). Default is to print the JSON to
+	 * standard output. */
+	public static final String OUTPUT_OPT = "-o";
+	/** Settings file of the world update benchmark -option ({@value}) */
+	public static final String WORLD_SETTINGS_OPT = "-s";
+
+	/** default number of warmup iterations ({@value}) */
+	public static final int DEF_WARMUP_ITERATIONS = 5;
+	/** default number of measurement iterations ({@value}) */
+	public static final int DEF_ITERATIONS = 10;
+	/** default length of an iteration in milliseconds ({@value}) */
+	public static final int DEF_ITERATION_TIME = 1000;
+	/** default settings file of the world update benchmark ({@value}) */
+	public static final String DEF_WORLD_SETTINGS =
+		"example_settings/spy_settings.txt";
+	/** namespace of the interface whose connectivity optimizer is varied in
+	 * the world update benchmarks ({@value}; the interface of the spy
+	 * scenario) */
+	public static final String WORLD_INTERFACE_NS = "if";
+
+	/** two-sided 99.9% critical values of Student's t-distribution for
+	 * 1-30 degrees of freedom */
+	private static final double[] T_999 = {636.619, 31.599, 12.924, 8.610,
+		6.869, 5.959, 5.408, 5.041, 4.781, 4.587, 4.437, 4.318, 4.221, 4.140,
+		4.073, 4.015, 3.965, 3.922, 3.883, 3.850, 3.819, 3.792, 3.768, 3.745,
+		3.725, 3.707, 3.690, 3.674, 3.659, 3.646};
+	/** the critical value for more than 30 degrees of freedom (normal
+	 * distribution) */
+	private static final double Z_999 = 3.291;
+
+	/** sum of the operations' hash codes (keeps the results alive) */
+	private static int sink;
+
+	private int warmupIterations = DEF_WARMUP_ITERATIONS;
+	private int iterations = DEF_ITERATIONS;
+	private long iterationTime = DEF_ITERATION_TIME;
+
+	/**
+	 * Creates all the benchmarks
+	 * @param worldSettings Settings file for the world update benchmark
+	 * @return The benchmarks
+	 */
+	private static List<Benchmark> createBenchmarks(String worldSettings) {
+		List<Benchmark> list = new ArrayList<Benchmark>();
+		String[] optimizers = {NetworkInterface.GRID_OPTIMIZER,
+				NetworkInterface.ARRAY_GRID_OPTIMIZER,
+				NetworkInterface.SWEEP_OPTIMIZER};
+		for (String optimizer : optimizers) {
+			for (int hosts : ConnectivityGridBenchmark.NROF_HOSTS) {
+				list.add(new ConnectivityGridBenchmark(optimizer, hosts));
+			}
+		}
+		list.add(new RouterUpdateBenchmark("EpidemicRouter"));
+		list.add(new RouterUpdateBenchmark("ProphetRouter"));
+		list.add(new MaxPropDijkstraBenchmark());
+		list.add(new DijkstraPathFinderBenchmark());
+		list.add(new EventsReaderBenchmark());
+		for (String mode : ObstacleBenchmark.MODES) {
+			list.add(new ObstacleBenchmark(mode));
+		}
+		for (String optimizer : new String[] {NetworkInterface.GRID_OPTIMIZER,
+				NetworkInterface.SWEEP_OPTIMIZER}) {
+			list.add(new WorldUpdateBenchmark(worldSettings, WORLD_INTERFACE_NS +
+					"." + NetworkInterface.OPTIMIZER_S + " = " + optimizer));
+		}
+		return list;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Locale.setDefault(Locale.US);
+		BenchmarkRunner runner = new BenchmarkRunner();
+		String output = null;
+		String worldSettings = DEF_WORLD_SETTINGS;
+		List<String> filters = new ArrayList<String>();
+
+		for (int i=0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.startsWith("-") && i + 1 == args.length) {
+				usage("Missing value for option " + arg);
+			}
+			if (arg.equals(WARMUP_ITERATIONS_OPT)) {
+				runner.warmupIterations = parseInt(args[++i]);
+			} else if (arg.equals(ITERATIONS_OPT)) {
+				runner.iterations = parseInt(args[++i]);
+			} else if (arg.equals(ITERATION_TIME_OPT)) {
+				runner.iterationTime = parseInt(args[++i]);
+			} else if (arg.equals(OUTPUT_OPT)) {
+				output = args[++i];
+			} else if (arg.equals(WORLD_SETTINGS_OPT)) {
+				worldSettings = args[++i];
+			} else if (arg.startsWith("-")) {
+				usage("Unknown option " + arg);
+			} else {
+				filters.add(arg);
+			}
+		}
+		if (runner.iterations < 1) {
+			usage("At least one iteration is needed");
+		}
+
+		List<String> results = new ArrayList<String>();
+		for (Benchmark b : createBenchmarks(worldSettings)) {
+			if (matches(b.getName(), filters)) {
+				results.add(runner.run(b));
+			}
+		}
+
+		PrintWriter out = output == null ? new PrintWriter(System.out) :
+			new PrintWriter(new FileWriter(output));
+		out.println("[");
+		for (int i=0; i < results.size(); i++) {
+			out.print(results.get(i));
+			out.println(i < results.size() - 1 ? "," : "");
+		}
+		out.println("]");
+		out.flush();
+		if (output != null) {
+			out.close();
+		}
+	}
+
+	/**
+	 * Runs one benchmark
+	 * @param b The benchmark
+	 * @return The results in JSON
+	 */
+	private String run(Benchmark b) {
+		System.err.println("# " + b.getName() + " " + b.getParams());
+		double[] scores = new double[this.iterations];
+		try {
+			b.setUp();
+			for (int i=0; i < this.warmupIterations; i++) {
+				System.err.printf("warmup %d: %.3f us/op%n", i + 1,
+						iterate(b));
+			}
+			for (int i=0; i < this.iterations; i++) {
+				scores[i] = iterate(b);
+				System.err.printf("iteration %d: %.3f us/op%n", i + 1,
+						scores[i]);
+			}
+			b.tearDown();
+		} catch (Exception e) {
+			throw new RuntimeException("Benchmark " + b.getName() +
+					" failed: " + e, e);
+		}
+		return toJson(b, scores);
+	}
+
+	/**
+	 * Runs the benchmark's operation for one iteration
+	 * @param b The benchmark
+	 * @return Average time of one operation in microseconds
+	 */
+	private double iterate(Benchmark b) throws Exception {
+		long ops = 0;
+		long start = System.nanoTime();
+		long end = start + this.iterationTime * 1000000L;
+		long now;
+		do {
+			Object result = b.run();
+			sink += result == null ? 0 : result.hashCode();
+			ops++;
+			now = System.nanoTime();
+		} while (now < end);
+		return (now - start) / 1000.0 / ops;
+	}
+
+	/**
+	 * Returns the results of a benchmark in JSON (as formatted by JMH)
+	 */
+	private String toJson(Benchmark b, double[] scores) {
+		int n = scores.length;
+		double mean = 0;
+		for (double s : scores) {
+			mean += s;
+		}
+		mean /= n;
+		double error = Double.NaN;
+		if (n > 1) {
+			double var = 0;
+			for (double s : scores) {
+				var += (s - mean) * (s - mean);
+			}
+			double t = n - 1 <= T_999.length ? T_999[n - 2] : Z_999;
+			error = t * Math.sqrt(var / (n - 1) / n);
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("  {\n");
+		sb.append("    \"benchmark\" : ").append(quote(b.getName()));
+		sb.append(",\n    \"mode\" : \"avgt\",\n    \"threads\" : 1,\n");
+		sb.append("    \"forks\" : 0,\n");
+		sb.append("    \"warmupIterations\" : ").append(warmupIterations);
+		sb.append(",\n    \"warmupTime\" : \"").append(iterationTime);
+		sb.append(" ms\",\n    \"measurementIterations\" : ");
+		sb.append(iterations);
+		sb.append(",\n    \"measurementTime\" : \"").append(iterationTime);
+		sb.append(" ms\",\n    \"params\" : {");
+		String sep = "\n";
+		for (Map.Entry<String, String> e : b.getParams().entrySet()) {
+			sb.append(sep).append("      ").append(quote(e.getKey()));
+			sb.append(" : ").append(quote(e.getValue()));
+			sep = ",\n";
+		}
+		sb.append(b.getParams().isEmpty() ? "" : "\n    ").append("},\n");
+		sb.append("    \"primaryMetric\" : {\n");
+		sb.append("      \"score\" : ").append(number(mean)).append(",\n");
+		sb.append("      \"scoreError\" : ").append(number(error));
+		sb.append(",\n      \"scoreConfidence\" : [ ");
+		sb.append(number(mean - error)).append(", ");
+		sb.append(number(mean + error)).append(" ],\n");
+		sb.append("      \"scoreUnit\" : \"us/op\",\n");
+		sb.append("      \"rawData\" : [ [ ");
+		for (int i=0; i < n; i++) {
+			sb.append(i > 0 ? ", " : "").append(number(scores[i]));
+		}
+		sb.append(" ] ]\n    },\n    \"secondaryMetrics\" : {}\n  }");
+		return sb.toString();
+	}
+
+	private static String number(double value) {
+		return Double.isNaN(value) ? "\"NaN\"" : String.valueOf(value);
+	}
+
+	private static String quote(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	private static boolean matches(String name, List<String> filters) {
+		if (filters.isEmpty()) {
+			return true;
+		}
+		for (String f : filters) {
+			if (name.contains(f)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int parseInt(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			usage("Invalid number " + value);
+			return 0;
+		}
+	}
+
+	private static void usage(String error) {
+		System.err.println(error);
+		System.err.println("Usage: BenchmarkRunner [" +
+				WARMUP_ITERATIONS_OPT + " warmupIterations] [" +
+				ITERATIONS_OPT + " iterations] [" + ITERATION_TIME_OPT +
+				" iterationMillis] [" + OUTPUT_OPT + " outputFile] [" +
+				WORLD_SETTINGS_OPT + " worldSettingsFile] [filter...]");
+		System.exit(-1);
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package benchmark;
+
+import interfaces.ArrayConnectivityGrid;
+import interfaces.ConnectivityGrid;
+import interfaces.ConnectivityOptimizer;
+import interfaces.SweepAndPruneOptimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import core.DTNHost;
+import core.NetworkInterface;
+import core.World;
+
+/**
+ * Benchmark of finding the interfaces near an interface from a
+ * {@link ConnectivityGrid}, an {@link ArrayConnectivityGrid} or a
+ * {@link SweepAndPruneOptimizer}. The hosts
+ * are placed randomly in a 1000 x 1000 world, so the number of hosts gives
+ * the density of the grid. The near interfaces are collected to a reused
+ * list (as the network interfaces do).
+ */
+public class ConnectivityGridBenchmark extends Benchmark {
+	/** the numbers of hosts that are benchmarked */
+	public static final int[] NROF_HOSTS = {100, 1000, 10000};
+	/** transmit range of the interfaces */
+	public static final double RANGE = 10;
+
+	private int nrofHosts;
+	private String optimizer;
+	private NetworkInterface[] interfaces;
+	private List<NetworkInterface> near;
+	private int next;
+
+	/**
+	 * Constructor.
+	 * @param optimizer Name of the optimizer (see
+	 * {@link NetworkInterface#OPTIMIZER_S})
+	 * @param nrofHosts Number of hosts in the world
+	 */
+	public ConnectivityGridBenchmark(String optimizer, int nrofHosts) {
+		super("getNearInterfaces");
+		this.optimizer = optimizer;
+		this.nrofHosts = nrofHosts;
+		addParam("optimizer", optimizer);
+		addParam("hosts", nrofHosts);
+	}
+
+	@Override
+	public void setUp() {
+		World world = createWorld(
+				"Scenario.name = grid",
+				"Scenario.endTime = 1",
+				"Scenario.updateInterval = 1",
+				"Scenario.simulateConnections = true",
+				"Scenario.nrofHostGroups = 1",
+				"MovementModel.rngSeed = 1",
+				"MovementModel.worldSize = 1000, 1000",
+				"Events.nrof = 0",
+				"iface.type = SimpleBroadcastInterface",
+				"iface.transmitSpeed = 250k",
+				"iface.transmitRange = " + RANGE,
+				"iface.connectivityOptimizer = " + this.optimizer,
+				"Group.groupID = n",
+				"Group.nrofHosts = " + this.nrofHosts,
+				"Group.movementModel = RandomWaypoint",
+				"Group.speed = 0.5, 1.5",
+				"Group.waitTime = 0, 120",
+				"Group.router = PassiveRouter",
+				"Group.bufferSize = 1M",
+				"Group.nrofInterfaces = 1",
+				"Group.interface1 = iface");
+
+		List<DTNHost> hosts = world.getHosts();
+		this.interfaces = new NetworkInterface[hosts.size()];
+		for (int i=0; i < hosts.size(); i++) {
+			this.interfaces[i] = hosts.get(i).getInterfaces().get(0);
+		}
+		this.near = new ArrayList<NetworkInterface>();
+		this.next = 0;
+	}
+
+	@Override
+	public Object run() {
+		NetworkInterface ni = this.interfaces[this.next];
+		ConnectivityOptimizer grid = ni.getOptimizer();
+		this.next = (this.next + 1) % this.interfaces.length;
+		this.near.clear();
+		grid.findNearInterfaces(ni, this.near);
+		return this.near.size();
+	}
+}
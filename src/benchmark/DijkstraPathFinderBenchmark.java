@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package benchmark;
+
+import input.WKTMapReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import movement.map.DijkstraPathFinder;
+import movement.map.MapNode;
+
+/**
+ * Benchmark of finding shortest paths on the Helsinki map with
+ * {@link DijkstraPathFinder}. One operation finds the path between a
+ * random pair of map nodes (the pairs are the same in every run).
+ */
+public class DijkstraPathFinderBenchmark extends Benchmark {
+	/** the map file ({@value}) */
+	public static final String MAP_FILE = "data/HelsinkiMedium/roads.wkt";
+	/** number of different node pairs */
+	public static final int NROF_PAIRS = 1000;
+
+	private DijkstraPathFinder finder;
+	private MapNode[] from;
+	private MapNode[] to;
+	private int next;
+
+	/**
+	 * Constructor.
+	 */
+	public DijkstraPathFinderBenchmark() {
+		super("getShortestPath");
+		addParam("map", MAP_FILE);
+	}
+
+	@Override
+	public void setUp() throws IOException {
+		WKTMapReader reader = new WKTMapReader(true);
+		reader.addPaths(new File(MAP_FILE), 1);
+		List<MapNode> nodes = reader.getMap().getNodes();
+
+		Random rng = new Random(1);
+		this.from = new MapNode[NROF_PAIRS];
+		this.to = new MapNode[NROF_PAIRS];
+		for (int i=0; i < NROF_PAIRS; i++) {
+			this.from[i] = nodes.get(rng.nextInt(nodes.size()));
+			this.to[i] = nodes.get(rng.nextInt(nodes.size()));
+		}
+
+		this.finder = new DijkstraPathFinder(null);
+		this.next = 0;
+	}
+
+	@Override
+	public Object run() {
+		int i = this.next;
+		this.next = (this.next + 1) % NROF_PAIRS;
+		return this.finder.getShortestPath(this.from[i], this.to[i]).size();
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package benchmark;
+
+import input.ExternalEvent;
+import input.StandardEventsReader;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Benchmark of parsing an external events file with
+ * {@link StandardEventsReader}. One operation reads the whole file.
+ */
+public class EventsReaderBenchmark extends Benchmark {
+	/** the events file ({@value}) */
+	public static final String EVENTS_FILE =
+		"ee/1400_events_2000_nodes_700ks.txt";
+	/** number of events read at a time (as by ExternalEventsQueue) */
+	public static final int EVENTS_PER_READ = 500;
+
+	private File file;
+
+	/**
+	 * Constructor.
+	 */
+	public EventsReaderBenchmark() {
+		super("readEvents");
+		addParam("file", EVENTS_FILE);
+	}
+
+	@Override
+	public void setUp() {
+		this.file = new File(EVENTS_FILE);
+	}
+
+	@Override
+	public Object run() {
+		StandardEventsReader reader = new StandardEventsReader(this.file);
+		int nrofEvents = 0;
+		List<ExternalEvent> events;
+		do {
+			events = reader.readEvents(EVENTS_PER_READ);
+			nrofEvents += events.size();
+		} while (!events.isEmpty());
+		reader.close();
+		return nrofEvents;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package benchmark;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import routing.maxprop.MaxPropDijkstra;
+import routing.maxprop.MeetingProbabilitySet;
+
+/**
+ * Benchmark of MaxProp's path cost calculation ({@link MaxPropDijkstra}).
+ * Every node has met a random set of other nodes, and one operation
+ * calculates the costs from one node to all the other nodes.
+ */
+public class MaxPropDijkstraBenchmark extends Benchmark {
+	/** number of nodes */
+	public static final int NROF_NODES = 200;
+	/** number of meetings of every node */
+	public static final int NROF_MEETINGS = 50;
+
+	private MaxPropDijkstra dijkstra;
+	private Set<Integer> targets;
+	private int next;
+
+	/**
+	 * Constructor.
+	 */
+	public MaxPropDijkstraBenchmark() {
+		super("getCosts");
+		addParam("nodes", NROF_NODES);
+		addParam("meetings", NROF_MEETINGS);
+	}
+
+	@Override
+	public void setUp() {
+		Random rng = new Random(1);
+		Map<Integer, MeetingProbabilitySet> probs =
+			new HashMap<Integer, MeetingProbabilitySet>();
+		this.targets = new HashSet<Integer>();
+
+		for (int i=0; i < NROF_NODES; i++) {
+			MeetingProbabilitySet set = new MeetingProbabilitySet(
+					MeetingProbabilitySet.INFINITE_SET_SIZE, 1.0);
+			for (int j=0; j < NROF_MEETINGS; j++) {
+				set.updateMeetingProbFor(rng.nextInt(NROF_NODES));
+			}
+			probs.put(i, set);
+			this.targets.add(i);
+		}
+
+		this.dijkstra = new MaxPropDijkstra(probs);
+		this.next = 0;
+	}
+
+	@Override
+	public Object run() {
+		Integer from = this.next;
+		this.next = (this.next + 1) % NROF_NODES;
+		return this.dijkstra.getCosts(from, this.targets).size();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package benchmark;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import core.Coord;
+import core.ObstacleMap;
+
+/**
+ * Benchmark of the line of sight check of a host pair with an
+ * {@link ObstacleMap}. The walls are the FMI building's polygons and the
+ * pairs are placed randomly in the building, within range of each other.
+ * Every operation moves both hosts of the next pair a little (as slowly
+ * moving hosts move in one update) and checks the pair. The "distance" mode
+ * only computes the distance, so the per-pair overhead of the walls is the
+ * difference between it and the "index" (no cache) and "cache" modes.
+ */
+public class ObstacleBenchmark extends Benchmark {
+	/** the wall file */
+	public static final String WALL_FILE = "data/fmi_locations.json";
+	/** the benchmarked modes */
+	public static final String[] MODES = {"distance", "index", "cache"};
+	/** number of host pairs */
+	public static final int NROF_PAIRS = 1000;
+	/** maximum distance between the hosts of a pair */
+	public static final double RANGE = 10;
+	/** how far a host moves between the checks of its pair */
+	public static final double STEP = 0.15;
+
+	private String mode;
+	private ObstacleMap map;
+	private Coord[] locs;
+	private Random rng;
+	private int next;
+
+	/**
+	 * Constructor.
+	 * @param mode The mode (one of {@link #MODES})
+	 */
+	public ObstacleBenchmark(String mode) {
+		super("checkPair");
+		this.mode = mode;
+		addParam("mode", mode);
+		addParam("pairs", NROF_PAIRS);
+	}
+
+	@Override
+	public void setUp() throws Exception {
+		List<List<Coord>> walls = ObstacleMap.readWalls(new File(WALL_FILE));
+		this.map = new ObstacleMap(walls, 0, ObstacleMap.DEF_CELL_SIZE,
+				mode.equals("cache") ? ObstacleMap.DEF_CACHE_MARGIN : 0);
+
+		double maxX = 0, maxY = 0;
+		for (List<Coord> line : walls) {
+			for (Coord c : line) {
+				maxX = Math.max(maxX, c.getX());
+				maxY = Math.max(maxY, c.getY());
+			}
+		}
+		this.rng = new Random(1);
+		this.locs = new Coord[2 * NROF_PAIRS];
+		for (int i=0; i < NROF_PAIRS; i++) {
+			Coord c = new Coord(rng.nextDouble() * maxX,
+					rng.nextDouble() * maxY);
+			double angle = rng.nextDouble() * 2 * Math.PI;
+			double d = rng.nextDouble() * RANGE;
+			this.locs[2*i] = c;
+			this.locs[2*i + 1] = new Coord(c.getX() + d * Math.cos(angle),
+					c.getY() + d * Math.sin(angle));
+		}
+		this.next = 0;
+	}
+
+	@Override
+	public Object run() {
+		int i = this.next;
+		this.next = (this.next + 2) % this.locs.length;
+		Coord c1 = this.locs[i];
+		Coord c2 = this.locs[i + 1];
+		c1.translate((rng.nextDouble() - 0.5) * STEP,
+				(rng.nextDouble() - 0.5) * STEP);
+		c2.translate((rng.nextDouble() - 0.5) * STEP,
+				(rng.nextDouble() - 0.5) * STEP);
+
+		if (c1.distance(c2) > RANGE) {
+			return 0;
+		}
+		if (mode.equals("distance")) {
+			return 1;
+		}
+		return map.countWalls(i, c1, i + 1, c2);
+	}
+}
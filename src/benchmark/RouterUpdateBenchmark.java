@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package benchmark;
+
+import java.util.List;
+
+import core.DTNHost;
+import core.SimClock;
+import core.World;
+
+/**
+ * Benchmark of updating routers whose buffers are full. All the hosts are
+ * at the same location, so every host is connected to all the others. The
+ * simulation is first run until all the buffers are full of messages, and
+ * then one operation advances the clock by the update interval and updates
+ * the routers of all hosts (e.g., for {@link routing.ProphetRouter}, this
+ * includes sorting the messages by their delivery predictabilities).
+ */
+public class RouterUpdateBenchmark extends Benchmark {
+	/** number of hosts */
+	public static final int NROF_HOSTS = 30;
+	/** update interval (seconds) */
+	public static final double UPDATE_INTERVAL = 1.0;
+	/** buffer occupancy (percentage) of all hosts before the measurement */
+	public static final double FULL_BUFFER = 90;
+	/** maximum number of world updates to fill the buffers */
+	public static final int MAX_FILL_UPDATES = 100000;
+
+	private String router;
+	private List<DTNHost> hosts;
+	private SimClock clock;
+
+	/**
+	 * Constructor.
+	 * @param router Name of the router class
+	 */
+	public RouterUpdateBenchmark(String router) {
+		super("update");
+		this.router = router;
+		addParam("router", router);
+	}
+
+	@Override
+	public void setUp() {
+		World world = createWorld(
+				"Scenario.name = routers",
+				"Scenario.endTime = " + Integer.MAX_VALUE,
+				"Scenario.updateInterval = " + UPDATE_INTERVAL,
+				"Scenario.simulateConnections = true",
+				"Scenario.nrofHostGroups = 1",
+				"MovementModel.rngSeed = 1",
+				"MovementModel.worldSize = 100, 100",
+				"iface.type = SimpleBroadcastInterface",
+				"iface.transmitSpeed = 100k",
+				"iface.transmitRange = 10",
+				"Group.groupID = n",
+				"Group.nrofHosts = " + NROF_HOSTS,
+				"Group.movementModel = StationaryMovement",
+				"Group.nodeLocation = 50, 50",
+				"Group.router = " + this.router,
+				"Group.bufferSize = 2M",
+				"Group.nrofInterfaces = 1",
+				"Group.interface1 = iface",
+				"ProphetRouter.secondsInTimeUnit = 30",
+				"Events.nrof = 1",
+				"Events1.class = MessageEventGenerator",
+				"Events1.interval = 1, 2",
+				"Events1.size = 20k, 100k",
+				"Events1.hosts = 0, " + NROF_HOSTS,
+				"Events1.prefix = M");
+
+		this.hosts = world.getHosts();
+		for (int i=0; i < MAX_FILL_UPDATES && !buffersFull(); i++) {
+			world.update();
+		}
+		if (!buffersFull()) {
+			throw new IllegalStateException("Buffers were not filled in " +
+					MAX_FILL_UPDATES + " updates");
+		}
+		this.clock = SimClock.getInstance();
+	}
+
+	private boolean buffersFull() {
+		for (DTNHost h : this.hosts) {
+			if (h.getBufferOccupancy() < FULL_BUFFER) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Object run() {
+		this.clock.advance(UPDATE_INTERVAL);
+		int messages = 0;
+		for (int i=0, n=this.hosts.size(); i < n; i++) {
+			DTNHost h = this.hosts.get(i);
+			h.getRouter().update();
+			messages += h.getNrofMessages();
+		}
+		return messages;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import core.DTNSim;
+import core.Settings;
+import core.SettingsError;
+import core.SimClock;
+import core.SimScenario;
+import core.World;
+
+/**
+ * Benchmark of a full simulation step ({@link World#update()}) of the
+ * scenario of a settings file (by default, the spy scenario in the
+ * example settings). When the scenario's end time is reached, the
+ * simulation is started again from the beginning. Settings of the file can
+ * be overridden, e.g., to compare the connectivity optimizers.
+ */
+public class WorldUpdateBenchmark extends Benchmark {
+	private String settingsFile;
+	private String[] overrides;
+	private World world;
+	private double endTime;
+
+	/**
+	 * Constructor.
+	 * @param settingsFile The settings file of the scenario
+	 * @param overrides Settings ("key = value" strings) that override the
+	 * ones of the file
+	 */
+	public WorldUpdateBenchmark(String settingsFile, String ... overrides) {
+		super("update");
+		this.settingsFile = settingsFile;
+		this.overrides = overrides;
+		addParam("settings", settingsFile);
+		for (String s : overrides) {
+			String[] keyValue = s.split("=", 2);
+			addParam(keyValue[0].trim(), keyValue[1].trim());
+		}
+	}
+
+	@Override
+	public void setUp() throws IOException {
+		Settings.init(this.settingsFile);
+		if (this.overrides.length > 0) {
+			File f = File.createTempFile("benchmark", ".txt");
+			f.deleteOnExit();
+			FileWriter out = new FileWriter(f);
+			for (String s : this.overrides) {
+				out.write(s + "\n");
+			}
+			out.close();
+			try {
+				Settings.addSettings(f.getPath());
+			} finally {
+				f.delete();
+			}
+		}
+		Settings.setRunIndex(0);
+		createScenario();
+	}
+
+	private void createScenario() {
+		DTNSim.resetForNextRun();
+		SimScenario scen = SimScenario.getInstance();
+		this.world = scen.getWorld();
+		this.endTime = scen.getEndTime();
+	}
+
+	@Override
+	public Object run() {
+		if (SimClock.getTime() >= this.endTime) {
+			createScenario();
+		}
+		this.world.update();
+		return SimClock.getIntTime();
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <P>
+ * Set of the hosts that need to be updated at every update round. The
+ * hosts are kept in a compact array in the order of their addresses, so
+ * the World doesn't need to go through the hosts that have nothing to do
+ * (e.g., hosts without any network interfaces).</P>
+ * <P>
+ * Hosts leave the set by calling {@link DTNHost#sleep()} and come back with
+ * {@link DTNHost#wakeUp()}, or when a wake-up time set with
+ * {@link #wakeUpAt(DTNHost, double)} is reached. Leaving and coming back
+ * only change the membership flags; the compact array is built again from
+ * the flags by the next call of {@link #getHosts()}, once per round. The
+ * array returned by {@link #getHosts()} isn't modified before the next call
+ * of it, so the set can be changed while the hosts of a round are being
+ * updated; the changes take effect in the next round.</P>
+ */
+public class ActiveHostSet implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** all the hosts, indexed by their address */
+	private DTNHost[] hosts;
+	/** the hosts of the set (when the array was last built), ordered by
+	 * their address */
+	private DTNHost[] active;
+	/** number of the hosts in {@link #active} */
+	private int nrofActive;
+	/** is the host with the given address in the set */
+	private boolean[] member;
+	/** number of the hosts in the set */
+	private int size;
+	/** has the set changed since {@link #active} was built */
+	private boolean changed;
+	/** version of each host's membership; a scheduled wake-up is valid
+	 * only if the version hasn't changed after it was scheduled */
+	private int[] version;
+	/** scheduled wake-ups, ordered by their time */
+	private PriorityQueue<WakeUp> timers;
+	/** sequence number of the next scheduled wake-up */
+	private long nextSeq;
+
+	/**
+	 * Creates a set that contains all the given hosts
+	 * @param hosts The hosts (indexed by their address)
+	 */
+	public ActiveHostSet(List<DTNHost> hosts) {
+		this.hosts = hosts.toArray(new DTNHost[hosts.size()]);
+		this.active = this.hosts.clone();
+		this.nrofActive = this.active.length;
+		this.member = new boolean[hosts.size()];
+		Arrays.fill(this.member, true);
+		this.size = hosts.size();
+		this.version = new int[hosts.size()];
+		this.timers = new PriorityQueue<WakeUp>();
+		for (DTNHost host : hosts) {
+			host.setActiveSet(this);
+		}
+	}
+
+	/**
+	 * Returns the hosts that are in the set, in the order of their addresses.
+	 * Only the first {@link #size()} elements of the array are hosts of the
+	 * set. The returned array must not be modified, and it is valid only
+	 * until the next call of this method.
+	 * @return The hosts in the set
+	 */
+	public DTNHost[] getHosts() {
+		if (this.changed) {
+			int n = 0;
+			for (int i=0; i < this.hosts.length; i++) {
+				if (this.member[i]) {
+					this.active[n++] = this.hosts[i];
+				}
+			}
+			this.nrofActive = n;
+			this.changed = false;
+		}
+		return this.active;
+	}
+
+	/**
+	 * Returns true if the host is in the set
+	 * @param host The host
+	 * @return True if the host is in the set
+	 */
+	public boolean contains(DTNHost host) {
+		return this.member[host.getAddress()];
+	}
+
+	/**
+	 * Returns the number of hosts in the set
+	 * @return The number of hosts in the set
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Adds a host to the set (if it isn't there already). Cancels the
+	 * host's scheduled wake-ups.
+	 * @param host The host to add
+	 */
+	public void wakeUp(DTNHost host) {
+		int address = host.getAddress();
+		if (this.member[address]) {
+			return;
+		}
+		this.member[address] = true;
+		this.version[address]++;
+		this.size++;
+		this.changed = true;
+	}
+
+	/**
+	 * Removes a host from the set (if it is there). Cancels the host's
+	 * scheduled wake-ups, so the host stays out of the set until it is
+	 * woken up again (or a new wake-up time is set).
+	 * @param host The host to remove
+	 */
+	public void sleep(DTNHost host) {
+		int address = host.getAddress();
+		this.version[address]++;
+		if (!this.member[address]) {
+			return;
+		}
+		this.member[address] = false;
+		this.size--;
+		this.changed = true;
+	}
+
+	/**
+	 * Schedules a host to be added to the set at the first update round
+	 * whose time is at least the given time, unless the host is put to
+	 * sleep or woken up before that
+	 * @param host The host
+	 * @param time The wake-up time
+	 */
+	public void wakeUpAt(DTNHost host, double time) {
+		this.timers.add(new WakeUp(host, time, this.nextSeq++,
+				this.version[host.getAddress()]));
+	}
+
+	/**
+	 * Adds the hosts whose wake-up time has been reached to the set
+	 * @param time The current time
+	 */
+	public void processTimers(double time) {
+		dropCancelledTimers();
+		while (!this.timers.isEmpty() && this.timers.peek().time <= time) {
+			wakeUp(this.timers.poll().host);
+			dropCancelledTimers();
+		}
+	}
+
+	/**
+	 * Returns the time of the next scheduled wake-up
+	 * @return The time or positive infinity if no wake-ups are scheduled
+	 */
+	public double getNextTimerTime() {
+		dropCancelledTimers();
+		WakeUp next = this.timers.peek();
+		return (next == null ? Double.POSITIVE_INFINITY : next.time);
+	}
+
+	/**
+	 * Removes the cancelled wake-ups from the head of the timer queue
+	 */
+	private void dropCancelledTimers() {
+		while (!this.timers.isEmpty() && this.timers.peek().version !=
+				this.version[this.timers.peek().host.getAddress()]) {
+			this.timers.poll();
+		}
+	}
+
+	/**
+	 * Scheduled wake-up of a host
+	 */
+	private static class WakeUp implements Comparable<WakeUp>, Serializable {
+		private static final long serialVersionUID = 1L;
+		private final DTNHost host;
+		private final double time;
+		private final long seq;
+		/** membership version of the host when the wake-up was set */
+		private final int version;
+
+		public WakeUp(DTNHost host, double time, long seq, int version) {
+			this.host = host;
+			this.time = time;
+			this.seq = seq;
+			this.version = version;
+		}
+
+		public int compareTo(WakeUp other) {
+			if (this.time != other.time) {
+				return this.time < other.time ? -1 : 1;
+			}
+			return Long.compare(this.seq, other.seq);
+		}
+	}
+}
@@ -10,6 +10,7 @@ import routing.MessageRouter;
  * A constant bit-rate connection between two DTN nodes.
  */
 public class CBRConnection extends Connection {
+	private static final long serialVersionUID = 1L;
 	private int speed;
 	private double transferDoneTime;
 
@@ -54,8 +55,10 @@ public class CBRConnection extends Connection {
 
 		if (retVal == MessageRouter.RCV_OK) {
 			this.msgOnFly = newMessage;
+			transferStarted();
 			this.transferDoneTime = SimClock.getTime() +
 			(1.0*m.getSize()) / this.speed;
+			scheduleTransferDone(this.transferDoneTime);
 		}
 
 		return retVal;
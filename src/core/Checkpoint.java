@@ -0,0 +1,554 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves the state of a simulation to a (gzipped) checkpoint file and
+ * restores it from there. The state object (e.g., the scenario and the
+ * reports) is written with Java serialization together with the static
+ * fields of the simulator's classes whose objects are in the state or
+ * that are registered for resetting (see
+ * {@link DTNSim#registerForReset(String)}). {@link Settings} are not part
+ * of the checkpoint: a restored simulation must be run with the same
+ * configuration as the one that saved the checkpoint.
+ * <P>
+ * All objects of the state must be serializable. Static fields with
+ * output streams (e.g., debug outputs) are skipped; other static values
+ * that can't be serialized make the checkpointing fail, unless the class
+ * is only registered for resetting and none of its objects are in the
+ * state (e.g., a movement model that is not in use). Such classes are
+ * reset when the checkpoint is restored.</P>
+ * <P>
+ * Java serialization writes the objects an object refers to recursively,
+ * so chains of references (e.g., from a host to a message and from there
+ * to the next host, or from a map node to its neighbors) would make the
+ * recursion as deep as there are hosts or map nodes. Objects that form
+ * such chains implement {@link Deferred}: their references to other
+ * objects are written only after the object that referred to them has
+ * been written, one object at a time, so the recursion depth doesn't
+ * depend on the size of the simulation.</P>
+ * <P>
+ * The iteration order of a {@link HashMap} or a {@link HashSet} depends on
+ * its capacity, which Java serialization doesn't restore, so they are
+ * written with their capacity and restored with the same capacity and
+ * iteration order. Otherwise e.g. the messages of a router could be handled
+ * in a different order after a restore.</P>
+ */
+public class Checkpoint {
+
+	/** Classes whose static fields are never saved */
+	private static final Class<?>[] EXCLUDED = {Settings.class,
+		DTNSim.class, Checkpoint.class, Profiler.class};
+
+	/**
+	 * Object whose references to other objects are written to a checkpoint
+	 * after the object itself (see the class description). The object's
+	 * writeObject writes the object's own fields and calls
+	 * {@link Checkpoint#writeLater(ObjectOutputStream, Deferred)}, and its
+	 * readObject reads them and calls
+	 * {@link Checkpoint#readLater(ObjectInputStream, Deferred)}. Until the
+	 * references have been read, the object's readObject (and other
+	 * readObject methods) must not use them.
+	 */
+	public interface Deferred {
+		/**
+		 * Writes the object's references to other objects
+		 * @param out The stream to write to
+		 * @throws IOException If writing fails
+		 */
+		public void writeReferences(ObjectOutputStream out)
+			throws IOException;
+
+		/**
+		 * Reads the references written by
+		 * {@link #writeReferences(ObjectOutputStream)}
+		 * @param in The stream to read from
+		 * @throws IOException If reading fails
+		 * @throws ClassNotFoundException If the class of an object is not
+		 * found
+		 */
+		public void readReferences(ObjectInputStream in)
+			throws IOException, ClassNotFoundException;
+	}
+
+	private Checkpoint() {}
+
+	/**
+	 * Writes the references of an object later, if the stream is a
+	 * checkpoint stream, or right away otherwise. Called from the
+	 * writeObject method of the object.
+	 * @param out The stream the object is written to
+	 * @param obj The object
+	 * @throws IOException If writing fails
+	 */
+	public static void writeLater(ObjectOutputStream out, Deferred obj)
+			throws IOException {
+		if (out instanceof CheckpointOutputStream) {
+			((CheckpointOutputStream)out).deferred.add(obj);
+		}
+		else {
+			obj.writeReferences(out);
+		}
+	}
+
+	/**
+	 * Reads the references of an object later, if the stream is a
+	 * checkpoint stream, or right away otherwise. Called from the
+	 * readObject method of the object.
+	 * @param in The stream the object is read from
+	 * @param obj The object
+	 * @throws IOException If reading fails
+	 * @throws ClassNotFoundException If the class of an object is not found
+	 */
+	public static void readLater(ObjectInputStream in, Deferred obj)
+			throws IOException, ClassNotFoundException {
+		if (in instanceof CheckpointInputStream) {
+			((CheckpointInputStream)in).deferred.add(obj);
+		}
+		else {
+			obj.readReferences(in);
+		}
+	}
+
+	/**
+	 * Saves a checkpoint
+	 * @param fileName Name of the checkpoint file
+	 * @param state The state to save
+	 * @throws SimError If the checkpoint can't be written
+	 */
+	public static void save(String fileName, Serializable state) {
+		CheckpointOutputStream out = null;
+		try {
+			out = new CheckpointOutputStream(new GZIPOutputStream(
+					new BufferedOutputStream(new FileOutputStream(fileName))),
+					null);
+			out.writeObject(state);
+			for (Class<?> c : DTNSim.getResetClasses()) {
+				out.addResetClass(c);
+			}
+			out.writeStatics();
+		} catch (NotSerializableException e) {
+			throw new SimError("Can't checkpoint the simulation; " +
+					e.getMessage() + " is not serializable", e);
+		} catch (IOException e) {
+			throw new SimError("Couldn't write checkpoint file '" +
+					fileName + "'\n" + e.getMessage(), e);
+		} finally {
+			close(out);
+		}
+	}
+
+	/**
+	 * Restores the state from a checkpoint. The static fields of the
+	 * simulator's classes are set to the values they had when the checkpoint
+	 * was saved.
+	 * @param fileName Name of the checkpoint file
+	 * @return The state that was saved
+	 * @throws SimError If the checkpoint can't be read
+	 */
+	public static Object restore(String fileName) {
+		CheckpointInputStream in = null;
+		try {
+			in = new CheckpointInputStream(new GZIPInputStream(
+					new BufferedInputStream(new FileInputStream(fileName))));
+			Object state = in.readObject();
+			readStatics(in);
+			return state;
+		} catch (IOException e) {
+			throw new SimError("Couldn't read checkpoint file '" +
+					fileName + "'\n" + e.getMessage(), e);
+		} catch (ReflectiveOperationException e) {
+			throw new SimError("Checkpoint file '" + fileName + "' doesn't " +
+					"match the simulator's classes\n" + e.getMessage(), e);
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Reads the static fields written by
+	 * {@link CheckpointOutputStream#writeStatics()} and sets them to the
+	 * classes, and the deferred references of the objects read from the
+	 * stream. The fields are set only after all of them have been read,
+	 * and after the classes whose fields were skipped have been reset.
+	 * @param in The stream to read from
+	 * @throws IOException If reading fails
+	 * @throws ReflectiveOperationException If a field doesn't exist
+	 */
+	static void readStatics(CheckpointInputStream in) throws IOException,
+			ReflectiveOperationException {
+		List<String> classNames = new ArrayList<String>();
+		List<String> fieldNames = new ArrayList<String>();
+		List<Object> values = new ArrayList<Object>();
+		in.readDeferred();
+		while (in.readBoolean()) {
+			classNames.add(in.readUTF());
+			fieldNames.add(in.readUTF());
+			values.add(in.readObject());
+			in.readDeferred();
+		}
+		List<String> resetNames = new ArrayList<String>();
+		while (in.readBoolean()) {
+			resetNames.add(in.readUTF());
+		}
+
+		for (String name : resetNames) {
+			Class.forName(name, true, Checkpoint.class.getClassLoader()).
+				getMethod(DTNSim.RESET_METHOD_NAME).invoke(null);
+		}
+		for (int i=0, n=values.size(); i < n; i++) {
+			/* initialize the class first so that its static
+			 * initializer doesn't overwrite the restored value later */
+			Class<?> c = Class.forName(classNames.get(i), true,
+					Checkpoint.class.getClassLoader());
+			Field f = c.getDeclaredField(fieldNames.get(i));
+			f.setAccessible(true);
+			f.set(null, values.get(i));
+		}
+	}
+
+	static void close(Closeable c) {
+		if (c == null) {
+			return;
+		}
+		try {
+			c.close();
+		} catch (IOException e) {
+			throw new SimError("Couldn't close checkpoint file\n" +
+					e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Object output stream that keeps track of the simulator's classes
+	 * whose objects have been written to it
+	 */
+	static class CheckpointOutputStream extends ObjectOutputStream {
+		private Set<Class<?>> seen;
+		private Deque<Class<?>> unsaved;
+		/** classes that were only added for resetting */
+		private Set<Class<?>> resetOnly;
+		private String packagePrefix;
+		/** objects whose references haven't been written yet */
+		private Deque<Deferred> deferred;
+
+		/**
+		 * Constructor.
+		 * @param out The stream to write to
+		 * @param pkg Name of the package whose classes' static fields are
+		 * written (including subpackages) or null for all simulator classes
+		 * @throws IOException If writing the stream header fails
+		 */
+		public CheckpointOutputStream(OutputStream out, String pkg)
+				throws IOException {
+			super(out);
+			this.seen = new HashSet<Class<?>>();
+			this.unsaved = new ArrayDeque<Class<?>>();
+			this.resetOnly = new HashSet<Class<?>>();
+			this.packagePrefix = (pkg == null ? null : pkg + ".");
+			this.deferred = new ArrayDeque<Deferred>();
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected void annotateClass(Class<?> c) {
+			addClass(c);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			Class<?> c = (obj == null ? null : obj.getClass());
+			if (c == HashMap.class || c == HashSet.class) {
+				return new HashedCollection(obj);
+			}
+			return obj;
+		}
+
+		/**
+		 * Adds a class whose static fields should be written
+		 * @param c The class
+		 */
+		public void addClass(Class<?> c) {
+			if (c.getClassLoader() != Checkpoint.class.getClassLoader()) {
+				return; // not a simulator class
+			}
+			if (this.packagePrefix != null &&
+					!c.getName().startsWith(this.packagePrefix)) {
+				return;
+			}
+			if (this.seen.add(c)) {
+				this.unsaved.add(c);
+			}
+		}
+
+		/**
+		 * Adds a class that is registered for resetting. If no objects of
+		 * the class have been written, its static values that can't be
+		 * serialized are skipped and the class is reset at restore instead.
+		 * @param c The class
+		 */
+		public void addResetClass(Class<?> c) {
+			if (!this.seen.contains(c)) {
+				this.resetOnly.add(c);
+			}
+			addClass(c);
+		}
+
+		/**
+		 * Writes the static fields of all the added classes and the
+		 * deferred references of all the objects written to the stream.
+		 * Classes of the static values are also added and their static
+		 * fields written. The deferred references are written before every
+		 * static field, so that the classes of their objects are added too.
+		 * Last, the names of the classes whose values were skipped are
+		 * written.
+		 * @throws IOException If writing fails
+		 */
+		public void writeStatics() throws IOException {
+			Set<Class<?>> skipped = new LinkedHashSet<Class<?>>();
+			writeDeferred();
+			while (!this.unsaved.isEmpty()) {
+				Class<?> c = this.unsaved.poll();
+				if (isExcluded(c)) {
+					continue;
+				}
+				for (Field f : c.getDeclaredFields()) {
+					int mod = f.getModifiers();
+					if (!Modifier.isStatic(mod) || Modifier.isFinal(mod)) {
+						continue;
+					}
+					Object value = getValue(f);
+					if (value instanceof Closeable ||
+							value instanceof Flushable) {
+						continue; // input/output stream
+					}
+					if (value != null && !(value instanceof Serializable)) {
+						if (this.resetOnly.contains(c)) {
+							skipped.add(c); // reset at restore
+							continue;
+						}
+						throw new NotSerializableException(c.getName() +
+								"." + f.getName() + " (" +
+								value.getClass().getName() + ")");
+					}
+					writeBoolean(true);
+					writeUTF(c.getName());
+					writeUTF(f.getName());
+					writeObject(value);
+					writeDeferred();
+				}
+			}
+			writeBoolean(false);
+
+			for (Class<?> c : skipped) {
+				writeBoolean(true);
+				writeUTF(c.getName());
+			}
+			writeBoolean(false);
+		}
+
+		/**
+		 * Writes the deferred references of the objects, including the
+		 * references of the objects written by this
+		 * @throws IOException If writing fails
+		 */
+		private void writeDeferred() throws IOException {
+			while (!this.deferred.isEmpty()) {
+				this.deferred.poll().writeReferences(this);
+			}
+		}
+
+		private boolean isExcluded(Class<?> c) {
+			for (Class<?> e : EXCLUDED) {
+				if (e == c) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private Object getValue(Field f) {
+			try {
+				f.setAccessible(true);
+				return f.get(null);
+			} catch (IllegalAccessException e) {
+				throw new SimError("Can't read field " + f, e);
+			}
+		}
+	}
+
+	/**
+	 * Object input stream for the streams written by
+	 * {@link CheckpointOutputStream}
+	 */
+	static class CheckpointInputStream extends ObjectInputStream {
+		/** objects whose references haven't been read yet */
+		private Deque<Deferred> deferred;
+
+		/**
+		 * Constructor.
+		 * @param in The stream to read from
+		 * @throws IOException If reading the stream header fails
+		 */
+		public CheckpointInputStream(InputStream in) throws IOException {
+			super(in);
+			this.deferred = new ArrayDeque<Deferred>();
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof HashedCollection) {
+				return ((HashedCollection)obj).restore();
+			}
+			return obj;
+		}
+
+		/**
+		 * Reads the deferred references of the objects, in the same order
+		 * as {@link CheckpointOutputStream} wrote them
+		 * @throws IOException If reading fails
+		 * @throws ClassNotFoundException If the class of an object is not
+		 * found
+		 */
+		private void readDeferred() throws IOException,
+				ClassNotFoundException {
+			while (!this.deferred.isEmpty()) {
+				this.deferred.poll().readReferences(this);
+			}
+		}
+	}
+
+	/**
+	 * A {@link HashMap} or a {@link HashSet} in a checkpoint: the capacity
+	 * and the contents in the iteration order. The collections are assumed
+	 * to use the default load factor.
+	 */
+	private static class HashedCollection implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private boolean isSet;
+		private int capacity;
+		/** the elements, or the keys and the values of a map by turns */
+		private Object[] contents;
+
+		/**
+		 * Constructor.
+		 * @param c The map or set
+		 * @throws IOException If the capacity can't be found out
+		 */
+		public HashedCollection(Object c) throws IOException {
+			this.isSet = (c instanceof Set);
+			this.capacity = CapacityProbe.capacityOf(c);
+			if (this.isSet) {
+				this.contents = ((Collection<?>)c).toArray();
+			}
+			else {
+				Map<?, ?> map = (Map<?, ?>)c;
+				this.contents = new Object[2 * map.size()];
+				int i = 0;
+				for (Map.Entry<?, ?> e : map.entrySet()) {
+					this.contents[i++] = e.getKey();
+					this.contents[i++] = e.getValue();
+				}
+			}
+		}
+
+		/**
+		 * Returns a new collection with the capacity and contents. Putting
+		 * the contents to an empty collection of the same capacity in the
+		 * iteration order gives the same iteration order.
+		 * @return The collection
+		 */
+		public Object restore() {
+			if (this.isSet) {
+				HashSet<Object> set = new HashSet<Object>(this.capacity);
+				for (Object o : this.contents) {
+					set.add(o);
+				}
+				return set;
+			}
+			HashMap<Object, Object> map =
+				new HashMap<Object, Object>(this.capacity);
+			for (int i = 0; i < this.contents.length; i += 2) {
+				map.put(this.contents[i], this.contents[i + 1]);
+			}
+			return map;
+		}
+	}
+
+	/**
+	 * Stream that finds out the capacity of a {@link HashMap} or a
+	 * {@link HashSet}. The capacity is not available through their API,
+	 * but their writeObject writes it with the first writeInt call, so the
+	 * writing is stopped there.
+	 */
+	private static class CapacityProbe extends ObjectOutputStream {
+		private int capacity;
+
+		private CapacityProbe() throws IOException {
+			super(new OutputStream() {
+				public void write(int b) {}
+				public void write(byte[] b, int off, int len) {}
+			});
+			this.capacity = -1;
+		}
+
+		/**
+		 * Returns the capacity of a hash map or set
+		 * @param c The map or set
+		 * @return The capacity
+		 * @throws IOException If the capacity wasn't written
+		 */
+		public static int capacityOf(Object c) throws IOException {
+			CapacityProbe probe = new CapacityProbe();
+			try {
+				probe.writeObject(c);
+			} catch (CapacityFound e) {
+				return probe.capacity;
+			}
+			throw new IOException("Capacity of " + c.getClass() +
+					" not found");
+		}
+
+		@Override
+		public void writeInt(int val) throws IOException {
+			this.capacity = val;
+			throw new CapacityFound();
+		}
+	}
+
+	/** Thrown by {@link CapacityProbe} to stop writing */
+	private static class CapacityFound extends IOException {
+		private static final long serialVersionUID = 1L;
+	}
+}
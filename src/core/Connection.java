@@ -4,23 +4,40 @@
  */
 package core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
 import routing.MessageRouter;
 
 /**
  * A connection between two DTN nodes.
  */
-public abstract class Connection {
-	protected DTNHost toNode;
-	protected NetworkInterface toInterface;
-	protected DTNHost fromNode;
-	protected NetworkInterface fromInterface;
-	protected DTNHost msgFromNode;
+public abstract class Connection implements Serializable,
+		Checkpoint.Deferred {
+	private static final long serialVersionUID = 1L;
+	/* references to the hosts, interfaces and the message are written
+	 * separately in the checkpoints (see writeReferences) */
+	protected transient DTNHost toNode;
+	protected transient NetworkInterface toInterface;
+	protected transient DTNHost fromNode;
+	protected transient NetworkInterface fromInterface;
+	protected transient DTNHost msgFromNode;
 
 	private boolean isUp;
-	protected Message msgOnFly;
+	protected transient Message msgOnFly;
 	/** how many bytes this connection has transferred */
 	protected int bytesTransferred;
 
+	/** should the hosts be updated when a transfer is done */
+	private static boolean transferDoneUpdates;
+
+	static {
+		DTNSim.registerForReset(Connection.class.getCanonicalName());
+		reset();
+	}
+
 	/**
 	 * Creates a new connection between nodes and sets the connection
 	 * state to "up".
@@ -40,6 +57,38 @@ public abstract class Connection {
 	}
 
 
+	/**
+	 * Resets the static fields of the class
+	 */
+	public static void reset() {
+		transferDoneUpdates = false;
+	}
+
+	/**
+	 * Sets whether the world of the scenario is asked to update the hosts
+	 * of a connection when its transfer is done (see
+	 * {@link World#TRANSFER_DONE_UPDATES_S})
+	 * @param enabled True if the updates should be scheduled
+	 */
+	static void setTransferDoneUpdates(boolean enabled) {
+		transferDoneUpdates = enabled;
+	}
+
+	/**
+	 * Schedules an update of the connection's hosts at the time when the
+	 * current transfer is done, if such updates are requested (see
+	 * {@link World#TRANSFER_DONE_UPDATES_S}). Subclasses that know the time
+	 * call this when a transfer starts.
+	 * @param time The time when the transfer is done
+	 */
+	protected void scheduleTransferDone(double time) {
+		if (transferDoneUpdates) {
+			World world = SimScenario.getInstance().getWorld();
+			world.scheduleUpdate(time, new int[] {
+					this.fromNode.getAddress(), this.toNode.getAddress()});
+		}
+	}
+
 	/**
 	 * Returns true if the connection is up
 	 * @return state of the connection
@@ -72,7 +121,32 @@ public abstract class Connection {
 	 * @param state True if the connection is up, false if not
 	 */
 	public void setUpState(boolean state) {
+		boolean wasTransferring = this.isUp && this.msgOnFly != null;
 		this.isUp = state;
+		if (wasTransferring != (this.isUp && this.msgOnFly != null)) {
+			notifyTransfer(!wasTransferring);
+		}
+	}
+
+	/**
+	 * Tells the interfaces of the connection that a transfer has been
+	 * started. Must be called by the subclasses after setting the message
+	 * that is being transferred.
+	 */
+	protected void transferStarted() {
+		if (this.isUp) {
+			notifyTransfer(true);
+		}
+	}
+
+	/**
+	 * Tells the interfaces of the connection that the connection started or
+	 * stopped transferring (while being up)
+	 * @param transferring True if the connection started transferring
+	 */
+	private void notifyTransfer(boolean transferring) {
+		this.fromInterface.transferChanged(this, transferring);
+		this.toInterface.transferChanged(this, transferring);
 	}
 
 	/**
@@ -120,8 +194,12 @@ public abstract class Connection {
 	 * Calls to {@link #getMessage()} will return null after this.
 	 */
 	protected void clearMsgOnFly() {
+		boolean wasTransferring = this.isUp && this.msgOnFly != null;
 		this.msgOnFly = null;
 		this.msgFromNode = null;
+		if (wasTransferring) {
+			notifyTransfer(false);
+		}
 	}
 
 	/**
@@ -216,6 +294,36 @@ public abstract class Connection {
 		}
 	}
 
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		Checkpoint.writeLater(out, this);
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		Checkpoint.readLater(in, this);
+	}
+
+	public void writeReferences(ObjectOutputStream out) throws IOException {
+		out.writeObject(this.toNode);
+		out.writeObject(this.toInterface);
+		out.writeObject(this.fromNode);
+		out.writeObject(this.fromInterface);
+		out.writeObject(this.msgFromNode);
+		out.writeObject(this.msgOnFly);
+	}
+
+	public void readReferences(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		this.toNode = (DTNHost)in.readObject();
+		this.toInterface = (NetworkInterface)in.readObject();
+		this.fromNode = (DTNHost)in.readObject();
+		this.fromInterface = (NetworkInterface)in.readObject();
+		this.msgFromNode = (DTNHost)in.readObject();
+		this.msgOnFly = (Message)in.readObject();
+	}
+
 	/**
 	 * Returns a String presentation of the connection.
 	 */
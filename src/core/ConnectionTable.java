@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Hash table of a network interface's connections, keyed by the address of
+ * the interface at the other end of the connection
+ * ({@link NetworkInterface#getAddress()}). Uses open addressing with linear
+ * probing, so finding a connection creates no objects and needs no
+ * iteration over the connections.
+ */
+public class ConnectionTable implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/** initial capacity of the table (must be a power of two) */
+	private static final int INITIAL_CAPACITY = 4;
+	/** key of the empty slots */
+	private static final int EMPTY = -1;
+
+	private int[] keys;
+	private Connection[] values;
+	private int size;
+
+	/**
+	 * Creates an empty table
+	 */
+	public ConnectionTable() {
+		this.keys = new int[INITIAL_CAPACITY];
+		Arrays.fill(this.keys, EMPTY);
+		this.values = new Connection[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Returns the connection to the interface with the given address
+	 * @param address Address of the other interface
+	 * @return The connection or null if there is no connection
+	 */
+	public Connection get(int address) {
+		int mask = this.keys.length - 1;
+		for (int i = slot(address, mask); this.keys[i] != EMPTY;
+				i = (i + 1) & mask) {
+			if (this.keys[i] == address) {
+				return this.values[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds (or replaces) the connection to the interface with the given
+	 * address
+	 * @param address Address of the other interface
+	 * @param con The connection
+	 */
+	public void put(int address, Connection con) {
+		if (2 * (this.size + 1) > this.keys.length) {
+			resize(2 * this.keys.length);
+		}
+		int mask = this.keys.length - 1;
+		int i = slot(address, mask);
+		while (this.keys[i] != EMPTY && this.keys[i] != address) {
+			i = (i + 1) & mask;
+		}
+		if (this.keys[i] == EMPTY) {
+			this.size++;
+		}
+		this.keys[i] = address;
+		this.values[i] = con;
+	}
+
+	/**
+	 * Removes the connection to the interface with the given address
+	 * @param address Address of the other interface
+	 * @return The removed connection or null if there was no connection
+	 */
+	public Connection remove(int address) {
+		int mask = this.keys.length - 1;
+		int i = slot(address, mask);
+		while (this.keys[i] != address) {
+			if (this.keys[i] == EMPTY) {
+				return null;
+			}
+			i = (i + 1) & mask;
+		}
+		Connection removed = this.values[i];
+		this.size--;
+
+		/* move the following entries of the probe sequence back so that
+		 * no entry is behind an empty slot */
+		int gap = i;
+		for (int j = (i + 1) & mask; this.keys[j] != EMPTY;
+				j = (j + 1) & mask) {
+			int home = slot(this.keys[j], mask);
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				this.keys[gap] = this.keys[j];
+				this.values[gap] = this.values[j];
+				gap = j;
+			}
+		}
+		this.keys[gap] = EMPTY;
+		this.values[gap] = null;
+		return removed;
+	}
+
+	/**
+	 * Returns the number of connections in the table
+	 * @return The number of connections
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = this.keys;
+		Connection[] oldValues = this.values;
+		this.keys = new int[capacity];
+		Arrays.fill(this.keys, EMPTY);
+		this.values = new Connection[capacity];
+		this.size = 0;
+		for (int i=0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private static int slot(int address, int mask) {
+		return (address * 0x9E3779B9 >>> 16) & mask;
+	}
+}
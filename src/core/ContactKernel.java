@@ -0,0 +1,572 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Event-driven contacts. Instead of checking at every update which
+ * interfaces are within range of each other, the kernel solves, from the
+ * straight line movement of the hosts, the times when two interfaces get
+ * in and out of range, and handles these contact events (and the times
+ * when the movement of a host changes) in time order. Connections are thus
+ * created and torn down at their exact times, independent of the update
+ * interval.
+ * <P>
+ * The routers still poll their transfers, so the World runs the update
+ * rounds at the update interval while some host has something to do, but
+ * skips the rounds while no host does (e.g., no host has connections).
+ * Then only the events of the kernel and the external events are handled,
+ * and the clock jumps from event to event. The kernel is not free, though:
+ * the first update predicts the contacts of every interface pair of a type
+ * (O(N^2)), and every change in a host's movement predicts the contacts of
+ * that host again (O(N)), so it pays off when the movement changes rarely
+ * compared to the update interval.</P>
+ * <P>
+ * The kernel also moves the hosts: a host is moved when its movement
+ * changes (e.g., it reaches a waypoint or starts a new path), and all hosts
+ * are moved to the current time at the end of an update. All interfaces
+ * with a range must have predictable contacts (see
+ * {@link NetworkInterface#hasPredictableContacts()}). Activeness of the
+ * interfaces is checked for the interfaces in range at the end of every
+ * update, but other transmit range changes and scanning intervals are not
+ * taken into account. Obstacles ({@link ObstacleMap}) are not supported.</P>
+ */
+public class ContactKernel implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/** event type for a change in host's movement */
+	private static final int MOVE = 0;
+	/** event type for two interfaces getting in range */
+	private static final int UP = 1;
+	/** event type for two interfaces getting out of range */
+	private static final int DOWN = 2;
+	/** contacts shorter than this (seconds) are not created */
+	private static final double EPSILON = 1e-9;
+
+	private final List<DTNHost> hosts;
+	/** all interfaces with a range; index is used as the interface's id */
+	private final NetworkInterface[] interfaces;
+	/** host address of each interface */
+	private final int[] ifHost;
+	/** interface type group of each interface */
+	private final int[] ifGroup;
+	/** ids of the interfaces in each interface type group */
+	private final int[][] groups;
+	/** ids of the interfaces of each host */
+	private final int[][] hostIfs;
+
+	/* movement of each host: location (x0, y0) at time t0 and velocity
+	 * (vx, vy) that are valid until time tEnd */
+	private final double[] x0;
+	private final double[] y0;
+	private final double[] t0;
+	private final double[] vx;
+	private final double[] vy;
+	private final double[] tEnd;
+	/** sim time when each host was last moved */
+	private final double[] lastMove;
+	private final boolean[] moving;
+	private final Coord[] destination;
+	private final double[] speed;
+	/** movement version of each host; increased when the movement changes */
+	private final long[] version;
+	/** id of each host's latest move event */
+	private final long[] moveStamp;
+
+	private final PriorityQueue<ContactEvent> events;
+	/** pairs of interfaces that are within range of each other */
+	private final Set<Long> inRange;
+	private long nextSeq;
+	private boolean initialized;
+
+	/**
+	 * Constructor.
+	 * @param hosts The hosts of the world, indexed by their address
+	 * @throws SettingsError if some interface doesn't have predictable
+	 * contacts
+	 */
+	public ContactKernel(List<DTNHost> hosts) {
+		this.hosts = hosts;
+		int nrofHosts = hosts.size();
+
+		List<NetworkInterface> nis = new ArrayList<NetworkInterface>();
+		Map<String, List<Integer>> types =
+			new HashMap<String, List<Integer>>();
+		List<List<Integer>> groupList = new ArrayList<List<Integer>>();
+		this.hostIfs = new int[nrofHosts][];
+		List<Integer> groupOf = new ArrayList<Integer>();
+
+		for (int h = 0; h < nrofHosts; h++) {
+			List<Integer> own = new ArrayList<Integer>();
+			for (NetworkInterface ni : hosts.get(h).getInterfaces()) {
+				if (ni.getOptimizer() == null) {
+					continue; /* no range, no contacts */
+				}
+				if (!ni.hasPredictableContacts()) {
+					throw new SettingsError("Interface " + ni.getClass() +
+							" doesn't support event driven contacts");
+				}
+				if (ObstacleMap.isEnabled()) {
+					throw new SettingsError("Event driven contacts don't " +
+							"support obstacles (" + ObstacleMap.OBSTACLES_NS +
+							"." + ObstacleMap.FILE_S + ")");
+				}
+				List<Integer> group = types.get(ni.getInterfaceType());
+				if (group == null) {
+					group = new ArrayList<Integer>();
+					types.put(ni.getInterfaceType(), group);
+					groupList.add(group);
+				}
+				int id = nis.size();
+				nis.add(ni);
+				group.add(id);
+				groupOf.add(groupList.indexOf(group));
+				own.add(id);
+			}
+			this.hostIfs[h] = toArray(own);
+		}
+
+		this.interfaces = nis.toArray(new NetworkInterface[nis.size()]);
+		this.ifHost = new int[this.interfaces.length];
+		this.ifGroup = toArray(groupOf);
+		for (int i = 0; i < this.interfaces.length; i++) {
+			this.ifHost[i] = this.interfaces[i].getHost().getAddress();
+		}
+		this.groups = new int[groupList.size()][];
+		for (int g = 0; g < this.groups.length; g++) {
+			this.groups[g] = toArray(groupList.get(g));
+		}
+
+		this.x0 = new double[nrofHosts];
+		this.y0 = new double[nrofHosts];
+		this.t0 = new double[nrofHosts];
+		this.vx = new double[nrofHosts];
+		this.vy = new double[nrofHosts];
+		this.tEnd = new double[nrofHosts];
+		this.lastMove = new double[nrofHosts];
+		this.moving = new boolean[nrofHosts];
+		this.destination = new Coord[nrofHosts];
+		this.speed = new double[nrofHosts];
+		this.version = new long[nrofHosts];
+		this.moveStamp = new long[nrofHosts];
+
+		this.events = new PriorityQueue<ContactEvent>();
+		this.inRange = new HashSet<Long>();
+	}
+
+	/**
+	 * Returns the time of the next (possibly outdated) event
+	 * @return the time of the next event or Double.MAX_VALUE if there are
+	 * no events
+	 */
+	public double nextEventTime() {
+		ContactEvent e = this.events.peek();
+		return (e == null ? Double.MAX_VALUE : e.time);
+	}
+
+	/**
+	 * Handles, in time order, all the events that are due at the given
+	 * time or before it. The sim time is set to the time of each event.
+	 * @param until The time until which the events are handled
+	 * @return True if some interfaces got in or out of range of each other
+	 */
+	public boolean processEvents(double until) {
+		if (!this.initialized) {
+			init();
+		}
+
+		boolean contactsChanged = false;
+		ContactEvent e;
+		while ((e = this.events.peek()) != null && e.time <= until) {
+			this.events.poll();
+			if (!isValid(e)) {
+				continue;
+			}
+
+			SimClock.getInstance().setTime(e.time);
+			if (e.type == MOVE) {
+				advance(e.a, e.time);
+				refresh(e.a, e.time, true);
+			}
+			else {
+				contactChanged(e);
+				contactsChanged = true;
+			}
+		}
+		return contactsChanged;
+	}
+
+	/**
+	 * Moves all hosts to the given time, which must be the current sim time,
+	 * and checks the activeness of the interfaces that are within range
+	 * of each other. All events up to the time must have been handled.
+	 * @param time The time to move the hosts to
+	 */
+	public void moveHosts(double time) {
+		if (!this.initialized) {
+			init();
+		}
+
+		for (int h = 0, n = this.hosts.size(); h < n; h++) {
+			advance(h, time);
+			refresh(h, time, false);
+		}
+
+		for (long key : this.inRange) {
+			NetworkInterface a = this.interfaces[(int)(key >>> 32)];
+			NetworkInterface b = this.interfaces[(int)key];
+			boolean active = a.isActive() && b.isActive();
+			if (a.isConnected(b)) {
+				if (!active) {
+					a.destroyConnection(b);
+				}
+			}
+			else if (active) {
+				a.createConnection(b);
+			}
+		}
+	}
+
+	/**
+	 * Records the movement of all hosts and predicts the contacts of all
+	 * interface pairs at the current time
+	 */
+	private void init() {
+		double now = SimClock.getTime();
+		for (int h = 0, n = this.hosts.size(); h < n; h++) {
+			this.lastMove[h] = now;
+			record(h, now);
+		}
+
+		for (int[] group : this.groups) {
+			for (int i = 0; i < group.length; i++) {
+				for (int j = i + 1; j < group.length; j++) {
+					if (this.ifHost[group[i]] != this.ifHost[group[j]]) {
+						predict(group[i], group[j], now);
+					}
+				}
+			}
+		}
+		this.initialized = true;
+	}
+
+	/**
+	 * Returns true if the event is still valid, i.e., the movement of the
+	 * host(s) hasn't changed after the event was scheduled
+	 * @param e The event to check
+	 * @return true if the event is valid
+	 */
+	private boolean isValid(ContactEvent e) {
+		if (e.type == MOVE) {
+			return e.stampA == this.moveStamp[e.a];
+		}
+		return e.stampA == this.version[this.ifHost[e.a]] &&
+			e.stampB == this.version[this.ifHost[e.b]];
+	}
+
+	/**
+	 * Moves a host from its last move time to the given time
+	 * @param h Address of the host
+	 * @param time The time to move the host to
+	 */
+	private void advance(int h, double time) {
+		DTNHost host = this.hosts.get(h);
+		/* a host that was not moving is only given a chance to start */
+		host.move(this.moving[h] ? time - this.lastMove[h] : 0);
+		if (this.moving[h] && host.getDestination() != null &&
+				host.getLocation().equals(host.getDestination())) {
+			/* landed exactly on the waypoint; the next one is taken now
+			 * and not only at the next update round */
+			host.move(0);
+		}
+		this.lastMove[h] = time;
+	}
+
+	/**
+	 * Checks if the movement of a host has changed and, if so, records the
+	 * new movement and predicts the contacts of the host again
+	 * @param h Address of the host
+	 * @param time The current time
+	 * @param moveEvent True if this is called for the host's move event
+	 */
+	private void refresh(int h, double time, boolean moveEvent) {
+		DTNHost host = this.hosts.get(h);
+		boolean isMoving = host.isMoving();
+		double end = movementEnd(host, isMoving, time);
+
+		boolean changed;
+		if (isMoving) {
+			changed = !this.moving[h] ||
+				host.getDestination() != this.destination[h] ||
+				host.getSpeed() != this.speed[h];
+		}
+		else {
+			/* a longer wait may have hidden contacts after the old end */
+			changed = this.moving[h] || end > this.tEnd[h];
+		}
+
+		if (changed) {
+			record(h, time);
+			repredict(h, time);
+		}
+		else if (moveEvent || end != this.tEnd[h]) {
+			/* e.g., rounding errors left the host just before a waypoint;
+			 * then the rest is moved at the next representable time */
+			this.tEnd[h] = (end > time ? end : Math.nextUp(time));
+			scheduleMove(h, time);
+		}
+	}
+
+	/**
+	 * Records the current movement of a host
+	 * @param h Address of the host
+	 * @param time The current time
+	 */
+	private void record(int h, double time) {
+		DTNHost host = this.hosts.get(h);
+		Coord loc = host.getLocation();
+		boolean isMoving = host.isMoving();
+
+		this.x0[h] = loc.getX();
+		this.y0[h] = loc.getY();
+		this.t0[h] = time;
+		this.moving[h] = isMoving;
+		this.destination[h] = host.getDestination();
+		this.speed[h] = host.getSpeed();
+		this.tEnd[h] = movementEnd(host, isMoving, time);
+
+		if (isMoving) {
+			Coord dest = host.getDestination();
+			double dist = loc.distance(dest);
+			this.vx[h] = this.speed[h] * (dest.getX() - loc.getX()) / dist;
+			this.vy[h] = this.speed[h] * (dest.getY() - loc.getY()) / dist;
+		}
+		else {
+			this.vx[h] = 0;
+			this.vy[h] = 0;
+		}
+
+		this.version[h]++;
+		scheduleMove(h, time);
+	}
+
+	/**
+	 * Returns the time when the current movement of a host ends, or when
+	 * its movement model can become active or inactive
+	 * @param host The host
+	 * @param isMoving Is the host moving
+	 * @param time The current time
+	 * @return The end time or Double.MAX_VALUE if the end is not known
+	 */
+	private double movementEnd(DTNHost host, boolean isMoving, double time) {
+		double end = Double.MAX_VALUE;
+		if (isMoving) {
+			end = time + host.getLocation().distance(host.getDestination()) /
+				host.getSpeed();
+		}
+		else if (host.getNextTimeToMove() > time) {
+			end = host.getNextTimeToMove();
+		}
+		return Math.min(end, host.getMovementActivenessChangeTime());
+	}
+
+	/**
+	 * Schedules a move event for the end of a host's current movement
+	 * @param h Address of the host
+	 * @param time The current time
+	 */
+	private void scheduleMove(int h, double time) {
+		this.moveStamp[h]++;
+		if (this.tEnd[h] > time && this.tEnd[h] < Double.MAX_VALUE) {
+			schedule(this.tEnd[h], MOVE, h, -1, this.moveStamp[h], 0);
+		}
+	}
+
+	/**
+	 * Predicts the contacts of all interfaces of a host
+	 * @param h Address of the host
+	 * @param time The current time
+	 */
+	private void repredict(int h, double time) {
+		for (int a : this.hostIfs[h]) {
+			for (int b : this.groups[this.ifGroup[a]]) {
+				if (this.ifHost[b] != h) {
+					predict(a, b, time);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solves when two interfaces get in or out of range next and schedules
+	 * an event for it, if it happens before the movement of either of the
+	 * hosts changes
+	 * @param a Id of one interface
+	 * @param b Id of the other interface
+	 * @param time The current time
+	 */
+	private void predict(int a, int b, double time) {
+		int i = Math.min(a, b);
+		int j = Math.max(a, b);
+		int hi = this.ifHost[i];
+		int hj = this.ifHost[j];
+
+		double range = Math.min(this.interfaces[i].getSenseRange(),
+				this.interfaces[j].getSenseRange());
+		double px = (this.x0[hi] + this.vx[hi] * (time - this.t0[hi])) -
+			(this.x0[hj] + this.vx[hj] * (time - this.t0[hj]));
+		double py = (this.y0[hi] + this.vy[hi] * (time - this.t0[hi])) -
+			(this.y0[hj] + this.vy[hj] * (time - this.t0[hj]));
+		double dvx = this.vx[hi] - this.vx[hj];
+		double dvy = this.vy[hi] - this.vy[hj];
+
+		/* |p + v*t|^2 = range^2  <=>  qa*t^2 + qb*t + qc = 0 */
+		double qa = dvx * dvx + dvy * dvy;
+		double qb = 2 * (px * dvx + py * dvy);
+		double qc = px * px + py * py - range * range;
+		double limit = Math.min(this.tEnd[hi], this.tEnd[hj]) - time;
+
+		if (this.inRange.contains(pairKey(i, j))) {
+			double exit = exitTime(qa, qb, qc);
+			if (exit <= limit) {
+				schedule(time + exit, DOWN, i, j, this.version[hi],
+						this.version[hj]);
+			}
+		}
+		else if (qc <= 0) { /* within range already */
+			if (exitTime(qa, qb, qc) > EPSILON) {
+				schedule(time, UP, i, j, this.version[hi], this.version[hj]);
+			}
+		}
+		else if (qa > 0 && qb < 0) { /* approaching */
+			double disc = qb * qb - 4 * qa * qc;
+			if (disc >= 0) {
+				double enter = (-qb - Math.sqrt(disc)) / (2 * qa);
+				if (enter <= limit) {
+					schedule(time + enter, UP, i, j, this.version[hi],
+							this.version[hj]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns after how long time a pair of interfaces gets out of range
+	 * @param qa Square of the relative speed
+	 * @param qb Two times the dot product of relative location and velocity
+	 * @param qc Square of the distance minus square of the range
+	 * @return The time until the exit (0 if out of range already) or
+	 * Double.MAX_VALUE if the pair never gets out of range
+	 */
+	private double exitTime(double qa, double qb, double qc) {
+		if (qa == 0) {
+			return (qc > 0 ? 0 : Double.MAX_VALUE);
+		}
+		double disc = qb * qb - 4 * qa * qc;
+		if (disc < 0) {
+			return 0;
+		}
+		double exit = (-qb + Math.sqrt(disc)) / (2 * qa);
+		return (exit > 0 ? exit : 0);
+	}
+
+	/**
+	 * Handles a contact event: connects or disconnects the interfaces and
+	 * predicts the next event for the pair
+	 * @param e The event
+	 */
+	private void contactChanged(ContactEvent e) {
+		NetworkInterface a = this.interfaces[e.a];
+		NetworkInterface b = this.interfaces[e.b];
+		long key = pairKey(e.a, e.b);
+
+		if (e.type == UP) {
+			this.inRange.add(key);
+			if (!a.isConnected(b) && a.isActive() && b.isActive()) {
+				a.createConnection(b);
+			}
+		}
+		else {
+			this.inRange.remove(key);
+			if (a.isConnected(b)) {
+				a.destroyConnection(b);
+			}
+		}
+
+		predict(e.a, e.b, e.time);
+	}
+
+	/**
+	 * Adds a new event to the event queue
+	 */
+	private void schedule(double time, int type, int a, int b, long stampA,
+			long stampB) {
+		this.events.add(new ContactEvent(time, this.nextSeq++, type, a, b,
+				stampA, stampB));
+	}
+
+	/**
+	 * Returns the key of an interface pair
+	 * @param i Id of the interface with the smaller id
+	 * @param j Id of the interface with the larger id
+	 * @return The key
+	 */
+	private static long pairKey(int i, int j) {
+		return ((long)i << 32) | j;
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * Event of the contact kernel. Events at the same time are handled in
+	 * the order they were scheduled.
+	 */
+	private static class ContactEvent
+			implements Comparable<ContactEvent>, Serializable {
+		private static final long serialVersionUID = 1L;
+		private final double time;
+		private final long seq;
+		private final int type;
+		/** host address (move events) or interface id */
+		private final int a;
+		/** interface id (contact events) */
+		private final int b;
+		/** move stamp (move events) or movement version of a's host */
+		private final long stampA;
+		/** movement version of b's host */
+		private final long stampB;
+
+		public ContactEvent(double time, long seq, int type, int a, int b,
+				long stampA, long stampB) {
+			this.time = time;
+			this.seq = seq;
+			this.type = type;
+			this.a = a;
+			this.b = b;
+			this.stampA = stampA;
+			this.stampB = stampB;
+		}
+
+		public int compareTo(ContactEvent other) {
+			if (this.time != other.time) {
+				return (this.time < other.time ? -1 : 1);
+			}
+			return Long.compare(this.seq, other.seq);
+		}
+	}
+}
@@ -4,6 +4,11 @@
  */
 package core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -12,30 +17,41 @@ import movement.MovementModel;
 import movement.Path;
 import routing.MessageRouter;
 import routing.util.RoutingInfo;
+import util.Tuple;
 
 import static core.Constants.DEBUG;
 
 /**
  * A DTN capable host.
  */
-public class DTNHost implements Comparable<DTNHost> {
+public class DTNHost implements Comparable<DTNHost>, Serializable,
+		Checkpoint.Deferred {
+	private static final long serialVersionUID = 1L;
 	private static int nextAddress = 0;
 	private int address;
 
 	private Coord location; 	// where is the host
 	private Coord destination;	// where is it going
 
-	private MessageRouter router;
-	private MovementModel movement;
+	/* references to the rest of the simulation are written separately in
+	 * the checkpoints (see writeReferences) */
+	private transient MessageRouter router;
+	private transient MovementModel movement;
 	private Path path;
 	private double speed;
 	private double nextTimeToMove;
 	public final String groupId;
 	private String name;
-	private List<MessageListener> msgListeners;
-	private List<MovementListener> movListeners;
-	private List<NetworkInterface> net;
-	private ModuleCommunicationBus comBus;
+	private transient List<MessageListener> msgListeners;
+	private transient List<MovementListener> movListeners;
+	/** destinations and speeds set during a deferred move (or null) */
+	private List<Tuple<Coord, Double>> deferredDestinations;
+	private transient List<NetworkInterface> net;
+	/** read-only view of the connections of all interfaces (or null) */
+	private transient List<Connection> connectionsView;
+	private transient ModuleCommunicationBus comBus;
+	/** set of hosts that are updated at every round (or null if not used) */
+	private transient ActiveHostSet activeSet;
 	//private final int[] agenda;
 	private int current_agenda_index;
 
@@ -120,6 +136,15 @@ public class DTNHost implements Comparable<DTNHost> {
 		return this.movement.isActive();
 	}
 
+	/**
+	 * Returns true if this node can be moved concurrently with other nodes
+	 * (see {@link MovementModel#isParallelMovementSafe()})
+	 * @return true if this node can be moved in parallel
+	 */
+	public boolean isParallelMovementSafe() {
+		return this.movement.isParallelMovementSafe();
+	}
+
 	/**
 	 * Returns true if this node's radio is active (false if not)
 	 * @return true if this node's radio is active (false if not)
@@ -170,6 +195,7 @@ public class DTNHost implements Comparable<DTNHost> {
 	 * @param con  The connection object whose state changed
 	 */
 	public void connectionUp(Connection con) {
+		wakeUp();
 		this.router.changedConnection(con);
 	}
 
@@ -178,10 +204,30 @@ public class DTNHost implements Comparable<DTNHost> {
 	}
 
 	/**
-	 * Returns a copy of the list of connections this host has with other hosts
-	 * @return a copy of the list of connections this host has with other hosts
+	 * Returns a read-only view of the connections this host has with other
+	 * hosts (the connections of all of its interfaces). The view is not a
+	 * copy: it changes when connections go up or down, so it must not be
+	 * iterated over while connections are changed, nor read from other
+	 * threads than the one running the simulation (see
+	 * {@link #copyConnections()}).
+	 * @return a view of the connections this host has with other hosts
 	 */
 	public List<Connection> getConnections() {
+		if (this.connectionsView == null) {
+			this.connectionsView = new ConnectionsView();
+		}
+		return this.connectionsView;
+	}
+
+	/**
+	 * Returns a copy of the connections this host has with other hosts.
+	 * Unlike {@link #getConnections()}, this can be called from another
+	 * thread (e.g., the GUI's) while the simulation runs: the copy never
+	 * fails, but it can miss connections that change during the call, and
+	 * it can contain null elements if connections went down during it.
+	 * @return a copy of the connections this host has with other hosts
+	 */
+	public List<Connection> copyConnections() {
 		List<Connection> lc = new ArrayList<Connection>();
 
 		for (NetworkInterface i : net) {
@@ -208,6 +254,78 @@ public class DTNHost implements Comparable<DTNHost> {
 		return this.path;
 	}
 
+	/**
+	 * Returns the destination (the next waypoint) of this node, or the last
+	 * waypoint if the node is waiting for a new path
+	 * @return The destination or null if no destination has been set yet
+	 */
+	Coord getDestination() {
+		return this.destination;
+	}
+
+	/**
+	 * Returns the speed the node moves towards its destination
+	 * @return The speed (m/s)
+	 */
+	double getSpeed() {
+		return this.speed;
+	}
+
+	/**
+	 * Returns the sim time after which the node asks for a new path
+	 * @return The sim time of the next path request
+	 */
+	double getNextTimeToMove() {
+		return this.nextTimeToMove;
+	}
+
+	/**
+	 * Returns the earliest time when the movement model of this node can
+	 * become active or inactive
+	 * @return The time of the next possible change (or infinity if the
+	 * activeness never changes)
+	 * @see MovementModel#getActivenessChangeTime()
+	 */
+	double getMovementActivenessChangeTime() {
+		return this.movement.getActivenessChangeTime();
+	}
+
+	/**
+	 * Returns true if the node is moving towards its destination at the
+	 * moment (i.e., it is not waiting, inactive or at its destination)
+	 * @return true if the node is moving
+	 */
+	boolean isMoving() {
+		return this.destination != null && this.speed > 0 &&
+			SimClock.getTime() >= this.nextTimeToMove &&
+			!this.location.equals(this.destination) && isMovementActive();
+	}
+
+	/**
+	 * Returns the movement state of this node: the location, destination,
+	 * path, speed, next time to move and the movement model
+	 * @return The movement state
+	 * @see #setMovementState(Object[])
+	 */
+	Object[] getMovementState() {
+		return new Object[] {this.location, this.destination, this.path,
+				this.speed, this.nextTimeToMove, this.movement};
+	}
+
+	/**
+	 * Sets the movement state of this node
+	 * @param state The movement state as returned by
+	 * {@link #getMovementState()}
+	 */
+	void setMovementState(Object[] state) {
+		this.location = (Coord)state[0];
+		this.destination = (Coord)state[1];
+		this.path = (Path)state[2];
+		this.speed = (Double)state[3];
+		this.nextTimeToMove = (Double)state[4];
+		this.movement = (MovementModel)state[5];
+		PositionStore.update(this);
+	}
 
 	/**
 	 * Sets the Node's location overriding any location set by movement model
@@ -215,6 +333,7 @@ public class DTNHost implements Comparable<DTNHost> {
 	 */
 	public void setLocation(Coord location) {
 		this.location = location.clone();
+		PositionStore.update(this);
 	}
 
 	public int getCurrent_agenda_index() {return this.current_agenda_index;}
@@ -343,15 +462,106 @@ public class DTNHost implements Comparable<DTNHost> {
 		if (!isRadioActive()) {
 			// Make sure inactive nodes don't have connections
 			tearDownAllConnections();
+			sleepUntilActive();
 			return;
 		}
 
 		if (simulateConnections) {
+			Profiler.start(Profiler.INTERFACES);
 			for (NetworkInterface i : net) {
 				i.update();
 			}
+			Profiler.end(Profiler.INTERFACES);
 		}
+		Profiler.start(Profiler.ROUTING);
 		this.router.update();
+		Profiler.endRouting(this.router);
+	}
+
+	/**
+	 * Returns the earliest time when {@link #update(boolean)} can do
+	 * something, provided that nothing (e.g., a new connection or message)
+	 * happens to the host before it: the next update time of the router
+	 * (see {@link MessageRouter#getNextUpdateTime()}) or the time when the
+	 * activeness of an interface can change. The interfaces themselves
+	 * are not considered, so this is valid only when the interfaces don't
+	 * look for connections at the updates (see {@link ContactKernel}).
+	 * @return The time of the next update that is needed
+	 */
+	public double getNextUpdateTime() {
+		double time = this.router.getNextUpdateTime();
+		for (NetworkInterface i : net) {
+			time = Math.min(time, i.getActivenessChangeTime());
+		}
+		return time;
+	}
+
+	/**
+	 * Sets the set of hosts that are updated at every update round
+	 * @param activeSet The set
+	 */
+	void setActiveSet(ActiveHostSet activeSet) {
+		this.activeSet = activeSet;
+	}
+
+	/**
+	 * Returns true if this host is updated at every update round (i.e., it
+	 * is not sleeping)
+	 * @return true if this host is awake
+	 */
+	public boolean isAwake() {
+		return this.activeSet == null || this.activeSet.contains(this);
+	}
+
+	/**
+	 * Stops updating this host at every update round until it is woken up
+	 * (if an {@link ActiveHostSet} is in use). A sleeping host is woken up
+	 * when it gets a new connection or a message, or when its energy level
+	 * rises above zero. A wake-up time set earlier with
+	 * {@link #sleepUntil(double)} is cancelled.
+	 */
+	public void sleep() {
+		if (this.activeSet != null) {
+			this.activeSet.sleep(this);
+		}
+	}
+
+	/**
+	 * Stops updating this host until the given time (or until it is woken
+	 * up earlier)
+	 * @param time The time when the host is woken up
+	 */
+	public void sleepUntil(double time) {
+		if (this.activeSet != null) {
+			this.activeSet.sleep(this);
+			this.activeSet.wakeUpAt(this, time);
+		}
+	}
+
+	/**
+	 * Makes this host to be updated again at every update round
+	 */
+	public void wakeUp() {
+		if (this.activeSet != null) {
+			this.activeSet.wakeUp(this);
+		}
+	}
+
+	/**
+	 * Puts this inactive host to sleep until one of its interfaces can
+	 * become active again
+	 */
+	private void sleepUntilActive() {
+		double wakeUpTime = Double.POSITIVE_INFINITY;
+		for (NetworkInterface i : this.net) {
+			wakeUpTime = Math.min(wakeUpTime, i.getActivenessChangeTime());
+		}
+		if (wakeUpTime == Double.POSITIVE_INFINITY) {
+			sleep(); // nothing to do until someone wakes the host up
+		}
+		else {
+			sleepUntil(wakeUpTime);
+		}
 	}
 
 	/**
@@ -381,6 +591,15 @@ public class DTNHost implements Comparable<DTNHost> {
 	 * @param timeIncrement How long time the node moves
 	 */
 	public void move(double timeIncrement) {
+		moveOnPath(timeIncrement);
+		PositionStore.update(this);
+	}
+
+	/**
+	 * Moves the node's location along its path (see {@link #move(double)})
+	 * @param timeIncrement How long time the node moves
+	 */
+	private void moveOnPath(double timeIncrement) {
 		double possibleMovement;
 		double distance;
 		double dx, dy;
@@ -415,6 +634,39 @@ public class DTNHost implements Comparable<DTNHost> {
 		this.location.translate(dx, dy);
 	}
 
+	/**
+	 * Moves the node like {@link #move(double)} but, instead of informing
+	 * the movement listeners, stores the new destinations until
+	 * {@link #notifyDeferred()} is called. Used when nodes are moved
+	 * concurrently, so that the listeners are informed in the same order
+	 * as with serial movement.
+	 * @param timeIncrement How long time the node moves
+	 */
+	void moveDeferred(double timeIncrement) {
+		if (this.movListeners != null) {
+			this.deferredDestinations = new ArrayList<Tuple<Coord, Double>>(1);
+		}
+		move(timeIncrement);
+	}
+
+	/**
+	 * Informs the movement listeners about the destinations that were set
+	 * during the last {@link #moveDeferred(double)} call.
+	 */
+	void notifyDeferred() {
+		List<Tuple<Coord, Double>> dests = this.deferredDestinations;
+		if (dests == null) {
+			return;
+		}
+
+		this.deferredDestinations = null;
+		for (Tuple<Coord, Double> t : dests) {
+			for (MovementListener l : this.movListeners) {
+				l.newDestination(this, t.getKey(), t.getValue());
+			}
+		}
+	}
+
 	/**
 	 * Sets the next destination and speed to correspond the next waypoint
 	 * on the path.
@@ -435,7 +687,11 @@ public class DTNHost implements Comparable<DTNHost> {
 		this.destination = path.getNextWaypoint();
 		this.speed = path.getSpeed();
 
-		if (this.movListeners != null) {
+		if (this.deferredDestinations != null) {
+			this.deferredDestinations.add(new Tuple<Coord, Double>(
+					this.destination, this.speed));
+		}
+		else if (this.movListeners != null) {
 			for (MovementListener l : this.movListeners) {
 				l.newDestination(this, this.destination, this.speed);
 			}
@@ -461,6 +717,7 @@ public class DTNHost implements Comparable<DTNHost> {
 	 * {@link MessageRouter#receiveMessage(Message, DTNHost)}
 	 */
 	public int receiveMessage(Message m, DTNHost from) {
+		wakeUp();
 		int retVal = this.router.receiveMessage(m, from);
 
 		if (retVal == MessageRouter.RCV_OK) {
@@ -505,6 +762,7 @@ public class DTNHost implements Comparable<DTNHost> {
 	 * @param m The message to create
 	 */
 	public void createNewMessage(Message m) {
+		wakeUp();
 		this.router.createNewMessage(m);
 	}
 
@@ -546,4 +804,66 @@ public class DTNHost implements Comparable<DTNHost> {
 		return this.getAddress() - h.getAddress();
 	}
 
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		Checkpoint.writeLater(out, this);
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		Checkpoint.readLater(in, this);
+	}
+
+	public void writeReferences(ObjectOutputStream out) throws IOException {
+		out.writeObject(this.router);
+		out.writeObject(this.movement);
+		out.writeObject(this.msgListeners);
+		out.writeObject(this.movListeners);
+		out.writeObject(this.net);
+		out.writeObject(this.comBus);
+		out.writeObject(this.activeSet);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void readReferences(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		this.router = (MessageRouter)in.readObject();
+		this.movement = (MovementModel)in.readObject();
+		this.msgListeners = (List<MessageListener>)in.readObject();
+		this.movListeners = (List<MovementListener>)in.readObject();
+		this.net = (List<NetworkInterface>)in.readObject();
+		this.comBus = (ModuleCommunicationBus)in.readObject();
+		this.activeSet = (ActiveHostSet)in.readObject();
+	}
+
+
+	/**
+	 * Read-only list of the connections of all the host's interfaces, in the
+	 * order of the interfaces
+	 */
+	private class ConnectionsView extends AbstractList<Connection> {
+		@Override
+		public Connection get(int index) {
+			int i = index;
+			for (int n=0, nrof=net.size(); n < nrof; n++) {
+				List<Connection> list = net.get(n).getConnections();
+				if (i < list.size()) {
+					return list.get(i);
+				}
+				i -= list.size();
+			}
+			throw new IndexOutOfBoundsException("Index: " + index +
+					", Size: " + size());
+		}
+
+		@Override
+		public int size() {
+			int size = 0;
+			for (int n=0, nrof=net.size(); n < nrof; n++) {
+				size += net.get(n).getConnections().size();
+			}
+			return size;
+		}
+	}
 }
@@ -5,9 +5,17 @@
 package core;
 import gui.DTNSimGUI;
 
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import ui.DTNSimTextUI;
 
@@ -20,6 +28,10 @@ public class DTNSim {
 	public static final String BATCH_MODE_FLAG = "-b";
 	/** Delimiter for batch mode index range values (colon) */
 	public static final String RANGE_DELIMETER = ":";
+	/** If this option ({@value}) follows the number of runs in batch mode,
+	 * the runs are run in parallel. The option must be followed by the
+	 * number of runs to run at the same time. */
+	public static final String PARALLEL_RUNS_FLAG = "-p";
 
 	/** Name of the static method that all resettable classes must have
 	 * @see #registerForReset(String) */
@@ -45,6 +57,7 @@ public class DTNSim {
 		String confFiles[];
 		int firstConfIndex = 0;
 		int guiIndex = 0;
+		int nrofParallelRuns = 1;
 
 		/* set US locale to parse decimals in consistent way */
 		java.util.Locale.setDefault(java.util.Locale.US);
@@ -59,6 +72,10 @@ public class DTNSim {
                     nrofRuns = parseNrofRuns(args[1]);
                     firstConfIndex = 2;
                 }
+				if (args.length > 3 && args[2].equals(PARALLEL_RUNS_FLAG)) {
+					nrofParallelRuns = parseNrofParallelRuns(args[3]);
+					firstConfIndex = 4;
+				}
 			}
 			else { /* GUI mode */
 				try { /* is there a run index for the GUI mode ? */
@@ -78,11 +95,14 @@ public class DTNSim {
 
 		if (batchMode) {
 			long startTime = System.currentTimeMillis();
-			for (int i=nrofRuns[0]; i<nrofRuns[1]; i++) {
-				print("Run " + (i+1) + "/" + nrofRuns[1]);
-				Settings.setRunIndex(i);
-				resetForNextRun();
-				new DTNSimTextUI().start();
+			if (nrofParallelRuns > 1) {
+				runInParallel(confFiles, firstConfIndex, nrofRuns,
+						nrofParallelRuns);
+			}
+			else {
+				for (int i=nrofRuns[0]; i<nrofRuns[1]; i++) {
+					runBatchRun(i, nrofRuns[1]);
+				}
 			}
 			double duration = (System.currentTimeMillis() - startTime)/1000.0;
 			print("---\nAll done in " + String.format("%.2f", duration) + "s");
@@ -93,6 +113,127 @@ public class DTNSim {
 		}
 	}
 
+	/**
+	 * Runs one run of the batch mode
+	 * @param runIndex Index of the run
+	 * @param lastRun Number of the last run (for printing)
+	 */
+	private static void runBatchRun(int runIndex, int lastRun) {
+		print("Run " + (runIndex+1) + "/" + lastRun);
+		Settings.setRunIndex(runIndex);
+		resetForNextRun();
+		new DTNSimTextUI().start();
+	}
+
+	/**
+	 * Runs one run of the batch mode in a fresh copy of the simulator.
+	 * Called (using reflection) by {@link #runInParallel} for a copy of this
+	 * class that has been loaded by its own class loader.
+	 * @param confFiles The command line arguments that contain the
+	 * settings file names
+	 * @param firstConfIndex Index of the first settings file name
+	 * @param runIndex Index of the run
+	 * @param lastRun Number of the last run (for printing)
+	 */
+	public static void runIsolated(String[] confFiles, int firstConfIndex,
+			int runIndex, int lastRun) {
+		initSettings(confFiles, firstConfIndex);
+		runBatchRun(runIndex, lastRun);
+	}
+
+	/**
+	 * Runs the batch mode runs so that several runs are run at the same
+	 * time. Every run is run by its own copy of the simulator classes, loaded
+	 * by a separate class loader, so the runs don't share any static state
+	 * and each run gives the same results as in the sequential batch mode.
+	 * @param confFiles The command line arguments that contain the
+	 * settings file names
+	 * @param firstConfIndex Index of the first settings file name
+	 * @param nrofRuns The first and (last_run_index - 1) in an array
+	 * @param nrofParallelRuns How many runs are run at the same time
+	 */
+	private static void runInParallel(final String[] confFiles,
+			final int firstConfIndex, final int[] nrofRuns,
+			int nrofParallelRuns) {
+		final URL[] classPath = getClassPath();
+		ExecutorService executor =
+			Executors.newFixedThreadPool(nrofParallelRuns);
+		List<Future<?>> runs = new ArrayList<Future<?>>();
+
+		for (int i=nrofRuns[0]; i<nrofRuns[1]; i++) {
+			final int runIndex = i;
+			runs.add(executor.submit(new Runnable() {
+				public void run() {
+					runInClassLoader(classPath, confFiles, firstConfIndex,
+							runIndex, nrofRuns[1]);
+				}
+			}));
+		}
+		executor.shutdown();
+
+		for (Future<?> run : runs) {
+			try {
+				run.get();
+			} catch (Exception e) {
+				System.err.println("Batch run failed: " + e);
+				e.printStackTrace();
+				System.exit(-1);
+			}
+		}
+	}
+
+	/**
+	 * Loads the simulator classes with a new class loader and runs one run
+	 * using them
+	 * @param classPath Where the simulator classes are loaded from
+	 * @param confFiles The command line arguments that contain the
+	 * settings file names
+	 * @param firstConfIndex Index of the first settings file name
+	 * @param runIndex Index of the run
+	 * @param lastRun Number of the last run (for printing)
+	 */
+	private static void runInClassLoader(URL[] classPath, String[] confFiles,
+			int firstConfIndex, int runIndex, int lastRun) {
+		Thread thread = Thread.currentThread();
+		ClassLoader oldLoader = thread.getContextClassLoader();
+
+		try (URLClassLoader loader = new URLClassLoader(classPath,
+				ClassLoader.getPlatformClassLoader())) {
+			thread.setContextClassLoader(loader);
+			Class<?> simClass = loader.loadClass(DTNSim.class.getName());
+			Method m = simClass.getMethod("runIsolated", String[].class,
+					int.class, int.class, int.class);
+			m.invoke(null, confFiles, firstConfIndex, runIndex, lastRun);
+		} catch (InvocationTargetException e) {
+			throw new SimError(e.getCause().toString(), e);
+		} catch (Exception e) {
+			throw new SimError("Can't run run " + (runIndex+1) + " in " +
+					"parallel: " + e, e);
+		} finally {
+			thread.setContextClassLoader(oldLoader);
+		}
+	}
+
+	/**
+	 * Returns the class path of the simulator as URLs
+	 * @return The class path
+	 */
+	private static URL[] getClassPath() {
+		List<URL> urls = new ArrayList<URL>();
+		String classPath = System.getProperty("java.class.path");
+
+		try {
+			for (String path : classPath.split(File.pathSeparator)) {
+				if (path.length() > 0) {
+					urls.add(new File(path).toURI().toURL());
+				}
+			}
+		} catch (MalformedURLException e) {
+			throw new SimError("Invalid class path " + classPath, e);
+		}
+		return urls.toArray(new URL[urls.size()]);
+	}
+
 	/**
 	 * Initializes Settings
 	 * @param confFiles File name paths where to read additional settings
@@ -160,9 +301,19 @@ public class DTNSim {
 	}
 
 	/**
-	 * Resets all registered classes.
+	 * Returns the classes that are registered for resetting
+	 * @return The registered classes
 	 */
-	private static void resetForNextRun() {
+	static List<Class<?>> getResetClasses() {
+		return resetList;
+	}
+
+	/**
+	 * Resets all registered classes. Called before every batch run, and
+	 * can be called by other programs that create several simulations in
+	 * the same JVM (after the settings for the next simulation are read).
+	 */
+	public static void resetForNextRun() {
 		for (Class<?> c : resetList) {
 			try {
 				Method m = c.getMethod(RESET_METHOD_NAME);
@@ -216,6 +367,28 @@ public class DTNSim {
 		return val;
 	}
 
+	/**
+	 * Parses the number of runs to run in parallel from a command line
+	 * argument
+	 * @param arg The argument to parse
+	 * @return The number of parallel runs
+	 */
+	private static int parseNrofParallelRuns(String arg) {
+		int val = 0;
+		try {
+			val = Integer.parseInt(arg);
+		} catch (NumberFormatException e) {
+			/* handled below */
+		}
+
+		if (val < 1) {
+			System.err.println("Invalid argument '" + arg + "' for" +
+					" number of parallel runs");
+			System.exit(-1);
+		}
+		return val;
+	}
+
 	/**
 	 * Prints text to stdout
 	 * @param txt Text to print
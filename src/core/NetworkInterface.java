@@ -4,10 +4,14 @@
  */
 package core;
 
+import interfaces.ArrayConnectivityGrid;
 import interfaces.ConnectivityGrid;
 import interfaces.ConnectivityOptimizer;
+import interfaces.SweepAndPruneOptimizer;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Random;
 
@@ -18,13 +22,28 @@ import util.ActivenessHandler;
 /**
  * Network interface of a DTNHost. Takes care of connectivity among hosts.
  */
-abstract public class NetworkInterface implements ModuleCommunicationListener {
+abstract public class NetworkInterface implements ModuleCommunicationListener,
+		Serializable {
+	private static final long serialVersionUID = 1L;
 	/** transmit range -setting id ({@value})*/
 	public static final String TRANSMIT_RANGE_S = "transmitRange";
 	/** transmit speed -setting id ({@value})*/
 	public static final String TRANSMIT_SPEED_S = "transmitSpeed";
 	/** scanning interval -setting id ({@value})*/
 	public static final String SCAN_INTERVAL_S = "scanInterval";
+	/**
+	 * Connectivity optimizer -setting id ({@value}). Name of the
+	 * connectivity optimizer used by the interfaces of this type:
+	 * {@link #GRID_OPTIMIZER} (default), {@link #ARRAY_GRID_OPTIMIZER} or
+	 * {@link #SWEEP_OPTIMIZER}.
+	 */
+	public static final String OPTIMIZER_S = "connectivityOptimizer";
+	/** Name of the {@link ConnectivityGrid} optimizer ({@value}) */
+	public static final String GRID_OPTIMIZER = "ConnectivityGrid";
+	/** Name of the {@link ArrayConnectivityGrid} optimizer ({@value}) */
+	public static final String ARRAY_GRID_OPTIMIZER = "ArrayConnectivityGrid";
+	/** Name of the {@link SweepAndPruneOptimizer} optimizer ({@value}) */
+	public static final String SWEEP_OPTIMIZER = "SweepAndPrune";
 
 	/**
 	 * Sub-namespace for the network related settings in the Group namespace
@@ -50,16 +69,26 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	private static final int CON_DOWN = 2;
 
 	private static Random rng;
+	/** address of the next interface that is given a host */
+	private static int nextAddress;
 	protected DTNHost host = null;
 
 	protected String interfacetype;
 	protected List<Connection> connections; // connected hosts
+	/** the connections by the address of the other interface */
+	private ConnectionTable connectionTable;
 	private List<ConnectionListener> cListeners = null; // list of listeners
 	private int address; // network interface address
 	protected double transmitRange;
 	protected double oldTransmitRange;
 	protected int transmitSpeed;
 	protected ConnectivityOptimizer optimizer = null;
+	/** name of the optimizer type */
+	private String optimizerType = GRID_OPTIMIZER;
+	/** reusable list for the near interfaces */
+	private transient List<NetworkInterface> near;
+	/** reusable list for the near interfaces that were sensed in range */
+	private transient List<NetworkInterface> nearInRange;
 	/** scanning interval, or 0.0 if n/a */
 	private double scanInterval;
 	private double lastScanTime;
@@ -70,6 +99,25 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	private int activenessJitterMax;
 	/** this interface's activeness jitter value */
 	private int activenessJitterValue;
+	/** activeness given by the activeness handler at the last check */
+	private boolean handlerActive;
+	/** sim time of the last activeness check (or NaN if never checked) */
+	private double activenessTime = Double.NaN;
+	/** sim time when the activeness can change after the last check */
+	private double activenessUntil;
+	/** is the host's energy (if it has an energy model) depleted */
+	private boolean energyDepleted;
+
+	/** interfaces found within range in the last sensing round */
+	private List<NetworkInterface> sensed;
+	/** sim time of the last sensing round (or NaN if never sensed) */
+	private double senseTime = Double.NaN;
+	/** interface whose sensed list this interface was last marked into */
+	private NetworkInterface senseMarker;
+	/** round of the marker when this interface was marked */
+	private long senseMarkRound;
+	/** nrof times this interface has marked its sensed interfaces */
+	private long senseRound;
 
 	static {
 		DTNSim.registerForReset(NetworkInterface.class.getCanonicalName());
@@ -81,6 +129,7 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	 */
 	public static void reset() {
 		rng = new Random(0);
+		nextAddress = 0;
 	}
 
 	/**
@@ -89,11 +138,23 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	public NetworkInterface(Settings s) {
 		this.interfacetype = s.getNameSpace();
 		this.connections = new ArrayList<Connection>();
+		this.connectionTable = new ConnectionTable();
 
 		this.transmitRange = s.getDouble(TRANSMIT_RANGE_S);
 		this.transmitSpeed = s.getInt(TRANSMIT_SPEED_S);
 		ensurePositiveValue(transmitRange, TRANSMIT_RANGE_S);
 		ensurePositiveValue(transmitSpeed, TRANSMIT_SPEED_S);
+
+		if (s.contains(OPTIMIZER_S)) {
+			this.optimizerType = s.getSetting(OPTIMIZER_S);
+			if (!this.optimizerType.equals(GRID_OPTIMIZER) &&
+					!this.optimizerType.equals(ARRAY_GRID_OPTIMIZER) &&
+					!this.optimizerType.equals(SWEEP_OPTIMIZER)) {
+				throw new SettingsError("Unknown connectivity optimizer '" +
+						this.optimizerType + "' for setting " +
+						s.getFullPropertyName(OPTIMIZER_S));
+			}
+		}
 	}
 
 	/**
@@ -102,6 +163,7 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	public NetworkInterface() {
 		this.interfacetype = "Default";
 		this.connections = new ArrayList<Connection>();
+		this.connectionTable = new ConnectionTable();
 	}
 
 	/**
@@ -109,12 +171,14 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	 */
 	public NetworkInterface(NetworkInterface ni) {
 		this.connections = new ArrayList<Connection>();
+		this.connectionTable = new ConnectionTable();
 		this.host = ni.host;
 		this.cListeners = ni.cListeners;
 		this.interfacetype = ni.interfacetype;
 		this.transmitRange = ni.transmitRange;
 		this.transmitSpeed = ni.transmitSpeed;
 		this.scanInterval = ni.scanInterval;
+		this.optimizerType = ni.optimizerType;
 		this.ah = ni.ah;
 
 		if (ni.activenessJitterMax > 0) {
@@ -140,6 +204,7 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	 */
 	public void setHost(DTNHost host) {
 		this.host = host;
+		this.address = nextAddress++;
 		ModuleCommunicationBus comBus = host.getComBus();
 
 		if (!comBus.containsProperty(SCAN_INTERVAL_ID) &&
@@ -153,16 +218,46 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 			comBus.subscribe(RANGE_ID, this);
 			comBus.subscribe(SPEED_ID, this);
 		}
+		this.energyDepleted =
+			comBus.getDouble(EnergyModel.ENERGY_VALUE_ID, 1) <= 0;
+		comBus.subscribe(EnergyModel.ENERGY_VALUE_ID, this);
 
 		if (transmitRange > 0) {
-			optimizer = ConnectivityGrid.ConnectivityGridFactory(
-					this.interfacetype.hashCode(), transmitRange);
+			optimizer = createOptimizer();
 			optimizer.addInterface(this);
 		} else {
 			optimizer = null;
 		}
 	}
 
+	/**
+	 * Returns the connectivity optimizer of this interface's type (creates
+	 * one if this is the first interface of the type)
+	 * @return The optimizer
+	 */
+	private ConnectivityOptimizer createOptimizer() {
+		int key = this.interfacetype.hashCode();
+		if (this.optimizerType.equals(ARRAY_GRID_OPTIMIZER)) {
+			return ArrayConnectivityGrid.ArrayConnectivityGridFactory(key,
+					transmitRange);
+		}
+		if (this.optimizerType.equals(SWEEP_OPTIMIZER)) {
+			return SweepAndPruneOptimizer.SweepAndPruneOptimizerFactory(key,
+					transmitRange);
+		}
+		return ConnectivityGrid.ConnectivityGridFactory(key, transmitRange);
+	}
+
+	/**
+	 * Returns the address of this interface. The addresses are unique
+	 * among all interfaces and given in the order the interfaces are
+	 * added to hosts, starting from zero.
+	 * @return The address
+	 */
+	public int getAddress() {
+		return this.address;
+	}
+
 	/**
 	 * Sets group-based settings for the network interface
 	 * @param s The settings object using the right group namespace
@@ -206,6 +301,18 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		return this.transmitRange;
 	}
 
+	/**
+	 * Returns an upper bound for the transmit range of this interface during
+	 * the current update round. The range can drop to zero, and back to
+	 * its previous value, when the interface's activeness changes in the
+	 * middle of a round; this covers both values.
+	 * @return the transmit range upper bound
+	 */
+	public double getSenseRange() {
+		double range = getTransmitRange();
+		return (oldTransmitRange > range ? oldTransmitRange : range);
+	}
+
 	/**
 	 * Returns the transmit speed of this network layer with respect to the
 	 * another network interface
@@ -216,6 +323,19 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		return this.transmitSpeed;
 	}
 
+	/**
+	 * Returns the time until which the transmit speeds of this interface
+	 * stay as they are now, unless the interface tells its connections
+	 * about a change (see {@link VBRConnection#speedChanged()}). Variable
+	 * bit-rate connections recompute their speed at the first update at or
+	 * after this time. This implementation returns the current time, i.e.,
+	 * the speeds can change at every update.
+	 * @return The time when the transmit speeds can next change
+	 */
+	public double getSpeedChangeTime() {
+		return SimClock.getTime();
+	}
+
 	/**
 	 * Returns a list of currently connected connections
 	 * @return a list of currently connected connections
@@ -225,7 +345,10 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	}
 
 	/**
-	 * Returns true if the interface is on at the moment (false if not)
+	 * Returns true if the interface is on at the moment (false if not).
+	 * The activeness handler is asked again only when the time of the last
+	 * answer's next possible change has come, and the energy level is
+	 * followed through the host's communication bus.
 	 * @return true if the interface is on at the moment (false if not)
 	 */
 	public boolean isActive() {
@@ -235,14 +358,15 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 			return true; /* no handler: always active */
 		}
 
-		active = ah.isActive(this.activenessJitterValue);
-
-		if (active && host.getComBus().getDouble(EnergyModel.ENERGY_VALUE_ID,
-					1) <= 0) {
-			/* TODO: better way to check battery level */
-			/* no battery -> inactive */
-			active = false;
+		double time = SimClock.getTime();
+		if (!(time >= this.activenessTime && time < this.activenessUntil)) {
+			this.handlerActive = ah.isActive(this.activenessJitterValue);
+			this.activenessTime = time;
+			this.activenessUntil =
+				ah.nextChangeTime(this.activenessJitterValue);
 		}
+		/* no battery -> inactive */
+		active = this.handlerActive && !this.energyDepleted;
 
 		if (active == false && this.transmitRange > 0) {
 			/* not active -> make range 0 */
@@ -256,6 +380,21 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		return active;
 	}
 
+	/**
+	 * Returns the earliest sim time when the activeness of this interface
+	 * can change because of its activeness settings (changes of the energy
+	 * level wake the host up, see {@link DTNHost#wakeUp()}). Valid after a
+	 * call to {@link #isActive()}.
+	 * @return The time of the next possible change (or infinity if the
+	 * activeness never changes)
+	 */
+	public double getActivenessChangeTime() {
+		if (ah == null) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return this.activenessUntil;
+	}
+
 	/**
 	 * Checks if this interface is currently in the scanning mode
 	 * @return True if the interface is scanning; false if not
@@ -317,10 +456,14 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	 */
 	protected void connect(Connection con, NetworkInterface anotherInterface) {
 		this.connections.add(con);
+		this.connectionTable.put(anotherInterface.address, con);
 		notifyConnectionListeners(CON_UP, anotherInterface.getHost());
 
 		// set up bidirectional connection
 		anotherInterface.getConnections().add(con);
+		anotherInterface.connectionTable.put(this.address, con);
+		connectionAdded(con, anotherInterface);
+		anotherInterface.connectionAdded(con, this);
 
 		// inform routers about the connection
 		this.host.connectionUp(con);
@@ -329,12 +472,14 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 
 	/**
 	 * Disconnects this host from another host.  The derived class should
-	 * make the decision whether to disconnect or not
+	 * make the decision whether to disconnect or not, and remove the
+	 * connection from its {@link #connections} list after calling this.
 	 * @param con The connection to tear down
 	 */
 	protected void disconnect(Connection con,
 			NetworkInterface anotherInterface) {
 		con.setUpState(false);
+		this.connectionTable.remove(anotherInterface.address);
 		notifyConnectionListeners(CON_DOWN, anotherInterface.getHost());
 
 		// tear down bidirectional connection
@@ -342,14 +487,46 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 			throw new SimError("No connection " + con + " found in " +
 					anotherInterface);
 		}
+		anotherInterface.connectionTable.remove(this.address);
+		connectionRemoved(con, anotherInterface);
+		anotherInterface.connectionRemoved(con, this);
 
 		this.host.connectionDown(con);
 		anotherInterface.getHost().connectionDown(con);
 	}
 
+	/**
+	 * Called when a connection of this interface has been created.
+	 * Overload this in a derived class that keeps track of the connections.
+	 * @param con The new connection
+	 * @param anotherInterface The interface in the other end
+	 */
+	protected void connectionAdded(Connection con,
+			NetworkInterface anotherInterface) {}
+
+	/**
+	 * Called when a connection of this interface has been torn down.
+	 * Overload this in a derived class that keeps track of the connections.
+	 * @param con The removed connection
+	 * @param anotherInterface The interface in the other end
+	 */
+	protected void connectionRemoved(Connection con,
+			NetworkInterface anotherInterface) {}
+
+	/**
+	 * Called when a connection of this interface starts or stops
+	 * transferring a message while it is up. Overload this in a derived
+	 * class that keeps track of the transfers.
+	 * @param con The connection
+	 * @param transferring True if the connection started transferring
+	 */
+	protected void transferChanged(Connection con, boolean transferring) {}
+
 	/**
 	 * Returns true if another interface is within radio range of this interface
 	 * and this interface is also within radio range of the another interface.
+	 * If obstacles are enabled (see {@link ObstacleMap}), the range is
+	 * attenuated by the walls between the hosts.
 	 * @param anotherInterface The another interface
 	 * @return True if the interface is within range, false if not
 	 */
@@ -360,8 +537,21 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 			smallerRange = myRange;
 		}
 
-		return this.host.getLocation().distance(
-				anotherInterface.getHost().getLocation()) <= smallerRange;
+		double distance;
+		if (PositionStore.isEnabled()) {
+			distance = PositionStore.distance(this.host.getAddress(),
+					anotherInterface.getHost().getAddress());
+		} else {
+			distance = this.host.getLocation().distance(
+					anotherInterface.getHost().getLocation());
+		}
+		if (distance > smallerRange) {
+			return false;
+		}
+
+		ObstacleMap obstacles = ObstacleMap.getInstance();
+		return obstacles == null || distance <= smallerRange *
+				obstacles.getRangeFactor(this.host, anotherInterface.getHost());
 	}
 
 	/**
@@ -370,15 +560,163 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	 * @return True if the two hosts are connected
 	 */
 	protected boolean isConnected(NetworkInterface netinterface) {
-		for (int i = 0; i < this.connections.size(); i++) {
-			if (this.connections.get(i).getOtherInterface(this) ==
-				netinterface) {
-				return true;
-			}
+		return getConnection(netinterface) != null;
+	}
+
+	/**
+	 * Returns the connection between this and the given interface
+	 * @param netinterface The other interface
+	 * @return The connection or null if the interfaces are not connected
+	 */
+	public Connection getConnection(NetworkInterface netinterface) {
+		Connection con = this.connectionTable.get(netinterface.address);
+		if (con != null && con.getOtherInterface(this) == netinterface) {
+			return con;
 		}
+		return null;
+	}
+
+	/**
+	 * Returns true if this interface's connections depend only on the
+	 * ranges and activeness of the interfaces, so that their up and down
+	 * times can be predicted from the movement of the hosts (see
+	 * {@link ContactKernel}). This implementation returns false.
+	 * @return true if the contacts of this interface are predictable
+	 */
+	public boolean hasPredictableContacts() {
 		return false;
 	}
 
+	/**
+	 * Runs the read-only "sense" phase of a parallel update round: finds the
+	 * interfaces that are within range at the current locations. Updates
+	 * only this interface's own sensing state, so it can be called for
+	 * different interfaces concurrently as long as no interface or host is
+	 * modified at the same time. Interfaces whose optimizer doesn't support
+	 * sensing (or that don't have an optimizer) are not affected.
+	 * @see ConnectivityOptimizer#senseNearInterfaces(NetworkInterface, List)
+	 */
+	public void senseNearInterfaces() {
+		if (optimizer == null) {
+			return;
+		}
+		if (this.sensed == null) {
+			this.sensed = new ArrayList<NetworkInterface>();
+		}
+		this.sensed.clear();
+		if (optimizer.senseNearInterfaces(this, this.sensed)) {
+			this.senseTime = SimClock.getTime();
+		} else {
+			this.senseTime = Double.NaN;
+		}
+	}
+
+	/**
+	 * Starts a pairwise sensing round (see
+	 * {@link ConnectivityOptimizer#sensePairs()}): forgets the interfaces
+	 * sensed in the previous round. Until an interface is added with
+	 * {@link #addSensed(NetworkInterface)}, this interface is handled as
+	 * not sensed during the round.
+	 */
+	public void startSensing() {
+		if (this.sensed == null) {
+			this.sensed = new ArrayList<NetworkInterface>();
+		}
+		this.sensed.clear();
+		this.senseTime = Double.NaN;
+	}
+
+	/**
+	 * Adds an interface to the interfaces that are within range of this
+	 * interface in the current pairwise sensing round. Called by the
+	 * connectivity optimizer; also this interface itself is added.
+	 * @param ni The interface that is within range
+	 */
+	public void addSensed(NetworkInterface ni) {
+		this.sensed.add(ni);
+		this.senseTime = SimClock.getTime();
+	}
+
+	/**
+	 * Returns the interfaces that are near enough to be possibly connected
+	 * with this interface, in the order given by the optimizer. If this
+	 * interface was sensed during the current update round (see
+	 * {@link #senseNearInterfaces()}), interfaces that were not found in
+	 * range are left out: {@link #connect(NetworkInterface)} would not connect
+	 * to them anyway, so this only saves the checks.
+	 * @return The near interfaces
+	 */
+	protected Collection<NetworkInterface> getNearInterfaces() {
+		if (this.near == null) {
+			this.near = new ArrayList<NetworkInterface>();
+			this.nearInRange = new ArrayList<NetworkInterface>();
+		}
+		this.near.clear();
+		optimizer.findNearInterfaces(this, this.near);
+		if (!markSensed()) {
+			return this.near; /* not sensed during this round */
+		}
+
+		this.nearInRange.clear();
+		for (int i=0, n=this.near.size(); i < n; i++) {
+			NetworkInterface ni = this.near.get(i);
+			if (ni.senseMarker == this &&
+					ni.senseMarkRound == this.senseRound) {
+				this.nearInRange.add(ni);
+			}
+		}
+		return this.nearInRange;
+	}
+
+	/**
+	 * Marks the interfaces that were sensed in range of this interface, if
+	 * this interface was sensed during the current update round (see
+	 * {@link #senseNearInterfaces()} and
+	 * {@link ConnectivityOptimizer#sensePairs()})
+	 * @return True if this interface was sensed during the current round
+	 */
+	protected boolean markSensed() {
+		if (this.senseTime != SimClock.getTime()) {
+			return false;
+		}
+
+		this.senseRound++;
+		for (int i=0, n=this.sensed.size(); i < n; i++) {
+			NetworkInterface ni = this.sensed.get(i);
+			ni.senseMarker = this;
+			ni.senseMarkRound = this.senseRound;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the given interface is within range of this
+	 * interface, like {@link #isWithinRange(NetworkInterface)}, but uses the
+	 * result of the sensing instead of checking the distance again: the
+	 * sensing already checked the pair, with the same distance computation,
+	 * and handed the result to both interfaces. Only obstacles or a transmit
+	 * range that changed during the round (see {@link #getSenseRange()})
+	 * need the check again, as do interfaces of other optimizers. Valid
+	 * after {@link #markSensed()} returned true and until another interface
+	 * marks its sensed interfaces.
+	 * @param ni The other interface
+	 * @return True if the other interface is within range
+	 */
+	protected boolean isSensedInRange(NetworkInterface ni) {
+		if (ni.optimizer != this.optimizer) {
+			return isWithinRange(ni); /* not sensed together */
+		}
+		if (ni.senseMarker != this || ni.senseMarkRound != this.senseRound) {
+			return false;
+		}
+		if (ObstacleMap.getInstance() == null &&
+				getSenseRange() == getTransmitRange() &&
+				ni.getSenseRange() == ni.getTransmitRange()) {
+			return true;
+		}
+		return isWithinRange(ni);
+	}
+
 	/**
 	 * Makes sure that a value is positive
 	 * @param value Value to check
@@ -423,7 +761,8 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 
 	/**
 	 * This method is called by the {@link ModuleCommunicationBus} when/if
-	 * someone changes the scanning interval, transmit speed, or range
+	 * someone changes the scanning interval, transmit speed, range, or the
+	 * energy level
 	 * @param key Identifier of the changed value
 	 * @param newValue New value for the variable
 	 */
@@ -437,6 +776,13 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		else if (key.equals(RANGE_ID)) {
 			this.transmitRange = (Double)newValue;
 		}
+		else if (key.equals(EnergyModel.ENERGY_VALUE_ID)) {
+			boolean depleted = (Double)newValue <= 0;
+			if (this.energyDepleted && !depleted) {
+				this.host.wakeUp();
+			}
+			this.energyDepleted = depleted;
+		}
 		else {
 			throw new SimError("Unexpected combus ID " + key);
 		}
@@ -475,7 +821,9 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 			NetworkInterface anotherInterface) {
 		Connection con = this.connections.get(index);
 		DTNHost anotherNode = anotherInterface.getHost();
+		NetworkInterface otherInterface = con.getOtherInterface(this);
 		con.setUpState(false);
+		this.connectionTable.remove(otherInterface.address);
 		notifyConnectionListeners(CON_DOWN, anotherNode);
 
 		// tear down bidirectional connection
@@ -483,6 +831,9 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 			throw new SimError("No connection " + con + " found in " +
 					anotherNode);
 		}
+		anotherInterface.connectionTable.remove(this.address);
+		connectionRemoved(con, anotherInterface);
+		anotherInterface.connectionRemoved(con, this);
 
 		this.host.connectionDown(con);
 		anotherNode.connectionDown(con);
@@ -490,6 +841,14 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		connections.remove(index);
 	}
 
+	/**
+	 * Returns the connectivity optimizer of this interface
+	 * @return The optimizer or null if the interface doesn't use one
+	 */
+	public ConnectivityOptimizer getOptimizer() {
+		return this.optimizer;
+	}
+
 	/**
 	 * Returns the DTNHost of this interface
 	 */
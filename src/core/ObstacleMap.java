@@ -0,0 +1,564 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <P>
+ * Walls that attenuate the radio links between the hosts. When the map is
+ * enabled (with the {@link #FILE_S} setting), the range check of the
+ * network interfaces (see {@link NetworkInterface#isWithinRange}) also
+ * counts the walls that the line of sight between the hosts crosses, and
+ * every crossed wall multiplies the range by {@link #ATTENUATION_S}.</P>
+ * <P>
+ * The wall segments are indexed in a uniform grid, so a line of sight
+ * check only tests the walls in the grid cells that the link's bounding
+ * box overlaps. The wall count of a host pair is also cached, together
+ * with a margin: the smallest distance between the line of sight and the
+ * endpoints of the nearby walls (or between the walls and the hosts). As
+ * long as neither of the hosts has moved as far as the margin, the line of
+ * sight can't have crossed any wall's end or any host crossed a wall, so
+ * the cached count is still exact and slowly moving (or stationary) pairs
+ * don't need the geometry checks at every update. The results are the same
+ * as without the cache.</P>
+ */
+public class ObstacleMap implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/** Namespace of the obstacle settings ({@value}) */
+	public static final String OBSTACLES_NS = "Obstacles";
+	/**
+	 * Wall file -setting id ({@value}). Path to a file whose LINESTRING,
+	 * MULTILINESTRING and POLYGON geometries (in WKT syntax) are the walls.
+	 * The geometries may also be embedded in another file, e.g., as JSON
+	 * string values (like in <CODE>data/fmi_locations.json</CODE>). The
+	 * coordinates are used as they are. If the setting is not given, there
+	 * are no obstacles.
+	 */
+	public static final String FILE_S = "file";
+	/**
+	 * Wall attenuation -setting id ({@value}). Double in the range [0, 1].
+	 * The transmit range of a link is multiplied by this for every wall
+	 * the link crosses, so with 0 the walls block all links. Default is
+	 * {@value #DEF_ATTENUATION}.
+	 */
+	public static final String ATTENUATION_S = "attenuation";
+	/**
+	 * Wall index cell size -setting id ({@value}). Double (meters).
+	 * Default is {@value #DEF_CELL_SIZE}.
+	 */
+	public static final String CELL_SIZE_S = "cellSize";
+	/**
+	 * Cache margin -setting id ({@value}). Double (meters). The wall
+	 * counts of host pairs are cached for as long as the hosts stay closer
+	 * than this (and the distance to the nearest wall) to their locations
+	 * at the check; bigger values let the pairs move further before a new
+	 * check but make the checks look at more walls. 0 disables the cache.
+	 * Default is {@value #DEF_CACHE_MARGIN}.
+	 */
+	public static final String CACHE_MARGIN_S = "cacheMargin";
+
+	/** Default value for {@link #ATTENUATION_S} */
+	public static final double DEF_ATTENUATION = 0;
+	/** Default value for {@link #CELL_SIZE_S} */
+	public static final double DEF_CELL_SIZE = 10;
+	/** Default value for {@link #CACHE_MARGIN_S} */
+	public static final double DEF_CACHE_MARGIN = 5;
+
+	/** Pattern of the innermost coordinate lists of the geometries */
+	private static final Pattern COORD_LIST =
+		Pattern.compile("\\(([^()]*)\\)");
+	/** maximum number of cached host pairs; the cache is cleared when full */
+	private static final int MAX_CACHE_SIZE = 1 << 20;
+	/** key of the empty cache slots */
+	private static final long EMPTY = -1;
+
+	/** the obstacle map of the simulation (null if not enabled) */
+	private static ObstacleMap instance;
+
+	static {
+		DTNSim.registerForReset(ObstacleMap.class.getCanonicalName());
+		reset();
+	}
+
+	/* wall segments from (ax, ay) to (bx, by) */
+	private final double[] ax;
+	private final double[] ay;
+	private final double[] bx;
+	private final double[] by;
+
+	/* the grid: walls of cell (col, row) are
+	 * cellWalls[cellStart[i]] ... cellWalls[cellStart[i+1]-1],
+	 * where i = row * cols + col */
+	private final double cellSize;
+	private final double minX;
+	private final double minY;
+	private final int cols;
+	private final int rows;
+	private final int[] cellStart;
+	private final int[] cellWalls;
+	/** the query that last visited each wall */
+	private final int[] visited;
+	private int query;
+
+	private final double attenuation;
+	private final double cacheMargin;
+
+	/* cache of the wall counts by host pairs: locations of the hosts
+	 * (lower address first) at the check, the margin and the count */
+	private long[] cacheKeys;
+	private double[] cacheLocs;
+	private double[] cacheMargins;
+	private int[] cacheWalls;
+	private int cacheSize;
+
+	/** the margin of the last {@link #countWalls} call */
+	private double margin;
+
+	/**
+	 * Creates an obstacle map
+	 * @param walls The walls as lists of points; every pair of consecutive
+	 * points is one wall segment
+	 * @param attenuation Multiplier of the range for each crossed wall
+	 * @param cellSize Cell size of the wall index
+	 * @param cacheMargin Cache margin (0 = no caching)
+	 */
+	public ObstacleMap(List<List<Coord>> walls, double attenuation,
+			double cellSize, double cacheMargin) {
+		int n = 0;
+		for (List<Coord> line : walls) {
+			n += Math.max(line.size() - 1, 0);
+		}
+		this.ax = new double[n];
+		this.ay = new double[n];
+		this.bx = new double[n];
+		this.by = new double[n];
+		this.visited = new int[n];
+		double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE;
+		double x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+		int w = 0;
+		for (List<Coord> line : walls) {
+			for (int i = 1; i < line.size(); i++, w++) {
+				Coord a = line.get(i - 1);
+				Coord b = line.get(i);
+				ax[w] = a.getX();
+				ay[w] = a.getY();
+				bx[w] = b.getX();
+				by[w] = b.getY();
+				x0 = Math.min(x0, Math.min(ax[w], bx[w]));
+				y0 = Math.min(y0, Math.min(ay[w], by[w]));
+				x1 = Math.max(x1, Math.max(ax[w], bx[w]));
+				y1 = Math.max(y1, Math.max(ay[w], by[w]));
+			}
+		}
+		if (n == 0) {
+			x0 = y0 = x1 = y1 = 0;
+		}
+
+		this.attenuation = attenuation;
+		this.cellSize = cellSize;
+		this.cacheMargin = cacheMargin;
+		this.minX = x0;
+		this.minY = y0;
+		this.cols = (int)((x1 - x0) / cellSize) + 1;
+		this.rows = (int)((y1 - y0) / cellSize) + 1;
+
+		/* count the walls of each cell, then fill the cells */
+		this.cellStart = new int[cols * rows + 1];
+		for (int i = 0; i < n; i++) {
+			for (int r = row(Math.min(ay[i], by[i]));
+					r <= row(Math.max(ay[i], by[i])); r++) {
+				for (int c = col(Math.min(ax[i], bx[i]));
+						c <= col(Math.max(ax[i], bx[i])); c++) {
+					cellStart[r * cols + c + 1]++;
+				}
+			}
+		}
+		for (int i = 0; i < cols * rows; i++) {
+			cellStart[i + 1] += cellStart[i];
+		}
+		this.cellWalls = new int[cellStart[cols * rows]];
+		int[] fill = Arrays.copyOf(cellStart, cols * rows);
+		for (int i = 0; i < n; i++) {
+			for (int r = row(Math.min(ay[i], by[i]));
+					r <= row(Math.max(ay[i], by[i])); r++) {
+				for (int c = col(Math.min(ax[i], bx[i]));
+						c <= col(Math.max(ax[i], bx[i])); c++) {
+					cellWalls[fill[r * cols + c]++] = i;
+				}
+			}
+		}
+
+		clearCache(16);
+	}
+
+	/**
+	 * Resets the obstacle map (disables obstacles)
+	 */
+	public static void reset() {
+		instance = null;
+	}
+
+	/**
+	 * Reads the obstacle settings and enables the obstacles if a wall file
+	 * is given
+	 * @throws SettingsError if the settings are invalid or the wall file
+	 * can't be read
+	 */
+	public static void init() {
+		Settings s = new Settings(OBSTACLES_NS);
+		if (!s.contains(FILE_S)) {
+			instance = null;
+			return;
+		}
+		String file = s.getSetting(FILE_S);
+		double attenuation = s.getDouble(ATTENUATION_S, DEF_ATTENUATION);
+		double cellSize = s.getDouble(CELL_SIZE_S, DEF_CELL_SIZE);
+		double cacheMargin = s.getDouble(CACHE_MARGIN_S, DEF_CACHE_MARGIN);
+		if (attenuation < 0 || attenuation > 1) {
+			throw new SettingsError("Invalid value (" + attenuation +
+					") for " + s.getFullPropertyName(ATTENUATION_S));
+		}
+		if (cellSize <= 0) {
+			throw new SettingsError("Invalid value (" + cellSize +
+					") for " + s.getFullPropertyName(CELL_SIZE_S));
+		}
+		if (cacheMargin < 0) {
+			throw new SettingsError("Invalid value (" + cacheMargin +
+					") for " + s.getFullPropertyName(CACHE_MARGIN_S));
+		}
+
+		List<List<Coord>> walls;
+		try {
+			walls = readWalls(new File(file));
+		} catch (IOException e) {
+			throw new SettingsError("Couldn't read wall file '" + file +
+					"' (" + e.getMessage() + ")");
+		}
+		instance = new ObstacleMap(walls, attenuation, cellSize, cacheMargin);
+	}
+
+	/**
+	 * Returns the obstacle map of the simulation
+	 * @return The map or null if there are no obstacles
+	 */
+	public static ObstacleMap getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Returns true if the obstacles are enabled
+	 * @return true if the obstacles are enabled
+	 */
+	public static boolean isEnabled() {
+		return instance != null;
+	}
+
+	/**
+	 * Reads the walls from a file. All innermost coordinate lists of the
+	 * geometries in the file ("(x1 y1, x2 y2, ...)") with at least two
+	 * points are walls.
+	 * @param file The file
+	 * @return The walls as lists of points
+	 * @throws IOException if the file can't be read
+	 */
+	public static List<List<Coord>> readWalls(File file) throws IOException {
+		String text = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+		List<List<Coord>> walls = new ArrayList<List<Coord>>();
+		Matcher m = COORD_LIST.matcher(text);
+		while (m.find()) {
+			List<Coord> line = new ArrayList<Coord>();
+			for (String point : m.group(1).split(",")) {
+				String[] xy = point.trim().split("\\s+");
+				if (xy.length < 2) {
+					throw new IOException("Invalid point '" + point + "'");
+				}
+				try {
+					line.add(new Coord(Double.parseDouble(xy[0]),
+							Double.parseDouble(xy[1])));
+				} catch (NumberFormatException e) {
+					throw new IOException("Invalid point '" + point + "'");
+				}
+			}
+			if (line.size() > 1) {
+				walls.add(line);
+			}
+		}
+		return walls;
+	}
+
+	/**
+	 * Returns the number of wall segments in the map
+	 * @return The number of wall segments
+	 */
+	public int getNrofWalls() {
+		return this.ax.length;
+	}
+
+	/**
+	 * Returns the multiplier of the transmit range between two hosts (the
+	 * attenuation to the power of the number of walls between them)
+	 * @param host1 The first host
+	 * @param host2 The second host
+	 * @return The range multiplier
+	 */
+	public double getRangeFactor(DTNHost host1, DTNHost host2) {
+		int walls = countWalls(host1.getAddress(), host1.getLocation(),
+				host2.getAddress(), host2.getLocation());
+		if (walls == 0) {
+			return 1;
+		}
+		return Math.pow(this.attenuation, walls);
+	}
+
+	/**
+	 * Returns the number of walls between two hosts, using the cached count
+	 * if the hosts haven't moved too far since it was checked
+	 * @param address1 Address of the first host
+	 * @param loc1 Location of the first host
+	 * @param address2 Address of the second host
+	 * @param loc2 Location of the second host
+	 * @return The number of walls the line of sight crosses
+	 */
+	public int countWalls(int address1, Coord loc1, int address2,
+			Coord loc2) {
+		if (this.cacheMargin <= 0) {
+			return countWalls(loc1, loc2);
+		}
+		if (address1 > address2) {
+			int a = address1;
+			address1 = address2;
+			address2 = a;
+			Coord c = loc1;
+			loc1 = loc2;
+			loc2 = c;
+		}
+		double x1 = loc1.getX(), y1 = loc1.getY();
+		double x2 = loc2.getX(), y2 = loc2.getY();
+		long key = ((long)address1 << 32) | address2;
+
+		int mask = this.cacheKeys.length - 1;
+		int i = slot(key, mask);
+		while (this.cacheKeys[i] != EMPTY && this.cacheKeys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		if (this.cacheKeys[i] == key) {
+			double m = this.cacheMargins[i];
+			double dx1 = x1 - cacheLocs[4*i], dy1 = y1 - cacheLocs[4*i + 1];
+			double dx2 = x2 - cacheLocs[4*i+2], dy2 = y2 - cacheLocs[4*i+3];
+			if (dx1*dx1 + dy1*dy1 < m*m && dx2*dx2 + dy2*dy2 < m*m) {
+				return this.cacheWalls[i]; /* nothing near enough changed */
+			}
+		} else {
+			if (2 * (this.cacheSize + 1) > this.cacheKeys.length) {
+				if (this.cacheKeys.length >= MAX_CACHE_SIZE) {
+					clearCache(this.cacheKeys.length);
+				} else {
+					resizeCache(2 * this.cacheKeys.length);
+				}
+				return countWalls(address1, loc1, address2, loc2);
+			}
+			this.cacheKeys[i] = key;
+			this.cacheSize++;
+		}
+
+		int walls = countWalls(x1, y1, x2, y2, this.cacheMargin);
+		this.cacheLocs[4*i] = x1;
+		this.cacheLocs[4*i + 1] = y1;
+		this.cacheLocs[4*i + 2] = x2;
+		this.cacheLocs[4*i + 3] = y2;
+		this.cacheMargins[i] = this.margin;
+		this.cacheWalls[i] = walls;
+		return walls;
+	}
+
+	/**
+	 * Returns the number of walls between two locations (without caching)
+	 * @param loc1 The first location
+	 * @param loc2 The second location
+	 * @return The number of walls the line between the locations crosses
+	 */
+	public int countWalls(Coord loc1, Coord loc2) {
+		return countWalls(loc1.getX(), loc1.getY(), loc2.getX(),
+				loc2.getY(), 0);
+	}
+
+	/**
+	 * Counts the walls that the segment from (x1, y1) to (x2, y2) crosses
+	 * and sets {@link #margin} to the smallest distance (up to the given
+	 * search distance) between the segment and the endpoints of the walls
+	 * near it, or between the segment's endpoints and those walls.
+	 * @param search How far from the segment the margin is looked for
+	 * @return The number of crossed walls
+	 */
+	private int countWalls(double x1, double y1, double x2, double y2,
+			double search) {
+		int c0 = col(Math.min(x1, x2) - search);
+		int c1 = col(Math.max(x1, x2) + search);
+		int r0 = row(Math.min(y1, y2) - search);
+		int r1 = row(Math.max(y1, y2) + search);
+		if (++this.query == 0) {
+			Arrays.fill(this.visited, 0);
+			this.query = 1;
+		}
+
+		int walls = 0;
+		double m2 = search * search;
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				int cell = r * cols + c;
+				for (int k = cellStart[cell]; k < cellStart[cell+1]; k++) {
+					int w = cellWalls[k];
+					if (this.visited[w] == this.query) {
+						continue; /* already checked from another cell */
+					}
+					this.visited[w] = this.query;
+					if (intersects(x1, y1, x2, y2, ax[w], ay[w], bx[w], by[w])) {
+						walls++;
+					}
+					if (search > 0) {
+						m2 = Math.min(m2, Math.min(
+							Math.min(dist2(ax[w], ay[w], x1, y1, x2, y2),
+									dist2(bx[w], by[w], x1, y1, x2, y2)),
+							Math.min(dist2(x1, y1, ax[w], ay[w], bx[w], by[w]),
+									dist2(x2, y2, ax[w], ay[w], bx[w], by[w]))));
+					}
+				}
+			}
+		}
+		this.margin = Math.sqrt(m2);
+		return walls;
+	}
+
+	/**
+	 * Returns true if the segments (x1, y1)-(x2, y2) and (x3, y3)-(x4, y4)
+	 * intersect (touching counts as intersecting)
+	 */
+	private static boolean intersects(double x1, double y1, double x2,
+			double y2, double x3, double y3, double x4, double y4) {
+		double d1 = orient(x3, y3, x4, y4, x1, y1);
+		double d2 = orient(x3, y3, x4, y4, x2, y2);
+		double d3 = orient(x1, y1, x2, y2, x3, y3);
+		double d4 = orient(x1, y1, x2, y2, x4, y4);
+		if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) &&
+				((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+			return true;
+		}
+		return (d1 == 0 && onSegment(x3, y3, x4, y4, x1, y1)) ||
+			(d2 == 0 && onSegment(x3, y3, x4, y4, x2, y2)) ||
+			(d3 == 0 && onSegment(x1, y1, x2, y2, x3, y3)) ||
+			(d4 == 0 && onSegment(x1, y1, x2, y2, x4, y4));
+	}
+
+	/**
+	 * Returns the cross product of (b - a) and (c - a): positive if c is
+	 * to the left of the line from a to b, negative if to the right
+	 */
+	private static double orient(double ax, double ay, double bx, double by,
+			double cx, double cy) {
+		return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+	}
+
+	/**
+	 * Returns true if point c (that is on the line through a and b) is on
+	 * the segment from a to b
+	 */
+	private static boolean onSegment(double ax, double ay, double bx,
+			double by, double cx, double cy) {
+		return Math.min(ax, bx) <= cx && cx <= Math.max(ax, bx) &&
+			Math.min(ay, by) <= cy && cy <= Math.max(ay, by);
+	}
+
+	/**
+	 * Returns the squared distance from point p to the segment from a to b
+	 */
+	private static double dist2(double px, double py, double ax, double ay,
+			double bx, double by) {
+		double dx = bx - ax, dy = by - ay;
+		double len2 = dx * dx + dy * dy;
+		double t = 0;
+		if (len2 > 0) {
+			t = ((px - ax) * dx + (py - ay) * dy) / len2;
+			t = Math.max(0, Math.min(1, t));
+		}
+		double ex = ax + t * dx - px, ey = ay + t * dy - py;
+		return ex * ex + ey * ey;
+	}
+
+	/**
+	 * Returns the grid column of an x coordinate (clamped to the grid)
+	 */
+	private int col(double x) {
+		int c = (int)Math.floor((x - this.minX) / this.cellSize);
+		return Math.max(0, Math.min(this.cols - 1, c));
+	}
+
+	/**
+	 * Returns the grid row of an y coordinate (clamped to the grid)
+	 */
+	private int row(double y) {
+		int r = (int)Math.floor((y - this.minY) / this.cellSize);
+		return Math.max(0, Math.min(this.rows - 1, r));
+	}
+
+	/**
+	 * Empties the cache
+	 * @param capacity Capacity of the emptied cache (a power of two)
+	 */
+	private void clearCache(int capacity) {
+		this.cacheKeys = new long[capacity];
+		Arrays.fill(this.cacheKeys, EMPTY);
+		this.cacheLocs = new double[4 * capacity];
+		this.cacheMargins = new double[capacity];
+		this.cacheWalls = new int[capacity];
+		this.cacheSize = 0;
+	}
+
+	/**
+	 * Moves the cached counts to a cache with a new capacity
+	 * @param capacity The new capacity (a power of two)
+	 */
+	private void resizeCache(int capacity) {
+		long[] keys = this.cacheKeys;
+		double[] locs = this.cacheLocs;
+		double[] margins = this.cacheMargins;
+		int[] walls = this.cacheWalls;
+		clearCache(capacity);
+		int mask = capacity - 1;
+		for (int j = 0; j < keys.length; j++) {
+			if (keys[j] == EMPTY) {
+				continue;
+			}
+			int i = slot(keys[j], mask);
+			while (this.cacheKeys[i] != EMPTY) {
+				i = (i + 1) & mask;
+			}
+			this.cacheKeys[i] = keys[j];
+			System.arraycopy(locs, 4 * j, this.cacheLocs, 4 * i, 4);
+			this.cacheMargins[i] = margins[j];
+			this.cacheWalls[i] = walls[j];
+			this.cacheSize++;
+		}
+	}
+
+	/**
+	 * Returns the home slot of a key
+	 * @param key The key
+	 * @param mask Capacity of the table minus one
+	 * @return The slot
+	 */
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h >>> 32) & mask;
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <P>
+ * Structure-of-arrays store of the hosts' locations: the x and y
+ * coordinates of every host are mirrored, by the host's address, in two
+ * primitive arrays that are updated whenever a host moves. Range checks
+ * that go through many hosts can then read the coordinates from
+ * consecutive memory instead of following the host and location objects.
+ * The store is used only if it is enabled with
+ * {@link World#POSITION_STORE_S}.</P>
+ * <P>
+ * The batch range check ({@link #findInRange(double, double, double,
+ * double[], double[], double[], int, int, int[])}) is a simple loop
+ * without branches in its body so that the JIT compiler can vectorize it.
+ * The distances are computed exactly like {@link Coord#distance(Coord)}
+ * does, so the results are the same as without the store.</P>
+ */
+public class PositionStore {
+	private static boolean enabled;
+	/** x coordinates of the hosts by their address */
+	private static double[] xs;
+	/** y coordinates of the hosts by their address */
+	private static double[] ys;
+
+	static {
+		DTNSim.registerForReset(PositionStore.class.getCanonicalName());
+		reset();
+	}
+
+	private PositionStore() {}
+
+	public static void reset() {
+		enabled = false;
+		xs = new double[0];
+		ys = new double[0];
+	}
+
+	/**
+	 * Enables the store and copies the current locations of the hosts to it
+	 * @param hosts All hosts of the simulation
+	 */
+	public static void enable(List<DTNHost> hosts) {
+		enabled = true;
+		for (DTNHost host : hosts) {
+			update(host);
+		}
+	}
+
+	/**
+	 * Returns true if the store is enabled (and kept up to date)
+	 * @return true if the store is enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Copies the host's current location to the store (if it is enabled).
+	 * Hosts with different addresses can be updated concurrently, as long
+	 * as the store doesn't need to grow.
+	 * @param host The host whose location changed
+	 */
+	public static void update(DTNHost host) {
+		if (!enabled) {
+			return;
+		}
+		int address = host.getAddress();
+		if (address >= xs.length) {
+			grow(address + 1);
+		}
+		Coord c = host.getLocation();
+		xs[address] = c.getX();
+		ys[address] = c.getY();
+	}
+
+	/**
+	 * Grows the arrays to hold at least the given number of hosts
+	 * @param size The number of hosts
+	 */
+	private static synchronized void grow(int size) {
+		if (size > xs.length) {
+			int newSize = Math.max(size, xs.length * 2);
+			xs = Arrays.copyOf(xs, newSize);
+			ys = Arrays.copyOf(ys, newSize);
+		}
+	}
+
+	/**
+	 * Returns the x coordinate of a host
+	 * @param address Address of the host
+	 * @return The x coordinate
+	 */
+	public static double getX(int address) {
+		return xs[address];
+	}
+
+	/**
+	 * Returns the y coordinate of a host
+	 * @param address Address of the host
+	 * @return The y coordinate
+	 */
+	public static double getY(int address) {
+		return ys[address];
+	}
+
+	/**
+	 * Returns the distance between two hosts
+	 * @param address1 Address of the first host
+	 * @param address2 Address of the second host
+	 * @return The distance
+	 */
+	public static double distance(int address1, int address2) {
+		double dx = xs[address1] - xs[address2];
+		double dy = ys[address1] - ys[address2];
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+
+	/**
+	 * Finds the locations (given as coordinate arrays) that are within range
+	 * of a location. The range of a location is the smaller of the given
+	 * range and the location's own range (if the ranges are given).
+	 * @param x The x coordinate of the location
+	 * @param y The y coordinate of the location
+	 * @param range The range of the location
+	 * @param locX The x coordinates of the checked locations
+	 * @param locY The y coordinates of the checked locations
+	 * @param locRange The ranges of the checked locations, or null if only
+	 * the range of the location is used
+	 * @param from Index of the first checked location
+	 * @param to Index after the last checked location
+	 * @param found Array where the indexes of the locations that are in
+	 * range are put to (must have room for at least to - from indexes)
+	 * @return Number of the locations in range
+	 */
+	public static int findInRange(double x, double y, double range,
+			double[] locX, double[] locY, double[] locRange, int from, int to,
+			int[] found) {
+		int n = 0;
+		if (locRange == null) {
+			for (int i = from; i < to; i++) {
+				double dx = x - locX[i];
+				double dy = y - locY[i];
+				found[n] = i;
+				n += Math.sqrt(dx*dx + dy*dy) <= range ? 1 : 0;
+			}
+		} else {
+			for (int i = from; i < to; i++) {
+				double dx = x - locX[i];
+				double dy = y - locY[i];
+				double r = Math.min(range, locRange[i]);
+				found[n] = i;
+				n += Math.sqrt(dx*dx + dy*dy) <= r ? 1 : 0;
+			}
+		}
+		return n;
+	}
+}
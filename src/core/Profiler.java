@@ -0,0 +1,392 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the time and memory allocation of the phases of the simulation
+ * loop ({@link World#update()}): external events, contact detection,
+ * movement, network interface updates, router updates (also per router
+ * class) and update listeners. Profiling is off by default and then the
+ * measurement calls only check a flag. The measurements are done only in
+ * the simulation thread, so e.g. the work done by other threads in the
+ * parallel phases is not included in the allocations.
+ * <P>
+ * If JFR events are enabled, every measured phase is also recorded as a
+ * JDK Flight Recorder event (<code>one.SimulationPhase</code>), which can
+ * be seen in a recording started with, e.g.,
+ * <code>-XX:StartFlightRecording</code>.</P>
+ * @see report.PhaseTimeReport
+ */
+public class Profiler {
+	/** Profiler settings namespace ({@value}) */
+	public static final String PROFILER_NS = "Profiler";
+	/** Profiling enabled -setting id ({@value}). Boolean. Default is false
+	 * (profiling is enabled also by {@link report.PhaseTimeReport}). */
+	public static final String ENABLED_S = "enabled";
+	/** JFR events -setting id ({@value}). Boolean. If true (and profiling is
+	 * enabled), the phases are also recorded as JFR events. Default is
+	 * false. */
+	public static final String JFR_EVENTS_S = "jfrEvents";
+
+	/** phase of processing external events */
+	public static final int EVENTS = 0;
+	/** phase of contact detection (contact kernel or parallel sensing) */
+	public static final int CONTACTS = 1;
+	/** phase of moving the hosts */
+	public static final int MOVEMENT = 2;
+	/** phase of updating the network interfaces */
+	public static final int INTERFACES = 3;
+	/** phase of updating the routers */
+	public static final int ROUTING = 4;
+	/** phase of informing the update listeners */
+	public static final int LISTENERS = 5;
+	/** names of the phases */
+	public static final String[] PHASE_NAMES = {"events", "contacts",
+		"movement", "interfaces", "routing", "listeners"};
+	/** name of the time of the updates that is not in any phase */
+	public static final String OTHER_NAME = "other";
+
+	/** thread bean for measuring the allocations (or null if the JVM
+	 * can't measure them) */
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+		getThreadBean();
+
+	private static boolean enabled;
+	private static boolean jfrEvents;
+
+	private static long[] phaseNanos;
+	private static long[] phaseBytes;
+	private static long[] phaseCalls;
+	private static long[] startNanos;
+	private static long[] startBytes;
+	private static PhaseEvent[] events;
+	private static Map<Class<?>, long[]> routerNanos;
+
+	private static long nrofUpdates;
+	private static long totalNanos;
+	private static long totalBytes;
+	private static long updateStartNanos;
+	private static long updateStartBytes;
+
+	static {
+		DTNSim.registerForReset(Profiler.class.getCanonicalName());
+		reset();
+	}
+
+	private Profiler() {}
+
+	/**
+	 * Reads the profiler settings
+	 * @param s The settings (the namespace is set here)
+	 */
+	public static void init(Settings s) {
+		s.setNameSpace(PROFILER_NS);
+		if (s.getBoolean(ENABLED_S, false)) {
+			setEnabled(true);
+		}
+		jfrEvents = s.getBoolean(JFR_EVENTS_S, false);
+		s.restoreNameSpace();
+	}
+
+	/**
+	 * Enables or disables profiling
+	 * @param enable If true, profiling is enabled
+	 */
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+		if (enable && THREAD_BEAN != null) {
+			THREAD_BEAN.setThreadAllocatedMemoryEnabled(true);
+		}
+	}
+
+	/**
+	 * Returns true if profiling is enabled
+	 * @return true if profiling is enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns true if the allocations are measured (i.e., the JVM supports
+	 * measuring them)
+	 * @return true if the allocations are measured
+	 */
+	public static boolean isAllocationMeasured() {
+		return THREAD_BEAN != null;
+	}
+
+	/**
+	 * Marks the start of a world update
+	 */
+	public static void startUpdate() {
+		if (!enabled) {
+			return;
+		}
+		updateStartBytes = allocatedBytes();
+		updateStartNanos = System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a world update
+	 */
+	public static void endUpdate() {
+		if (!enabled) {
+			return;
+		}
+		totalNanos += System.nanoTime() - updateStartNanos;
+		totalBytes += allocatedBytes() - updateStartBytes;
+		nrofUpdates++;
+	}
+
+	/**
+	 * Marks the start of a phase. Phases must not be nested.
+	 * @param phase The phase (e.g., {@link #MOVEMENT})
+	 */
+	public static void start(int phase) {
+		if (!enabled) {
+			return;
+		}
+		if (jfrEvents) {
+			events[phase] = new PhaseEvent();
+			events[phase].begin();
+		}
+		startBytes[phase] = allocatedBytes();
+		startNanos[phase] = System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a phase
+	 * @param phase The phase
+	 */
+	public static void end(int phase) {
+		if (!enabled) {
+			return;
+		}
+		finish(phase);
+	}
+
+	/**
+	 * Marks the end of a router update phase and adds its time also to the
+	 * router's class
+	 * @param router The router that was updated
+	 */
+	public static void endRouting(Object router) {
+		if (!enabled) {
+			return;
+		}
+		long nanos = finish(ROUTING);
+		Class<?> c = router.getClass();
+		long[] classNanos = routerNanos.get(c);
+		if (classNanos == null) {
+			classNanos = new long[1];
+			routerNanos.put(c, classNanos);
+		}
+		classNanos[0] += nanos;
+	}
+
+	/**
+	 * Adds the time and allocations of a finished phase to the counters
+	 * @param phase The phase
+	 * @return The time of the phase in nanoseconds
+	 */
+	private static long finish(int phase) {
+		long nanos = System.nanoTime() - startNanos[phase];
+		long bytes = allocatedBytes() - startBytes[phase];
+		phaseNanos[phase] += nanos;
+		phaseBytes[phase] += bytes;
+		phaseCalls[phase]++;
+
+		if (jfrEvents) {
+			PhaseEvent e = events[phase];
+			e.end();
+			if (e.shouldCommit()) {
+				e.phase = PHASE_NAMES[phase];
+				e.allocated = bytes;
+				e.commit();
+			}
+			events[phase] = null;
+		}
+		return nanos;
+	}
+
+	private static long allocatedBytes() {
+		if (THREAD_BEAN == null) {
+			return 0;
+		}
+		return THREAD_BEAN.getThreadAllocatedBytes(
+				Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		java.lang.management.ThreadMXBean tb =
+			ManagementFactory.getThreadMXBean();
+		if (tb instanceof com.sun.management.ThreadMXBean &&
+				((com.sun.management.ThreadMXBean)tb).
+				isThreadAllocatedMemorySupported()) {
+			return (com.sun.management.ThreadMXBean)tb;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the total time spent in a phase
+	 * @param phase The phase
+	 * @return The time in nanoseconds
+	 */
+	public static long getNanos(int phase) {
+		return phaseNanos[phase];
+	}
+
+	/**
+	 * Returns the total number of bytes allocated in a phase
+	 * @param phase The phase
+	 * @return The allocated bytes
+	 */
+	public static long getAllocatedBytes(int phase) {
+		return phaseBytes[phase];
+	}
+
+	/**
+	 * Returns how many times a phase has been run
+	 * @param phase The phase
+	 * @return The number of times
+	 */
+	public static long getCalls(int phase) {
+		return phaseCalls[phase];
+	}
+
+	/**
+	 * Returns the total time of the world updates
+	 * @return The time in nanoseconds
+	 */
+	public static long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Returns the total number of bytes allocated in the world updates
+	 * @return The allocated bytes
+	 */
+	public static long getTotalAllocatedBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Returns the time of the world updates that was not in any phase
+	 * @return The time in nanoseconds
+	 */
+	public static long getOtherNanos() {
+		long other = totalNanos;
+		for (long nanos : phaseNanos) {
+			other -= nanos;
+		}
+		return other;
+	}
+
+	/**
+	 * Returns the number of world updates
+	 * @return The number of updates
+	 */
+	public static long getNrofUpdates() {
+		return nrofUpdates;
+	}
+
+	/**
+	 * Returns the names of the router classes whose update times have been
+	 * measured, sorted by name
+	 * @return The router class names
+	 */
+	public static List<String> getRouterNames() {
+		List<String> names = new ArrayList<String>();
+		for (Class<?> c : routerNanos.keySet()) {
+			names.add(c.getSimpleName());
+		}
+		Collections.sort(names);
+		return names;
+	}
+
+	/**
+	 * Returns the total time of router updates of a router class
+	 * @param name The (simple) name of the router class
+	 * @return The time in nanoseconds
+	 */
+	public static long getRouterNanos(String name) {
+		long nanos = 0;
+		for (Map.Entry<Class<?>, long[]> e : routerNanos.entrySet()) {
+			if (e.getKey().getSimpleName().equals(name)) {
+				nanos += e.getValue()[0];
+			}
+		}
+		return nanos;
+	}
+
+	/**
+	 * Returns a one line summary of the share of each phase of the total
+	 * update time, the router classes' times and the allocation rate
+	 * @return The summary
+	 */
+	public static String getSummary() {
+		StringBuilder sb = new StringBuilder();
+		double total = Math.max(totalNanos, 1);
+		for (int i=0; i < PHASE_NAMES.length; i++) {
+			sb.append(String.format("%s %.1f%% ", PHASE_NAMES[i],
+					100 * phaseNanos[i] / total));
+		}
+		sb.append(String.format("%s %.1f%%", OTHER_NAME,
+				100 * getOtherNanos() / total));
+
+		for (String name : getRouterNames()) {
+			sb.append(String.format(" | %s %.1f%%", name,
+					100 * getRouterNanos(name) / total));
+		}
+
+		if (isAllocationMeasured()) {
+			sb.append(String.format(" | alloc %.1f MB/s",
+					totalBytes / 1e6 / Math.max(totalNanos / 1e9, 1e-9)));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Resets all the counters and disables profiling
+	 */
+	public static void reset() {
+		enabled = false;
+		jfrEvents = false;
+		int n = PHASE_NAMES.length;
+		phaseNanos = new long[n];
+		phaseBytes = new long[n];
+		phaseCalls = new long[n];
+		startNanos = new long[n];
+		startBytes = new long[n];
+		events = new PhaseEvent[n];
+		routerNanos = new HashMap<Class<?>, long[]>();
+		nrofUpdates = 0;
+		totalNanos = 0;
+		totalBytes = 0;
+	}
+
+	/**
+	 * JFR event of a simulation loop phase
+	 */
+	@jdk.jfr.Name("one.SimulationPhase")
+	@jdk.jfr.Label("Simulation Phase")
+	@jdk.jfr.Category("ONE")
+	static class PhaseEvent extends jdk.jfr.Event {
+		@jdk.jfr.Label("Phase")
+		String phase;
+		@jdk.jfr.Label("Allocated")
+		@jdk.jfr.DataAmount
+		long allocated;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task that processes a range of indexes by splitting it into
+ * chunks of at most the given size. Used by the {@link World} for the
+ * parallel phases of an update. Subclasses must make sure that processing
+ * one index does not modify state read by processing of any other index.
+ */
+public abstract class RangeAction extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	private final int from;
+	private final int to;
+	private final int chunkSize;
+
+	/**
+	 * Constructor.
+	 * @param from First index to process (inclusive)
+	 * @param to Last index to process (exclusive)
+	 * @param chunkSize Maximum number of indexes processed by one task
+	 */
+	public RangeAction(int from, int to, int chunkSize) {
+		this.from = from;
+		this.to = to;
+		this.chunkSize = (chunkSize < 1 ? 1 : chunkSize);
+	}
+
+	/**
+	 * Creates a task for a sub range of this task's range
+	 * @param from First index of the sub range (inclusive)
+	 * @param to Last index of the sub range (exclusive)
+	 * @return The new task
+	 */
+	protected abstract RangeAction subRange(int from, int to);
+
+	/**
+	 * Processes one index of the range
+	 * @param index The index to process
+	 */
+	protected abstract void process(int index);
+
+	/**
+	 * Returns the chunk size of this task
+	 * @return the chunk size of this task
+	 */
+	protected int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= chunkSize) {
+			for (int i = from; i < to; i++) {
+				process(i);
+			}
+			return;
+		}
+
+		int middle = (from + to) >>> 1;
+		invokeAll(subRange(from, middle), subRange(middle, to));
+	}
+}
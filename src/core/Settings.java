@@ -12,7 +12,9 @@ import java.util.HashSet;
 import java.util.Properties;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.Stack;
+import java.util.TreeMap;
 
 import util.Range;
 
@@ -99,6 +101,32 @@ public class Settings {
 		writtenSettings.clear();
 	}
 
+	/**
+	 * Returns the current run index
+	 * @return The run index (or a negative value if run indexing is
+	 * disabled)
+	 * @see #setRunIndex(int)
+	 */
+	public static int getRunIndex() {
+		return runIndex;
+	}
+
+	/**
+	 * Returns the names and values of all settings. Run specific values are
+	 * given for the current run index.
+	 * @return The settings, sorted by their names
+	 */
+	public static SortedMap<String, String> getAllSettings() {
+		if (props == null) {
+			init(null);
+		}
+		SortedMap<String, String> all = new TreeMap<String, String>();
+		for (String name : props.stringPropertyNames()) {
+			all.put(name, parseRunSetting(props.getProperty(name).trim()));
+		}
+		return all;
+	}
+
 	/**
 	 * Checks that the given integer array contains a valid range. I.e.,
 	 * the length of the array must be two and
@@ -4,10 +4,13 @@
  */
 package core;
 
+import java.io.Serializable;
+
 /**
  * Wall clock for checking the simulation time.
  */
-public class SimClock {
+public class SimClock implements Serializable {
+	private static final long serialVersionUID = 1L;
 	private static double clockTime = 0.0;
 	private static SimClock clock = null;
 
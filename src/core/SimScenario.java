@@ -283,6 +283,14 @@ public class SimScenario implements Serializable {
 		}
 	}
 
+	/**
+	 * Returns the list of registered movement listeners
+	 * @return the list of registered movement listeners
+	 */
+	public List<MovementListener> getMovementListeners() {
+		return this.movementListeners;
+	}
+
 	/**
 	 * Adds a new update listener for the world
 	 * @param ul The listener
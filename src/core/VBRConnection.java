@@ -8,13 +8,22 @@ import routing.MessageRouter;
 
 /**
  * A connection between two DTN nodes.  The transmission speed
- * is updated every round from the end point transmission speeds
+ * is the smaller one of the end point transmission speeds. The speed is
+ * recomputed only when it can have changed: when an interface tells that
+ * its speed changed (see {@link #speedChanged()}) or at the first update
+ * after the time given by {@link NetworkInterface#getSpeedChangeTime()}.
+ * Between the changes the sent data is computed from the speed and the
+ * elapsed time, so a long transfer doesn't need updating at every round.
  */
 public class VBRConnection extends Connection {
+	private static final long serialVersionUID = 1L;
 	private int msgsize;
-	private int msgsent;
+	/** bytes of the message sent by the time {@link #lastUpdate} */
+	private double msgsent;
 	private int currentspeed = 0;
 	private double lastUpdate = 0;
+	/** time when the speed has to be recomputed */
+	private double speedChangeTime = 0;
 
 
 	/**
@@ -55,29 +64,66 @@ public class VBRConnection extends Connection {
 		if (retVal == MessageRouter.RCV_OK) {
 			this.msgOnFly = newMessage;
 			this.msgsize = m.getSize();
+			/* the data is counted from now on, at the current speed */
+			speedChanged();
 			this.msgsent = 0;
+			transferStarted();
 		}
 
 		return retVal;
 	}
 
 	/**
-	 * Calculate the current transmission speed from the information
-	 * given by the interfaces, and calculate the missing data amount.
-	 *
+	 * Recomputes the transmission speed if it can have changed since it was
+	 * last computed (see {@link NetworkInterface#getSpeedChangeTime()})
 	 */
 	public void update() {
+		if (SimClock.getTime() >= this.speedChangeTime) {
+			speedChanged();
+		}
+	}
+
+	/**
+	 * Counts the data sent at the old speed up to the current time and
+	 * calculates the current transmission speed from the information given
+	 * by the interfaces. Interfaces call this when their transmit speed
+	 * changes.
+	 */
+	public void speedChanged() {
+		double now = SimClock.getTime();
+		this.msgsent += this.currentspeed * (now - this.lastUpdate);
+		this.lastUpdate = now;
+
 		currentspeed =  this.fromInterface.getTransmitSpeed(toInterface);
 		int othspeed =  this.toInterface.getTransmitSpeed(fromInterface);
-		double now = core.SimClock.getTime();
-
 		if (othspeed < currentspeed) {
 			currentspeed = othspeed;
 		}
+		this.speedChangeTime = Math.min(fromInterface.getSpeedChangeTime(),
+				toInterface.getSpeedChangeTime());
+	}
 
+	/**
+	 * Returns the amount of bytes of the message sent by now
+	 * @return the amount of bytes sent
+	 */
+	private double getBytesSent() {
+		return this.msgsent +
+			this.currentspeed * (SimClock.getTime() - this.lastUpdate);
+	}
 
-		msgsent += currentspeed * (now - this.lastUpdate);
-		this.lastUpdate = now;
+	/**
+	 * Returns the time when the current transfer is done if the speed
+	 * doesn't change before that
+	 * @return The time when the transfer is done or Double.MAX_VALUE if
+	 * the speed is zero
+	 */
+	public double getTransferDoneTime() {
+		if (this.currentspeed <= 0) {
+			return Double.MAX_VALUE;
+		}
+		return this.lastUpdate +
+			(this.msgsize - this.msgsent) / this.currentspeed;
 	}
 
 	/**
@@ -94,8 +140,8 @@ public class VBRConnection extends Connection {
      * @return the amount of bytes to be transferred
      */
     public int getRemainingByteCount() {
-	int bytesLeft = msgsize - msgsent;
-	return (bytesLeft > 0 ? bytesLeft : 0);
+	double bytesLeft = msgsize - getBytesSent();
+	return (bytesLeft > 0 ? (int)Math.ceil(bytesLeft) : 0);
     }
 
 	/**
@@ -103,7 +149,7 @@ public class VBRConnection extends Connection {
 	 * @return True if the transfer is done, false if not
 	 */
 	public boolean isMessageTransferred() {
-		if (msgsent >= msgsize) {
+		if (getBytesSent() >= msgsize) {
 			return true;
 		} else {
 			return false;
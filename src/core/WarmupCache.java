@@ -0,0 +1,320 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import movement.MovementModel;
+import routing.MessageRouter;
+
+/**
+ * On-disk cache of the nodes' movement state after the movement model
+ * warmup. The cache file is named by a hash of all the settings that can
+ * affect the movement (movement model and group settings, the settings of
+ * the movement package classes, the random seed etc.), so runs that differ
+ * only in, e.g., routing or report settings use the same file.
+ * <P>
+ * The locations, paths and movement models of the nodes are stored
+ * together with the static fields of the movement package classes (e.g.,
+ * the shared random number generator). References to the nodes and their
+ * communication buses are stored as node addresses, so the state can be
+ * given to the nodes of a new run. Changes to the contents of map or other
+ * data files are not noticed; the cache files must be removed after
+ * such changes.</P>
+ */
+public class WarmupCache {
+	/** Package whose classes' static fields are stored */
+	private static final String MOVEMENT_PACKAGE = "movement";
+	/** Scenario settings that affect the movement */
+	private static final String[] SCENARIO_SETTINGS = {
+		SimScenario.NROF_GROUPS_S, SimScenario.UP_INT_S};
+	/** Group settings that don't affect the movement (suffix numbers are
+	 * ignored) */
+	private static final String[] NON_MOVEMENT_GROUP_SETTINGS = {
+		SimScenario.ROUTER_S, SimScenario.NROF_INTERF_S,
+		SimScenario.INTERFACENAME_S, SimScenario.APPCOUNT_S,
+		SimScenario.GAPPNAME_S, MessageRouter.B_SIZE_S,
+		MessageRouter.MSG_TTL_S, MessageRouter.SEND_QUEUE_MODE_S};
+	/** Prefix of the cache file names */
+	private static final String FILE_PREFIX = "warmup-";
+	/** Suffix of the cache file names */
+	private static final String FILE_SUFFIX = ".gz";
+
+	private File file;
+
+	/**
+	 * Constructor. Selects the cache file for the current settings.
+	 * @param directory The directory where the cache files are
+	 */
+	public WarmupCache(String directory) {
+		File dir = new File(directory);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new SimError("Couldn't create warmup cache directory '" +
+					directory + "'");
+		}
+		this.file = new File(dir, FILE_PREFIX + getKey() + FILE_SUFFIX);
+	}
+
+	/**
+	 * Returns the cache file of the current settings
+	 * @return The cache file
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Returns the cache key: a hash of all the settings that can affect the
+	 * movement of the nodes
+	 * @return The key as a hexadecimal string
+	 */
+	public static String getKey() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, String> e :
+				Settings.getAllSettings().entrySet()) {
+			if (affectsMovement(e.getKey())) {
+				sb.append(e.getKey()).append('=').append(e.getValue());
+				sb.append('\n');
+			}
+		}
+
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(
+					sb.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder key = new StringBuilder();
+			for (int i=0; i < 16; i++) {
+				key.append(String.format("%02x", hash[i]));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new SimError(e);
+		}
+	}
+
+	/**
+	 * Returns true if the setting with the given (full) name can affect the
+	 * movement of the nodes
+	 * @param name The name of the setting
+	 * @return true if the setting affects the movement
+	 */
+	private static boolean affectsMovement(String name) {
+		int dot = name.indexOf('.');
+		if (dot < 0) {
+			return false;
+		}
+		String ns = name.substring(0, dot);
+		String setting = name.substring(dot + 1);
+
+		if (ns.equals(MovementModel.MOVEMENT_MODEL_NS)) {
+			return true;
+		}
+		if (ns.equals(SimScenario.SCENARIO_NS)) {
+			for (String s : SCENARIO_SETTINGS) {
+				if (s.equals(setting)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (ns.replaceAll("\\d+$", "").equals(SimScenario.GROUP_NS)) {
+			String base = setting.replaceAll("\\d+$", "");
+			for (String s : NON_MOVEMENT_GROUP_SETTINGS) {
+				if (s.equals(base)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return isMovementClass(MOVEMENT_PACKAGE + "." + ns) ||
+			isMovementClass(MOVEMENT_PACKAGE + ".map." + ns);
+	}
+
+	private static boolean isMovementClass(String className) {
+		try {
+			Class.forName(className, false,
+					WarmupCache.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Sets the movement state of the nodes from the cache file, if the file
+	 * exists
+	 * @param hosts The nodes, indexed by their address
+	 * @return true if the state was restored, false if there was no cache
+	 * file
+	 * @throws SimError If the cache file can't be read
+	 */
+	public boolean restore(List<DTNHost> hosts) {
+		if (!this.file.exists()) {
+			return false;
+		}
+
+		restoreState(hosts);
+		return true;
+	}
+
+	/**
+	 * Saves the movement state of the nodes to the cache file
+	 * @param hosts The nodes, indexed by their address
+	 * @throws SimError If the cache file can't be written
+	 */
+	public void save(List<DTNHost> hosts) {
+		Object[][] states = new Object[hosts.size()][];
+		for (int i=0; i < states.length; i++) {
+			states[i] = hosts.get(i).getMovementState();
+		}
+
+		/* write to a temporary file first so that other (parallel) runs
+		 * never see a partially written cache file */
+		File tmp = null;
+		WarmupOutputStream out = null;
+		try {
+			tmp = File.createTempFile(FILE_PREFIX, ".tmp",
+					this.file.getParentFile());
+			out = new WarmupOutputStream(new GZIPOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tmp))),
+					hosts);
+			out.writeObject(states);
+			for (Class<?> c : DTNSim.getResetClasses()) {
+				out.addClass(c);
+			}
+			out.writeStatics();
+			out.close();
+			out = null;
+			Files.move(tmp.toPath(), this.file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (NotSerializableException e) {
+			throw new SimError("Can't cache the warmup; " +
+					e.getMessage() + " is not serializable", e);
+		} catch (IOException e) {
+			throw new SimError("Couldn't write warmup cache file '" +
+					this.file + "'\n" + e.getMessage(), e);
+		} finally {
+			Checkpoint.close(out);
+			if (tmp != null) {
+				tmp.delete();
+			}
+		}
+	}
+
+	private void restoreState(List<DTNHost> hosts) {
+		WarmupInputStream in = null;
+		try {
+			in = new WarmupInputStream(new GZIPInputStream(
+					new BufferedInputStream(new FileInputStream(this.file))),
+					hosts);
+			Object[][] states = (Object[][])in.readObject();
+			if (states.length != hosts.size()) {
+				throw new IOException("wrong number of nodes");
+			}
+			Checkpoint.readStatics(in);
+			for (int i=0; i < states.length; i++) {
+				hosts.get(i).setMovementState(states[i]);
+			}
+		} catch (IOException e) {
+			throw new SimError("Couldn't read warmup cache file '" +
+					this.file + "' (remove the file to recreate it)\n" +
+					e.getMessage(), e);
+		} catch (ReflectiveOperationException e) {
+			throw new SimError("Warmup cache file '" + this.file + "' " +
+					"doesn't match the simulator's classes (remove the " +
+					"file to recreate it)\n" + e.getMessage(), e);
+		} finally {
+			Checkpoint.close(in);
+		}
+	}
+
+	/**
+	 * Reference to a node or its communication bus in the cache file
+	 */
+	private static class NodeReference implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private int address;
+		private boolean comBus;
+
+		public NodeReference(int address, boolean comBus) {
+			this.address = address;
+			this.comBus = comBus;
+		}
+	}
+
+	/**
+	 * Output stream that writes references instead of the nodes and their
+	 * communication buses
+	 */
+	private static class WarmupOutputStream
+			extends Checkpoint.CheckpointOutputStream {
+		private Map<ModuleCommunicationBus, Integer> buses;
+
+		public WarmupOutputStream(OutputStream out, List<DTNHost> hosts)
+				throws IOException {
+			super(out, MOVEMENT_PACKAGE);
+			this.buses = new IdentityHashMap<ModuleCommunicationBus,
+				Integer>();
+			for (DTNHost host : hosts) {
+				this.buses.put(host.getComBus(), host.getAddress());
+			}
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			if (obj instanceof DTNHost) {
+				return new NodeReference(((DTNHost)obj).getAddress(), false);
+			}
+			if (obj instanceof ModuleCommunicationBus &&
+					this.buses.containsKey(obj)) {
+				return new NodeReference(this.buses.get(obj), true);
+			}
+			return super.replaceObject(obj);
+		}
+	}
+
+	/**
+	 * Input stream that resolves the node references to the given nodes
+	 */
+	private static class WarmupInputStream
+			extends Checkpoint.CheckpointInputStream {
+		private List<DTNHost> hosts;
+
+		public WarmupInputStream(InputStream in, List<DTNHost> hosts)
+				throws IOException {
+			super(in);
+			this.hosts = hosts;
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof NodeReference) {
+				NodeReference ref = (NodeReference)obj;
+				DTNHost host = this.hosts.get(ref.address);
+				return ref.comBus ? host.getComBus() : host;
+			}
+			return super.resolveObject(obj);
+		}
+	}
+}
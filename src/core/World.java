@@ -4,20 +4,29 @@
  */
 package core;
 
+import input.DTN2Events;
 import input.EventQueue;
 import input.ExternalEvent;
+import input.MergedEventQueue;
 import input.ScheduledUpdatesQueue;
+import interfaces.ConnectivityOptimizer;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import movement.MovementModel;
 
 /**
  * World contains all the nodes and is responsible for updating their
  * location and connections.
  */
-public class World {
+public class World implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/** name space of optimization settings ({@value})*/
 	public static final String OPTIMIZATION_SETTINGS_NS = "Optimization";
 
@@ -37,13 +46,118 @@ public class World {
 	 */
 	public static final String SIMULATE_CON_ONCE_S = "simulateConnectionsOnce";
 
+	/**
+	 * Should the host updates be run in parallel -setting id ({@value}).
+	 * Boolean (true/false) variable. If true, every host update round starts
+	 * with a parallel, read-only "sense" phase where all network interfaces
+	 * find the interfaces that are within their range. The hosts are then
+	 * updated one by one, in the same order as in serial mode, using the
+	 * sensed neighbors. The results are the same as with serial updates.
+	 * Default is false.
+	 */
+	public static final String PARALLEL_UPDATE_S = "parallelHostUpdate";
+
+	/**
+	 * Should the host updates start with a pairwise sense phase -setting id
+	 * ({@value}). Boolean (true/false) variable. If true, every host update
+	 * round starts with a single pass where the connectivity optimizers
+	 * check every pair of near interfaces only once and tell both
+	 * interfaces if they are within range. The hosts then take the connect
+	 * and disconnect decisions from the sensing (see
+	 * {@link NetworkInterface#isSensedInRange(NetworkInterface)}) instead
+	 * of checking the distances again. The results are the
+	 * same as without this setting. Replaces the parallel sense phase of
+	 * {@link #PARALLEL_UPDATE_S}. Default is false.
+	 */
+	public static final String PAIRWISE_SENSING_S = "pairwiseSensing";
+
+	/**
+	 * Should the hosts' locations be mirrored in a structure-of-arrays store
+	 * -setting id ({@value}). Boolean (true/false) variable. If true, the
+	 * locations are kept also in the {@link PositionStore} and the range
+	 * checks of the interfaces use it. Default is false.
+	 */
+	public static final String POSITION_STORE_S = "positionStore";
+
+	/**
+	 * Number of threads used for parallel update phases -setting id
+	 * ({@value}). Integer variable. Default is the number of available
+	 * processors.
+	 */
+	public static final String NROF_THREADS_S = "nrofThreads";
+
+	/**
+	 * Should the hosts be moved in parallel -setting id ({@value}).
+	 * Boolean (true/false) variable. If true, hosts whose movement model
+	 * supports it (see {@link MovementModel#isParallelMovementSafe()})
+	 * are moved concurrently and the rest are moved one by one after them.
+	 * Requires that {@link MovementModel#RNG_PER_HOST_S} is enabled, so
+	 * that the results do not depend on the number of threads.
+	 * Default is false.
+	 */
+	public static final String PARALLEL_MOVEMENT_S = "parallelMovement";
+
+	/**
+	 * Should the connections be simulated using the predicted contacts of
+	 * the {@link ContactKernel} -setting id ({@value}). Boolean (true/false)
+	 * variable. If true, the times when the hosts get in and out of range
+	 * are solved from the hosts' movement and the connections are created
+	 * and torn down at those times, instead of checking the ranges at every
+	 * update. The update rounds that would do nothing are skipped, so while
+	 * no host has connections (or other work, see
+	 * {@link DTNHost#getNextUpdateTime()}), the clock jumps from event to
+	 * event. Default is false.
+	 */
+	public static final String EVENT_DRIVEN_CONTACTS_S = "eventDrivenContacts";
+
+	/**
+	 * Should only the hosts affected by an external event be updated after
+	 * the event -setting id ({@value}). Boolean (true/false) variable. If
+	 * true, the hosts an event reports as affected (see
+	 * {@link ExternalEvent#getAffectedHosts()}) and the hosts they are
+	 * connected to are updated after the event, instead of all hosts. All
+	 * hosts are still updated at every update interval. Default is false.
+	 */
+	public static final String INCREMENTAL_EVENT_UPDATES_S =
+		"incrementalEventUpdates";
+
+	/**
+	 * Should only the awake hosts be updated -setting id ({@value}). Boolean
+	 * (true/false) variable. If true, the hosts that have nothing to do at
+	 * the update rounds go to sleep (see {@link DTNHost#sleep()}) and are
+	 * left out of the rounds until they are woken up by a new connection,
+	 * a message or a timer (see {@link ActiveHostSet}). Currently, the hosts
+	 * whose interfaces are all inactive (or that have no interfaces) sleep
+	 * until an interface can become active again. The results are the same
+	 * as without this setting. Default is false.
+	 */
+	public static final String ACTIVE_HOST_SET_S = "activeHostSet";
+
+	/**
+	 * Should the hosts be updated when their transfers are done -setting id
+	 * ({@value}). Boolean (true/false) variable. If true, connections that
+	 * know when their transfer is done (e.g., {@link CBRConnection})
+	 * schedule an update of their hosts at that time, so the routers
+	 * finish the transfer and can start a new one without waiting for the
+	 * next update interval. Requires {@link #INCREMENTAL_EVENT_UPDATES_S},
+	 * so that only the hosts of the connection (and the hosts they are
+	 * connected to) are updated, since updating all hosts after every
+	 * transfer would make busy scenarios slower. Default is false.
+	 */
+	public static final String TRANSFER_DONE_UPDATES_S = "transferDoneUpdates";
+
+	/** How many interfaces are sensed by one parallel task */
+	private static final int SENSE_CHUNK_SIZE = 64;
+	/** How many hosts are moved by one parallel task */
+	private static final int MOVE_CHUNK_SIZE = 32;
+
 	private int sizeX;
 	private int sizeY;
-	private List<EventQueue> eventQueues;
 	private double updateInterval;
 	private SimClock simClock;
 	private double nextQueueEventTime;
-	private EventQueue nextEventQueue;
+	/** all event queues (and scheduled updates) merged by event time */
+	private MergedEventQueue mergedQueues;
 	/** list of nodes; nodes are indexed by their network address */
 	private List<DTNHost> hosts;
 	private boolean simulateConnections;
@@ -55,7 +169,42 @@ public class World {
 	private List<UpdateListener> updateListeners;
 	/** Queue of scheduled update requests */
 	private ScheduledUpdatesQueue scheduledUpdates;
+	/** index of the scheduled updates queue in the merged queues */
+	private int scheduledUpdatesIndex;
 	private boolean simulateConOnce;
+	/** should the host updates have a parallel sense phase */
+	private boolean parallelUpdate;
+	/** should the host updates have a pairwise sense phase */
+	private boolean pairwiseSensing;
+	/** number of threads for the parallel phases */
+	private int nrofThreads;
+	/** thread pool for the parallel phases (or null if not created yet) */
+	private transient ForkJoinPool pool;
+	/** all network interfaces of all hosts (for the sense phase) */
+	private NetworkInterface[] senseInterfaces;
+	/** all connectivity optimizers the interfaces use */
+	private List<ConnectivityOptimizer> senseOptimizers;
+	/** should the hosts be moved in parallel */
+	private boolean parallelMovement;
+	/** hosts that can be moved in parallel (or null if not known yet) */
+	private DTNHost[] parallelMovers;
+	/** kernel for event-driven contacts (or null if not in use) */
+	private ContactKernel contactKernel;
+	/** time until which the update rounds have nothing to do, with the
+	 * contact kernel (or NaN if it must be checked again) */
+	private double idleUntil = Double.NaN;
+	/** end time of the simulation (with the contact kernel) */
+	private double endTime;
+	/** should only the affected hosts be updated after external events */
+	private boolean incrementalEventUpdates;
+	/** marks of the hosts that are updated after an event */
+	private boolean[] dirtyHosts;
+	/** the hosts that are updated after an event (reused for all events) */
+	private List<DTNHost> dirtyList;
+	/** the hosts that are awake (or null if all hosts are updated) */
+	private ActiveHostSet activeHosts;
+	/** the awake hosts in the (random) update order of the round */
+	private DTNHost[] roundHosts;
 
 	/**
 	 * Constructor.
@@ -69,12 +218,20 @@ public class World {
 		this.updateInterval = updateInterval;
 		this.updateListeners = updateListeners;
 		this.simulateConnections = simulateConnections;
-		this.eventQueues = eventQueues;
 
 		this.simClock = SimClock.getInstance();
 		this.scheduledUpdates = new ScheduledUpdatesQueue();
 		this.isCancelled = false;
 
+		/* scheduled updates go first when events have the same time */
+		this.mergedQueues = new MergedEventQueue();
+		this.scheduledUpdatesIndex =
+			this.mergedQueues.addQueue(this.scheduledUpdates);
+		for (EventQueue eq : eventQueues) {
+			/* events from DTN2 daemon can arrive at any time */
+			this.mergedQueues.addQueue(eq, eq instanceof DTN2Events);
+		}
+
 		setNextEventQueue();
 		initSettings();
 	}
@@ -90,6 +247,48 @@ public class World {
 			randomizeUpdates = s.getBoolean(RANDOMIZE_UPDATES_S);
 		}
 		simulateConOnce = s.getBoolean(SIMULATE_CON_ONCE_S, false);
+		parallelUpdate = s.getBoolean(PARALLEL_UPDATE_S, false);
+		pairwiseSensing = s.getBoolean(PAIRWISE_SENSING_S, false);
+		nrofThreads = s.getInt(NROF_THREADS_S,
+				Runtime.getRuntime().availableProcessors());
+		incrementalEventUpdates = s.getBoolean(INCREMENTAL_EVENT_UPDATES_S,
+				false);
+		parallelMovement = s.getBoolean(PARALLEL_MOVEMENT_S, false);
+		if (parallelMovement && !MovementModel.isRngPerHost()) {
+			throw new SettingsError(OPTIMIZATION_SETTINGS_NS + "." +
+					PARALLEL_MOVEMENT_S + " requires " +
+					MovementModel.MOVEMENT_MODEL_NS + "." +
+					MovementModel.RNG_PER_HOST_S);
+		}
+		ObstacleMap.init();
+		if (s.getBoolean(EVENT_DRIVEN_CONTACTS_S, false) &&
+				this.simulateConnections) {
+			this.contactKernel = new ContactKernel(this.hosts);
+			this.endTime = new Settings(SimScenario.SCENARIO_NS).getDouble(
+					SimScenario.END_TIME_S);
+		}
+		if (nrofThreads < 1) {
+			throw new SettingsError("Too small value (" + nrofThreads +
+					") for " +
+					OPTIMIZATION_SETTINGS_NS + "." + NROF_THREADS_S);
+		}
+
+		Profiler.init(s);
+		if (s.getBoolean(POSITION_STORE_S, false)) {
+			PositionStore.enable(this.hosts);
+		}
+		if (s.getBoolean(ACTIVE_HOST_SET_S, false)) {
+			this.activeHosts = new ActiveHostSet(this.hosts);
+		}
+		if (s.getBoolean(TRANSFER_DONE_UPDATES_S, false)) {
+			if (!incrementalEventUpdates) {
+				throw new SettingsError(OPTIMIZATION_SETTINGS_NS + "." +
+						TRANSFER_DONE_UPDATES_S + " requires " +
+						OPTIMIZATION_SETTINGS_NS + "." +
+						INCREMENTAL_EVENT_UPDATES_S);
+			}
+			Connection.setTransferDoneUpdates(true);
+		}
 
 		if(randomizeUpdates) {
 			// creates the update order array that can be shuffled
@@ -123,84 +322,405 @@ public class World {
 	}
 
 	/**
-	 * Goes through all event Queues and sets the
-	 * event queue that has the next event.
+	 * Sets the time of the next event of all event queues. The queues are
+	 * kept ordered by their next event's time in a {@link MergedEventQueue},
+	 * so this doesn't need to go through all the queues.
 	 */
 	public void setNextEventQueue() {
-		EventQueue nextQueue = scheduledUpdates;
-		double earliest = nextQueue.nextEventsTime();
-
-		/* find the queue that has the next event */
-		for (EventQueue eq : eventQueues) {
-			if (eq.nextEventsTime() < earliest){
-				nextQueue = eq;
-				earliest = eq.nextEventsTime();
-			}
-		}
-
-		this.nextEventQueue = nextQueue;
-		this.nextQueueEventTime = earliest;
+		this.nextQueueEventTime = this.mergedQueues.nextEventsTime();
 	}
 
 	/**
 	 * Update (move, connect, disconnect etc.) all hosts in the world.
 	 * Runs all external events that are due between the time when
-	 * this method is called and after one update interval.
+	 * this method is called and after one update interval. With the
+	 * contact kernel, the update rounds that would do nothing are skipped,
+	 * so one call can advance the clock for many update intervals.
 	 */
 	public void update () {
 		double runUntil = SimClock.getTime() + this.updateInterval;
+		Profiler.startUpdate();
 
 		setNextEventQueue();
-
-		/* process all events that are due until next interval update */
-		while (this.nextQueueEventTime <= runUntil) {
-			simClock.setTime(this.nextQueueEventTime);
-			ExternalEvent ee = this.nextEventQueue.nextEvent();
-			ee.processEvent(this);
-			updateHosts(); // update all hosts after every event
-			setNextEventQueue();
+		boolean changed = processEvents(runUntil);
+		while (this.contactKernel != null && canSkipRound(runUntil, changed)) {
+			/* nothing to do at this round; go on to the next one */
+			runUntil += this.updateInterval;
+			changed = processEvents(runUntil);
 		}
+		this.idleUntil = Double.NaN;
 
-		moveHosts(this.updateInterval);
-		simClock.setTime(runUntil);
+		if (this.contactKernel != null) {
+			simClock.setTime(runUntil);
+			Profiler.start(Profiler.MOVEMENT);
+			this.contactKernel.moveHosts(runUntil);
+			Profiler.end(Profiler.MOVEMENT);
+		}
+		else {
+			Profiler.start(Profiler.MOVEMENT);
+			moveHosts(this.updateInterval);
+			Profiler.end(Profiler.MOVEMENT);
+			simClock.setTime(runUntil);
+		}
 
 		updateHosts();
 
 		/* inform all update listeners */
+		Profiler.start(Profiler.LISTENERS);
 		for (UpdateListener ul : this.updateListeners) {
 			ul.updated(this.hosts);
 		}
+		Profiler.end(Profiler.LISTENERS);
+		Profiler.endUpdate();
+	}
+
+	/**
+	 * Processes all events that are due until the given time, and
+	 * updates the (affected) hosts after every event
+	 * @param runUntil The time of the next update round
+	 * @return True if some external event was processed or, with the
+	 * contact kernel, some interfaces got in or out of range
+	 */
+	private boolean processEvents(double runUntil) {
+		boolean processed = false;
+		while (this.nextQueueEventTime <= runUntil) {
+			if (this.contactKernel != null) {
+				Profiler.start(Profiler.CONTACTS);
+				this.contactKernel.processEvents(this.nextQueueEventTime);
+				Profiler.end(Profiler.CONTACTS);
+			}
+			simClock.setTime(this.nextQueueEventTime);
+			Profiler.start(Profiler.EVENTS);
+			ExternalEvent ee = this.mergedQueues.nextEvent();
+			ee.processEvent(this);
+			Profiler.end(Profiler.EVENTS);
+			updateHostsAfter(ee); // update (affected) hosts after every event
+			setNextEventQueue();
+			processed = true;
+		}
+
+		if (this.contactKernel != null) {
+			Profiler.start(Profiler.CONTACTS);
+			if (this.contactKernel.processEvents(runUntil)) {
+				processed = true;
+			}
+			Profiler.end(Profiler.CONTACTS);
+		}
+		return processed;
+	}
+
+	/**
+	 * Checks, with the contact kernel, if the update round at the given
+	 * time would do nothing: no host needs an update before the next
+	 * round (see {@link DTNHost#getNextUpdateTime()}), nothing happened
+	 * since the previous round that was run, no update listeners need to
+	 * see the round, and the simulation doesn't end yet. Moving the hosts
+	 * to the round's time can be left to the next round that is run, since
+	 * the kernel moves the hosts whose movement changes on its own.
+	 * @param time The time of the round
+	 * @param changed Did something happen after the previous round
+	 * @return True if the round can be skipped
+	 */
+	private boolean canSkipRound(double time, boolean changed) {
+		if (changed || !this.updateListeners.isEmpty()) {
+			this.idleUntil = Double.NaN;
+			return false;
+		}
+		if (Double.isNaN(this.idleUntil)) {
+			this.idleUntil = this.endTime;
+			if (this.activeHosts != null) {
+				this.idleUntil = Math.min(this.idleUntil,
+						this.activeHosts.getNextTimerTime());
+			}
+			for (int i=0, n = hosts.size(); i < n; i++) {
+				DTNHost host = hosts.get(i);
+				if (host.isAwake()) {
+					this.idleUntil = Math.min(this.idleUntil,
+							host.getNextUpdateTime());
+				}
+			}
+		}
+		/* the round just before the time is run too, so that rounding
+		 * errors in the hosts' times can't skip a round that is needed */
+		return time + this.updateInterval < this.idleUntil;
 	}
 
 	/**
 	 * Updates all hosts (calls update for every one of them). If update
 	 * order randomizing is on (updateOrder array is defined), the calls
-	 * are made in random order.
+	 * are made in random order. If the active host set is in use, only the
+	 * hosts that are awake at the start of the round are updated (in the
+	 * same order as they would be without the set).
 	 */
 	private void updateHosts() {
+		/* with the contact kernel, interfaces don't look for connections */
+		boolean simulateConnections = this.simulateConnections &&
+			this.contactKernel == null;
+
+		if (simulateConnections) {
+			Profiler.start(Profiler.CONTACTS);
+			prepareOptimizers();
+			Profiler.end(Profiler.CONTACTS);
+		}
+
+		if (this.pairwiseSensing && simulateConnections) {
+			Profiler.start(Profiler.CONTACTS);
+			sensePairs();
+			Profiler.end(Profiler.CONTACTS);
+		}
+		else if (this.parallelUpdate && simulateConnections) {
+			Profiler.start(Profiler.CONTACTS);
+			senseInterfaces();
+			Profiler.end(Profiler.CONTACTS);
+		}
+
+		if (this.activeHosts != null) {
+			this.activeHosts.processTimers(SimClock.getTime());
+		}
+
 		if (this.updateOrder == null) { // randomizing is off
-			for (int i=0, n = hosts.size();i < n; i++) {
-				if (this.isCancelled) {
-					break;
+			if (this.activeHosts != null) {
+				updateAwakeHosts(this.activeHosts.getHosts(),
+						this.activeHosts.size(), simulateConnections);
+			}
+			else {
+				for (int i=0, n = hosts.size();i < n; i++) {
+					if (this.isCancelled) {
+						break;
+					}
+					hosts.get(i).update(simulateConnections);
 				}
-				hosts.get(i).update(simulateConnections);
 			}
 		}
 		else { // update order randomizing is on
 			assert this.updateOrder.size() == this.hosts.size() :
 				"Nrof hosts has changed unexpectedly";
 			Random rng = new Random(SimClock.getIntTime());
+			/* all hosts are shuffled, so that the awake hosts are updated
+			 * in the same order as without the active host set */
 			Collections.shuffle(this.updateOrder, rng);
-			for (int i=0, n = hosts.size();i < n; i++) {
-				if (this.isCancelled) {
-					break;
+			if (this.activeHosts != null) {
+				updateAwakeHosts(selectAwakeHosts(this.updateOrder),
+						this.activeHosts.size(), simulateConnections);
+			}
+			else {
+				for (int i=0, n = hosts.size();i < n; i++) {
+					if (this.isCancelled) {
+						break;
+					}
+					this.updateOrder.get(i).update(simulateConnections);
 				}
-				this.updateOrder.get(i).update(simulateConnections);
 			}
 		}
 
-		if (simulateConOnce && simulateConnections) {
-			simulateConnections = false;
+		if (simulateConOnce && this.simulateConnections) {
+			this.simulateConnections = false;
+		}
+	}
+
+	/**
+	 * Updates the given awake hosts
+	 * @param hosts The hosts to update
+	 * @param n Number of hosts to update
+	 * @param simulateConnections Should the connections be updated
+	 */
+	private void updateAwakeHosts(DTNHost[] hosts, int n,
+			boolean simulateConnections) {
+		for (int i=0; i < n; i++) {
+			if (this.isCancelled) {
+				break;
+			}
+			hosts[i].update(simulateConnections);
+		}
+	}
+
+	/**
+	 * Collects the hosts that are awake from the update order
+	 * @param order The update order of all hosts
+	 * @return The awake hosts in the update order
+	 */
+	private DTNHost[] selectAwakeHosts(List<DTNHost> order) {
+		if (this.roundHosts == null) {
+			this.roundHosts = new DTNHost[order.size()];
+		}
+		int n = 0;
+		for (int i=0, size = order.size(); i < size; i++) {
+			DTNHost host = order.get(i);
+			if (this.activeHosts.contains(host)) {
+				this.roundHosts[n++] = host;
+			}
+		}
+		return this.roundHosts;
+	}
+
+	/**
+	 * Updates the hosts after an external event. If incremental event updates
+	 * are enabled and the event knows which hosts it affected, only those
+	 * hosts and the hosts they are connected to are updated, in the order
+	 * of their addresses. Otherwise all hosts are updated.
+	 * @param ee The event that was processed
+	 */
+	private void updateHostsAfter(ExternalEvent ee) {
+		int[] affected = null;
+		if (this.incrementalEventUpdates) {
+			affected = ee.getAffectedHosts();
+		}
+		if (affected == null) {
+			updateHosts();
+			return;
+		}
+
+		if (this.dirtyHosts == null) {
+			this.dirtyHosts = new boolean[this.hosts.size()];
+			this.dirtyList = new ArrayList<DTNHost>();
+		}
+		List<DTNHost> dirty = this.dirtyList;
+		dirty.clear();
+		for (int address : affected) {
+			DTNHost host = this.hosts.get(address);
+			markDirty(host);
+			for (Connection con : host.getConnections()) {
+				markDirty(con.getOtherNode(host));
+			}
+		}
+		Collections.sort(dirty);
+
+		boolean simulateConnections = this.simulateConnections &&
+			this.contactKernel == null;
+		if (simulateConnections) {
+			prepareOptimizers();
+		}
+		if (this.activeHosts != null) {
+			this.activeHosts.processTimers(SimClock.getTime());
+		}
+		for (DTNHost host : dirty) {
+			this.dirtyHosts[host.getAddress()] = false;
+			if (!this.isCancelled && host.isAwake()) {
+				host.update(simulateConnections);
+			}
+		}
+	}
+
+	/**
+	 * Adds a host to the list of hosts to update, unless it's there already
+	 * @param host The host to add
+	 */
+	private void markDirty(DTNHost host) {
+		if (!this.dirtyHosts[host.getAddress()]) {
+			this.dirtyHosts[host.getAddress()] = true;
+			this.dirtyList.add(host);
+		}
+	}
+
+	/**
+	 * Lets the connectivity optimizers of all interfaces prepare for a round
+	 * of host updates
+	 */
+	private void prepareOptimizers() {
+		if (this.senseInterfaces == null) {
+			initSensing();
+		}
+		for (ConnectivityOptimizer co : this.senseOptimizers) {
+			co.prepareUpdate();
+		}
+	}
+
+	/**
+	 * Runs the sense phase of a parallel update round: every network interface
+	 * searches, in parallel, the interfaces that are within its range.
+	 * Nothing but the interfaces' own sensing state is modified here; all
+	 * connections are created and torn down in the (serial) host updates.
+	 */
+	private void senseInterfaces() {
+		if (this.senseInterfaces == null) {
+			initSensing();
+		}
+
+		for (ConnectivityOptimizer co : this.senseOptimizers) {
+			co.prepareSensing();
+		}
+
+		final NetworkInterface[] nis = this.senseInterfaces;
+		getPool().invoke(new SenseAction(nis, 0, nis.length));
+	}
+
+	/**
+	 * Runs the pairwise sense phase: every connectivity optimizer checks
+	 * every pair of its near interfaces once and gives the pairs that are in
+	 * range to both interfaces of the pair. Interfaces of optimizers that
+	 * don't support pairwise sensing are not sensed.
+	 */
+	private void sensePairs() {
+		if (this.senseInterfaces == null) {
+			initSensing();
+		}
+
+		for (NetworkInterface ni : this.senseInterfaces) {
+			ni.startSensing();
+		}
+		for (ConnectivityOptimizer co : this.senseOptimizers) {
+			co.prepareSensing();
+			co.sensePairs();
+		}
+	}
+
+	/**
+	 * Collects the network interfaces and connectivity optimizers of all
+	 * hosts for the sense phase
+	 */
+	private void initSensing() {
+		List<NetworkInterface> nis = new ArrayList<NetworkInterface>();
+		IdentityHashMap<ConnectivityOptimizer, Boolean> optimizers =
+			new IdentityHashMap<ConnectivityOptimizer, Boolean>();
+		this.senseOptimizers = new ArrayList<ConnectivityOptimizer>();
+
+		for (DTNHost host : this.hosts) {
+			for (NetworkInterface ni : host.getInterfaces()) {
+				ConnectivityOptimizer co = ni.getOptimizer();
+				if (co == null) {
+					continue;
+				}
+				nis.add(ni);
+				if (optimizers.put(co, Boolean.TRUE) == null) {
+					this.senseOptimizers.add(co);
+				}
+			}
+		}
+
+		this.senseInterfaces = nis.toArray(new NetworkInterface[nis.size()]);
+	}
+
+	/**
+	 * Returns the thread pool for the parallel phases, creating it if needed
+	 * @return the thread pool
+	 */
+	private ForkJoinPool getPool() {
+		if (this.pool == null) {
+			this.pool = new ForkJoinPool(this.nrofThreads);
+		}
+		return this.pool;
+	}
+
+	/**
+	 * Parallel task that senses the neighbors of a range of interfaces
+	 */
+	private static class SenseAction extends RangeAction {
+		private static final long serialVersionUID = 1L;
+		private final NetworkInterface[] interfaces;
+
+		public SenseAction(NetworkInterface[] interfaces, int from, int to) {
+			super(from, to, SENSE_CHUNK_SIZE);
+			this.interfaces = interfaces;
+		}
+
+		@Override
+		protected RangeAction subRange(int from, int to) {
+			return new SenseAction(this.interfaces, from, to);
+		}
+
+		@Override
+		protected void process(int index) {
+			this.interfaces[index].senseNearInterfaces();
 		}
 	}
 
@@ -209,12 +729,76 @@ public class World {
 	 * @param timeIncrement The time how long all nodes should move
 	 */
 	private void moveHosts(double timeIncrement) {
+		if (this.parallelMovement) {
+			moveHostsParallel(timeIncrement);
+			return;
+		}
+
 		for (int i=0,n = hosts.size(); i<n; i++) {
 			DTNHost host = hosts.get(i);
 			host.move(timeIncrement);
 		}
 	}
 
+	/**
+	 * Moves all hosts in the world for a given amount of time so that the
+	 * hosts that support it are moved in parallel. Movement listeners
+	 * are informed, and the rest of the hosts moved, in the same order as
+	 * in {@link #moveHosts(double)}.
+	 * @param timeIncrement The time how long all nodes should move
+	 */
+	private void moveHostsParallel(double timeIncrement) {
+		if (this.parallelMovers == null) {
+			List<DTNHost> movers = new ArrayList<DTNHost>();
+			for (DTNHost host : this.hosts) {
+				if (host.isParallelMovementSafe()) {
+					movers.add(host);
+				}
+			}
+			this.parallelMovers = movers.toArray(new DTNHost[movers.size()]);
+		}
+
+		DTNHost[] movers = this.parallelMovers;
+		getPool().invoke(new MoveAction(movers, timeIncrement, 0,
+				movers.length));
+
+		for (int i=0,n = hosts.size(); i<n; i++) {
+			DTNHost host = hosts.get(i);
+			if (host.isParallelMovementSafe()) {
+				host.notifyDeferred();
+			}
+			else {
+				host.move(timeIncrement);
+			}
+		}
+	}
+
+	/**
+	 * Parallel task that moves a range of hosts
+	 */
+	private static class MoveAction extends RangeAction {
+		private static final long serialVersionUID = 1L;
+		private final DTNHost[] hosts;
+		private final double timeIncrement;
+
+		public MoveAction(DTNHost[] hosts, double timeIncrement,
+				int from, int to) {
+			super(from, to, MOVE_CHUNK_SIZE);
+			this.hosts = hosts;
+			this.timeIncrement = timeIncrement;
+		}
+
+		@Override
+		protected RangeAction subRange(int from, int to) {
+			return new MoveAction(this.hosts, this.timeIncrement, from, to);
+		}
+
+		@Override
+		protected void process(int index) {
+			this.hosts[index].moveDeferred(this.timeIncrement);
+		}
+	}
+
 	/**
 	 * Asynchronously cancels the currently running simulation
 	 */
@@ -271,5 +855,18 @@ public class World {
 	 */
 	public void scheduleUpdate(double simTime) {
 		scheduledUpdates.addUpdate(simTime);
+		mergedQueues.update(this.scheduledUpdatesIndex);
+	}
+
+	/**
+	 * Schedules an update request to some nodes to happen at the specified
+	 * simulation time. Unless {@link #INCREMENTAL_EVENT_UPDATES_S} is
+	 * enabled, all nodes are updated.
+	 * @param simTime The time of the update
+	 * @param hosts Addresses of the nodes to update
+	 */
+	public void scheduleUpdate(double simTime, int[] hosts) {
+		scheduledUpdates.addUpdate(simTime, hosts);
+		mergedQueues.update(this.scheduledUpdatesIndex);
 	}
 }
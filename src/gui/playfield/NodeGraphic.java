@@ -89,11 +89,10 @@ public class NodeGraphic extends PlayFieldGraphic {
 		if (drawConnections) {
 			g2.setColor(conColor);
 			Coord c1 = node.getLocation();
-			ArrayList<Connection> conList = new ArrayList<Connection>();
-			// create a copy to prevent concurrent modification exceptions
-			conList.addAll(node.getConnections());
+			// a copy, since the simulation can change the connections
+			List<Connection> conList = node.copyConnections();
 			for (Connection c : conList) {
-				DTNHost otherNode = c.getOtherNode(node);
+				DTNHost otherNode = c == null ? null : c.getOtherNode(node);
 				Coord c2;
 
 				if (otherNode == null) {
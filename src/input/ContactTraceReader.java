@@ -0,0 +1,156 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import core.SimError;
+
+/**
+ * <P>
+ * Reads connection up/down events from a binary contact trace file (see
+ * {@link report.ContactTraceReport}). The file starts with a header:
+ * the bytes of {@link #MAGIC}, the format version and the time resolution
+ * (time units per second). Every contact event that follows has three
+ * unsigned variable length integers (7 bits per byte, least significant
+ * group first; the highest bit tells if more bytes follow):</P>
+ * <OL>
+ * <LI>the time since the previous event (or time 0) in time units</LI>
+ * <LI>address of the host that created (or tore down) the connection,
+ * shifted left by one bit; the lowest bit is 1 for "up" events</LI>
+ * <LI>address of the other host</LI>
+ * </OL>
+ * <P>
+ * The events are {@link ConnectionEvent}s for the hosts' first network
+ * interfaces. Traces are read with the {@link ExternalEventsQueue} when the
+ * file name ends with {@link #TRACE_EXT}.</P>
+ */
+public class ContactTraceReader implements ExternalEventsReader {
+	/** Extension of binary contact trace files ({@value}) */
+	public static final String TRACE_EXT = ".bct";
+	/** Bytes that start a contact trace file */
+	public static final byte[] MAGIC = {'O', 'N', 'E', 'C'};
+	/** Version of the file format */
+	public static final int VERSION = 1;
+
+	private DataInputStream in;
+	/** time units per second */
+	private int resolution;
+	/** time of the previous event in time units */
+	private long time;
+
+	/**
+	 * Constructor.
+	 * @param traceFile The file where the events are read
+	 */
+	public ContactTraceReader(File traceFile) {
+		try {
+			this.in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(traceFile)));
+			for (byte b : MAGIC) {
+				if (in.readByte() != b) {
+					throw new SimError(traceFile.getAbsolutePath() +
+							" is not a contact trace file");
+				}
+			}
+			int version = (int)readVarint(in);
+			if (version != VERSION) {
+				throw new SimError("Unsupported version " + version +
+						" of contact trace file " +
+						traceFile.getAbsolutePath());
+			}
+			this.resolution = (int)readVarint(in);
+			if (this.resolution < 1) {
+				throw new SimError("Invalid time resolution " +
+						this.resolution + " in contact trace file " +
+						traceFile.getAbsolutePath());
+			}
+		} catch (IOException e) {
+			throw new SimError("Couldn't read contact trace file " +
+					traceFile.getAbsolutePath(), e);
+		}
+		this.time = 0;
+	}
+
+	/**
+	 * Reads connection events from the trace
+	 * @param nrof Maximum number of events to read
+	 * @return Events in an ArrayList (empty list if didn't read any)
+	 */
+	public List<ExternalEvent> readEvents(int nrof) {
+		ArrayList<ExternalEvent> events = new ArrayList<ExternalEvent>(nrof);
+		if (this.in == null) {
+			return events;
+		}
+
+		try {
+			for (int i=0; i < nrof; i++) {
+				long delta;
+				try {
+					delta = readVarint(in);
+				} catch (EOFException e) {
+					close();
+					break;
+				}
+				long from = readVarint(in);
+				int to = (int)readVarint(in);
+				this.time += delta;
+				events.add(new ConnectionEvent((int)(from >>> 1), to, null,
+						(from & 1) == 1, this.time / (double)this.resolution));
+			}
+		} catch (IOException e) {
+			throw new SimError("Couldn't read contact trace", e);
+		}
+		return events;
+	}
+
+	/**
+	 * Reads an unsigned variable length integer from a stream
+	 * @param in The stream
+	 * @return The integer
+	 * @throws IOException if the stream ends or can't be read
+	 */
+	public static long readVarint(InputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (long)(b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Too long variable length integer");
+	}
+
+	/**
+	 * Checks if the given file is a contact trace file
+	 * @param file The file to check
+	 * @return True if the file is a contact trace file, false if not
+	 */
+	public static boolean isContactTraceFile(File file) {
+		return file.getName().endsWith(TRACE_EXT);
+	}
+
+	public void close() {
+		if (this.in == null) {
+			return;
+		}
+		try {
+			this.in.close();
+		} catch (IOException e) {}
+		this.in = null;
+	}
+}
@@ -29,6 +29,16 @@ public class ExternalEvent implements Comparable<ExternalEvent>, Serializable {
 		// this is just a dummy event
 	}
 
+	/**
+	 * Returns the addresses of the hosts this event affects, i.e., the hosts
+	 * whose state processing the event can change. If the event can affect
+	 * any host, null is returned. This implementation returns null.
+	 * @return The addresses of the affected hosts or null
+	 */
+	public int[] getAffectedHosts() {
+		return null;
+	}
+
 	/**
 	 * Returns the time when this event should happen.
 	 * @return Event's time
@@ -5,6 +5,9 @@
 package input;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,7 +17,8 @@ import core.Settings;
  * Queue of external events. This class also takes care of buffering
  * the events and preloading only a proper amount of them.
  */
-public class ExternalEventsQueue implements EventQueue {
+public class ExternalEventsQueue implements EventQueue, Serializable {
+	private static final long serialVersionUID = 1L;
 	/** ExternalEvents namespace ({@value})*/
 	public static final String SETTINGS_NAMESPACE = "ExternalEvents";
 	/** number of event to preload -setting id ({@value})*/
@@ -26,7 +30,9 @@ public class ExternalEventsQueue implements EventQueue {
 	public static final int DEFAULT_NROF_PRELOAD = 500;
 
 	private File eventsFile;
-	private ExternalEventsReader reader;
+	private transient ExternalEventsReader reader;
+	/** number of events read from the reader */
+	private long nrofEventsRead;
 	private int nextEventIndex;
 	private int nrofPreload;
 	private List<ExternalEvent> queue;
@@ -36,7 +42,8 @@ public class ExternalEventsQueue implements EventQueue {
 	 * Creates a new Queue from a file
 	 * @param filePath Path to the file where the events are read from. If
 	 * file ends with extension defined in {@link BinaryEventsReader#BINARY_EXT}
-	 * the file is assumed to be a binary file.
+	 * the file is assumed to be a binary file, and if it ends with
+	 * {@link ContactTraceReader#TRACE_EXT}, a binary contact trace.
 	 * @param nrofPreload How many events to preload
 	 * @see BinaryEventsReader#BINARY_EXT
 	 * @see BinaryEventsReader#storeToBinaryFile(String, List)
@@ -76,16 +83,44 @@ public class ExternalEventsQueue implements EventQueue {
 
 	private void init(String eeFilePath) {
 		this.eventsFile = new File(eeFilePath);
+		openReader();
+		this.queue = readEvents(nrofPreload);
+		this.nextEventIndex = 0;
+	}
 
+	private void openReader() {
 		if (BinaryEventsReader.isBinaryEeFile(eventsFile)) {
 			this.reader = new BinaryEventsReader(eventsFile);
 		}
+		else if (ContactTraceReader.isContactTraceFile(eventsFile)) {
+			this.reader = new ContactTraceReader(eventsFile);
+		}
 		else {
 			this.reader = new StandardEventsReader(eventsFile);
 		}
+	}
 
-		this.queue = readEvents(nrofPreload);
-		this.nextEventIndex = 0;
+	/**
+	 * Reads the queue from a checkpoint. The events file is opened again and
+	 * the events that were already read before the checkpoint are skipped.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		if (this.allEventsRead) {
+			return;
+		}
+
+		openReader();
+		for (long left = this.nrofEventsRead; left > 0; ) {
+			int nrof = (int)Math.min(left, nrofPreload);
+			int read = reader.readEvents(nrof).size();
+			if (read == 0) {
+				throw new IOException("Events file " + eventsFile +
+						" has less events than when the checkpoint was saved");
+			}
+			left -= read;
+		}
 	}
 
 	/**
@@ -151,6 +186,7 @@ public class ExternalEventsQueue implements EventQueue {
 		}
 
 		List<ExternalEvent> events = reader.readEvents(nrof);
+		nrofEventsRead += events.size();
 
 		if (nrof > 0 && events.size() == 0) {
 			reader.close();
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package input;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Event queue that merges the events of other event queues. The queues are
+ * kept in an indexed min-heap keyed on their next event's time, so finding
+ * the queue with the next event is O(1) and taking an event from it
+ * O(log n), where n is the number of queues. Events with the same time are
+ * returned in the order their queues were added to the merger.
+ * <P>
+ * Only the queue that gives an event is checked for a new next event time.
+ * If the time of a queue can change otherwise (e.g., when new updates are
+ * added to a {@link ScheduledUpdatesQueue}), {@link #update(int)} must be
+ * called for the queue, or the queue must be added as unpredictable, in
+ * which case its time is checked every time the merger's next event time
+ * is asked.</P>
+ */
+public class MergedEventQueue implements EventQueue, Serializable {
+	private static final long serialVersionUID = 1L;
+	private List<EventQueue> queues;
+	/** next event time of each queue, when the queue was last checked */
+	private double[] times;
+	/** heap of queue indexes */
+	private int[] heap;
+	/** position of each queue in the heap */
+	private int[] positions;
+	/** indexes of the queues whose times are always checked */
+	private List<Integer> unpredictable;
+
+	/**
+	 * Constructor. Creates an empty merger.
+	 */
+	public MergedEventQueue() {
+		this.queues = new ArrayList<EventQueue>();
+		this.times = new double[4];
+		this.heap = new int[4];
+		this.positions = new int[4];
+		this.unpredictable = new ArrayList<Integer>();
+	}
+
+	/**
+	 * Adds a new queue to the merger
+	 * @param eq The queue to add
+	 * @return Index of the queue in the merger
+	 */
+	public int addQueue(EventQueue eq) {
+		return addQueue(eq, false);
+	}
+
+	/**
+	 * Adds a new queue to the merger
+	 * @param eq The queue to add
+	 * @param isUnpredictable If true, the queue's next event time can change
+	 * also when it is not asked for events and it must always be checked
+	 * @return Index of the queue in the merger
+	 */
+	public int addQueue(EventQueue eq, boolean isUnpredictable) {
+		int index = this.queues.size();
+		if (index == this.heap.length) {
+			int size = index * 2;
+			this.times = Arrays.copyOf(this.times, size);
+			this.heap = Arrays.copyOf(this.heap, size);
+			this.positions = Arrays.copyOf(this.positions, size);
+		}
+
+		this.queues.add(eq);
+		this.times[index] = eq.nextEventsTime();
+		this.heap[index] = index;
+		this.positions[index] = index;
+		siftUp(index);
+
+		if (isUnpredictable) {
+			this.unpredictable.add(index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the next event of the queue that has the earliest next event
+	 * or ExternalEvent with time of Double.MAX_VALUE if there are no events
+	 * left in any of the queues.
+	 * @return The next event
+	 */
+	public ExternalEvent nextEvent() {
+		EventQueue eq = nextQueue();
+		if (eq == null) {
+			return new ExternalEvent(Double.MAX_VALUE);
+		}
+
+		int index = this.heap[0];
+		ExternalEvent ee = eq.nextEvent();
+		update(index);
+		return ee;
+	}
+
+	/**
+	 * Returns the earliest next event time of the queues or
+	 * Double.MAX_VALUE if there are no events left in any of the queues.
+	 * @return Next event's time
+	 */
+	public double nextEventsTime() {
+		checkUnpredictable();
+		if (this.queues.isEmpty()) {
+			return Double.MAX_VALUE;
+		}
+		return this.times[this.heap[0]];
+	}
+
+	/**
+	 * Returns the queue that has the earliest next event
+	 * @return The queue or null if there are no queues
+	 */
+	public EventQueue nextQueue() {
+		checkUnpredictable();
+		if (this.queues.isEmpty()) {
+			return null;
+		}
+		return this.queues.get(this.heap[0]);
+	}
+
+	/**
+	 * Checks the next event time of a queue again, e.g., after events have
+	 * been added to it
+	 * @param index Index of the queue (as returned by
+	 * {@link #addQueue(EventQueue)})
+	 */
+	public void update(int index) {
+		double old = this.times[index];
+		this.times[index] = this.queues.get(index).nextEventsTime();
+
+		if (this.times[index] < old) {
+			siftUp(this.positions[index]);
+		}
+		else if (this.times[index] > old) {
+			siftDown(this.positions[index]);
+		}
+	}
+
+	/**
+	 * Checks the times of the unpredictable queues
+	 */
+	private void checkUnpredictable() {
+		for (int i=0, n=this.unpredictable.size(); i < n; i++) {
+			update(this.unpredictable.get(i));
+		}
+	}
+
+	/**
+	 * Returns true if the queue with index a should be before the queue
+	 * with index b, i.e., if it has an earlier next event or the same
+	 * event time and it was added before b
+	 */
+	private boolean isBefore(int a, int b) {
+		if (this.times[a] != this.times[b]) {
+			return this.times[a] < this.times[b];
+		}
+		return a < b;
+	}
+
+	private void siftUp(int pos) {
+		int index = this.heap[pos];
+		while (pos > 0) {
+			int parent = (pos - 1) / 2;
+			if (!isBefore(index, this.heap[parent])) {
+				break;
+			}
+			moveTo(this.heap[parent], pos);
+			pos = parent;
+		}
+		moveTo(index, pos);
+	}
+
+	private void siftDown(int pos) {
+		int index = this.heap[pos];
+		int size = this.queues.size();
+		while (true) {
+			int child = 2 * pos + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size &&
+					isBefore(this.heap[child + 1], this.heap[child])) {
+				child++;
+			}
+			if (!isBefore(this.heap[child], index)) {
+				break;
+			}
+			moveTo(this.heap[child], pos);
+			pos = child;
+		}
+		moveTo(index, pos);
+	}
+
+	private void moveTo(int index, int pos) {
+		this.heap[pos] = index;
+		this.positions[index] = pos;
+	}
+
+	public String toString() {
+		return "MergedEventQueue of " + this.queues.size() + " queues";
+	}
+}
@@ -46,6 +46,16 @@ public class MessageCreateEvent extends MessageEvent {
 		from.createNewMessage(m);
 	}
 
+	/**
+	 * Returns the address of the creator of the message. The destination
+	 * is not affected until the message is delivered.
+	 * @return The address of the affected host
+	 */
+	@Override
+	public int[] getAffectedHosts() {
+		return new int[] {this.fromAddr};
+	}
+
 	@Override
 	public String toString() {
 		return super.toString() + " [" + fromAddr + "->" + toAddr + "] " +
@@ -29,6 +29,15 @@ public abstract class MessageEvent extends ExternalEvent {
 		this.id = id;
 	}
 
+	/**
+	 * Returns the addresses of the nodes the message is from and to
+	 * @return The addresses of the affected hosts
+	 */
+	@Override
+	public int[] getAffectedHosts() {
+		return new int[] {this.fromAddr, this.toAddr};
+	}
+
 	@Override
 	public String toString() {
 		return "MSG @" + this.time + " " + id;
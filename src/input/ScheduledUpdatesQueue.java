@@ -4,25 +4,47 @@
  */
 package input;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.PriorityQueue;
 
 /**
  * Event queue where simulation objects can request an update to happen
  * at the specified simulation time. Multiple updates at the same time
  * are merged to a single update.
+ * <P>
+ * The update times are kept in a binary min-heap of primitive doubles, so
+ * adding an update and taking the next one are O(log n) operations. Update
+ * events are created only when they are taken from the queue.</P>
+ * <P>
+ * Updates can also be requested for only some hosts (see
+ * {@link #addUpdate(double, int[])}). Such updates at the same time are
+ * merged to a single event that tells the affected hosts (see
+ * {@link ExternalEvent#getAffectedHosts()}), and an update of all hosts
+ * covers them.</P>
  */
-public class ScheduledUpdatesQueue implements EventQueue {
-	/** Time of the event (simulated seconds) */
-	private ExternalEvent nextEvent;
-	private List<ExternalEvent> updates;
+public class ScheduledUpdatesQueue implements EventQueue, Serializable {
+	private static final long serialVersionUID = 1L;
+	/** Initial capacity of the heap */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Times of the updates in a min-heap (may contain duplicates) */
+	private double[] times;
+	/** Number of times in the heap */
+	private int size;
+	/** Time of the latest added update if it is still in the heap (or NaN) */
+	private double lastAdded;
+	/** Updates of only some hosts, ordered by their time */
+	private PriorityQueue<HostsUpdate> hostsUpdates;
 
 	/**
 	 * Constructor. Creates an empty update queue.
 	 */
 	public ScheduledUpdatesQueue(){
-		this.nextEvent = new ExternalEvent(Double.MAX_VALUE);
-		this.updates = new ArrayList<ExternalEvent>();
+		this.times = new double[INITIAL_CAPACITY];
+		this.size = 0;
+		this.lastAdded = Double.NaN;
+		this.hostsUpdates = new PriorityQueue<HostsUpdate>();
 	}
 
 	/**
@@ -31,16 +53,47 @@ public class ScheduledUpdatesQueue implements EventQueue {
 	 * @return the next scheduled event
 	 */
 	public ExternalEvent nextEvent() {
-		ExternalEvent event = this.nextEvent;
+		if (this.size == 0 && this.hostsUpdates.isEmpty()) {
+			return new ExternalEvent(Double.MAX_VALUE);
+		}
+
+		double time = nextEventsTime();
+		if (this.size == 0 || this.times[0] != time) {
+			return nextHostsUpdate(time);
+		}
+
+		do { // remove all (duplicate) updates with the same time
+			removeFirst();
+		} while (this.size > 0 && this.times[0] == time);
 
-		if (this.updates.size() == 0) {
-			this.nextEvent = new ExternalEvent(Double.MAX_VALUE);
+		if (time == this.lastAdded) {
+			this.lastAdded = Double.NaN; /* not in the heap anymore */
 		}
-		else {
-			this.nextEvent = this.updates.remove(0);
+		/* the update of all hosts covers the host updates */
+		while (!this.hostsUpdates.isEmpty() &&
+				this.hostsUpdates.peek().time == time) {
+			this.hostsUpdates.poll();
 		}
 
-		return event;
+		return new ExternalEvent(time);
+	}
+
+	/**
+	 * Removes the updates of some hosts at the given time and returns them
+	 * merged to one event
+	 * @param time Time of the first host updates
+	 * @return Event that affects all the hosts of the updates
+	 */
+	private ExternalEvent nextHostsUpdate(double time) {
+		int[] hosts = this.hostsUpdates.poll().hosts;
+		while (!this.hostsUpdates.isEmpty() &&
+				this.hostsUpdates.peek().time == time) {
+			int[] more = this.hostsUpdates.poll().hosts;
+			int n = hosts.length;
+			hosts = Arrays.copyOf(hosts, n + more.length);
+			System.arraycopy(more, 0, hosts, n, more.length);
+		}
+		return new HostsUpdateEvent(time, hosts);
 	}
 
 	/**
@@ -49,7 +102,24 @@ public class ScheduledUpdatesQueue implements EventQueue {
 	 * @return the next scheduled event's time
 	 */
 	public double nextEventsTime() {
-		return this.nextEvent.getTime();
+		double time = Double.MAX_VALUE;
+		if (this.size > 0) {
+			time = this.times[0];
+		}
+		if (!this.hostsUpdates.isEmpty() &&
+				this.hostsUpdates.peek().time < time) {
+			time = this.hostsUpdates.peek().time;
+		}
+		return time;
+	}
+
+	/**
+	 * Add a new update request for some hosts at the given time
+	 * @param simTime The time when the update should happen
+	 * @param hosts Addresses of the hosts that should be updated
+	 */
+	public void addUpdate(double simTime, int[] hosts) {
+		this.hostsUpdates.add(new HostsUpdate(simTime, hosts));
 	}
 
 	/**
@@ -57,49 +127,110 @@ public class ScheduledUpdatesQueue implements EventQueue {
 	 * @param simTime The time when the update should happen
 	 */
 	public void addUpdate(double simTime) {
-		ExternalEvent ee = new ExternalEvent(simTime);
-
-		if (ee.compareTo(nextEvent) == 0) { // this event is already next
-			return;
+		if (simTime == this.lastAdded ||
+				(this.size > 0 && simTime == this.times[0])) {
+			return; // update with the given time exists -> no need for new
 		}
-		else if (this.nextEvent.getTime() > simTime) { // new nextEvent
-			putToQueue(this.nextEvent); // put the old nextEvent back to q
-			this.nextEvent = ee;
+		this.lastAdded = simTime;
+
+		if (this.size == this.times.length) {
+			this.times = Arrays.copyOf(this.times, this.size * 2);
 		}
-		else { // given event happens later..
-			putToQueue(ee);
+
+		/* sift the new time up from the end of the heap */
+		int pos = this.size++;
+		while (pos > 0) {
+			int parent = (pos - 1) / 2;
+			if (this.times[parent] <= simTime) {
+				break;
+			}
+			this.times[pos] = this.times[parent];
+			pos = parent;
 		}
+		this.times[pos] = simTime;
 	}
 
 	/**
-	 * Puts a event to the queue in the right place
-	 * @param ee The event to put to the queue
+	 * Removes the first (earliest) time from the heap
 	 */
-	private void putToQueue(ExternalEvent ee) {
-		double eeTime = ee.getTime();
+	private void removeFirst() {
+		double last = this.times[--this.size];
+		int pos = 0;
+		int half = this.size / 2;
 
-		for (int i=0, n=this.updates.size(); i<n; i++) {
-			double time = updates.get(i).getTime();
-			if (time == eeTime) {
-				return; // update with the given time exists -> no need for new
+		/* sift the last time down from the top of the heap */
+		while (pos < half) {
+			int child = 2 * pos + 1;
+			if (child + 1 < this.size &&
+					this.times[child + 1] < this.times[child]) {
+				child++;
 			}
-			else if (eeTime < time) {
-				this.updates.add(i, ee);
-				return;
+			if (last <= this.times[child]) {
+				break;
 			}
+			this.times[pos] = this.times[child];
+			pos = child;
 		}
-
-		/* all existing updates are earlier -> add to the end of the list */
-		this.updates.add(ee);
+		this.times[pos] = last;
 	}
 
 	public String toString() {
-		String times = "updates @ " + this.nextEvent.getTime();
+		double[] sorted = Arrays.copyOf(this.times, this.size);
+		Arrays.sort(sorted);
+		String times = "updates @ " + nextEventsTime();
 
-		for (ExternalEvent ee : this.updates) {
-			times += ", " + ee.getTime();
+		for (int i = 1; i < sorted.length; i++) {
+			if (sorted[i] != sorted[i - 1]) {
+				times += ", " + sorted[i];
+			}
+		}
+
+		if (!this.hostsUpdates.isEmpty()) {
+			times += " (" + this.hostsUpdates.size() + " host updates)";
 		}
 
 		return times;
 	}
+
+	/**
+	 * Update request for some hosts
+	 */
+	private static class HostsUpdate implements Comparable<HostsUpdate>,
+			Serializable {
+		private static final long serialVersionUID = 1L;
+		private final double time;
+		private final int[] hosts;
+
+		public HostsUpdate(double time, int[] hosts) {
+			this.time = time;
+			this.hosts = hosts;
+		}
+
+		public int compareTo(HostsUpdate other) {
+			return Double.compare(this.time, other.time);
+		}
+	}
+
+	/**
+	 * Update event that affects only some hosts
+	 */
+	private static class HostsUpdateEvent extends ExternalEvent {
+		private static final long serialVersionUID = 1L;
+		private final int[] hosts;
+
+		public HostsUpdateEvent(double time, int[] hosts) {
+			super(time);
+			this.hosts = hosts;
+		}
+
+		@Override
+		public int[] getAffectedHosts() {
+			return this.hosts;
+		}
+
+		@Override
+		public String toString() {
+			return "Update @ " + this.time + " of " + Arrays.toString(hosts);
+		}
+	}
 }
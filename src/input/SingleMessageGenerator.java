@@ -7,6 +7,7 @@ import core.Settings;
  */
 public class SingleMessageGenerator
 extends MessageEventGenerator {
+  private static final long serialVersionUID = 1L;
   /**
    * Constructor, initializes the interval between events,
    * and the size of messages generated, as well as number
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package interfaces;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import core.Coord;
+import core.DTNSim;
+import core.NetworkInterface;
+
+/**
+ * <P>
+ * Overlay grid of the world that works like {@link ConnectivityGrid} (same
+ * cells and same near interfaces in the same order) but keeps the cell
+ * contents in flat primitive arrays instead of cell objects, lists and a
+ * hash map. The interfaces are identified by their addresses
+ * ({@link NetworkInterface#getAddress()}). The addresses of the interfaces
+ * of each cell are stored in one shared array, grouped by cell (counting
+ * sort order), with some free slots at the end of every cell. When a cell
+ * runs out of free slots, the whole layout is built again.</P>
+ * <P>
+ * Queries with {@link #findNearInterfaces(NetworkInterface, List)} create no
+ * objects at all. The grid doesn't support the sensing phase of the
+ * parallel host update.</P>
+ */
+public class ArrayConnectivityGrid extends ConnectivityOptimizer {
+	private static final long serialVersionUID = 1L;
+	/** minimum number of free slots every cell gets in a new layout */
+	private static final int MIN_FREE_SLOTS = 2;
+
+	private static HashMap<Integer, ArrayConnectivityGrid> grids;
+
+	/** edge length of the cells */
+	private int cellSize;
+	/** number of cell rows, including an empty row on both sides */
+	private int rows;
+	/** number of cell columns, including an empty column on both sides */
+	private int cols;
+
+	/** the interfaces by their address */
+	private NetworkInterface[] interfaces;
+	/** cell index of each interface (by address), or -1 if not in grid */
+	private int[] cellOf;
+	/** index of each interface (by address) in {@link #members} */
+	private int[] slotOf;
+	/** addresses of the interfaces in the cells, grouped by cell */
+	private int[] members;
+	/** index of each cell's first slot in {@link #members} (and the
+	 * total number of slots as the last value) */
+	private int[] cellStart;
+	/** number of interfaces in each cell */
+	private int[] cellCount;
+	/** number of interfaces in the grid */
+	private int nrofInterfaces;
+
+	static {
+		DTNSim.registerForReset(ArrayConnectivityGrid.class.getCanonicalName());
+		reset();
+	}
+
+	public static void reset() {
+		grids = new HashMap<Integer, ArrayConnectivityGrid>();
+	}
+
+	/**
+	 * Creates a new grid
+	 * @param cellSize Cell's edge's length (must be larger than the largest
+	 * 	radio coverage's diameter)
+	 */
+	private ArrayConnectivityGrid(int cellSize) {
+		this.cellSize = cellSize;
+		this.rows = ConnectivityGrid.getWorldSizeY()/cellSize + 3;
+		this.cols = ConnectivityGrid.getWorldSizeX()/cellSize + 3;
+
+		int nrofCells = this.rows * this.cols;
+		this.cellCount = new int[nrofCells];
+		this.cellStart = new int[nrofCells + 1];
+		this.members = new int[0];
+		this.interfaces = new NetworkInterface[0];
+		this.cellOf = new int[0];
+		this.slotOf = new int[0];
+		layout(-1);
+	}
+
+	/**
+	 * Returns a grid object based on a hash value
+	 * @param key A hash value that separates different interfaces from each
+	 * other
+	 * @param maxRange Maximum range used by the radio technology using this
+	 *  grid.
+	 * @return The grid object for a specific interface
+	 */
+	public static ArrayConnectivityGrid ArrayConnectivityGridFactory(int key,
+			double maxRange) {
+		ArrayConnectivityGrid grid = grids.get(key);
+		if (grid == null) {
+			grid = new ArrayConnectivityGrid(
+					ConnectivityGrid.getCellSize(maxRange));
+			grids.put(key, grid);
+		}
+		return grid;
+	}
+
+	/**
+	 * Adds a network interface to the grid (unless it is already there)
+	 * @param ni The new network interface
+	 */
+	public void addInterface(NetworkInterface ni) {
+		int address = ni.getAddress();
+		ensureCapacity(address + 1);
+		if (this.cellOf[address] >= 0) {
+			return;
+		}
+		this.interfaces[address] = ni;
+		insert(address, cellIndex(ni.getLocation()));
+		this.nrofInterfaces++;
+	}
+
+	/**
+	 * Removes a network interface from the grid
+	 * @param ni The interface to be removed
+	 */
+	public void removeInterface(NetworkInterface ni) {
+		int address = ni.getAddress();
+		if (!contains(address)) {
+			return;
+		}
+		remove(address);
+		this.interfaces[address] = null;
+		this.nrofInterfaces--;
+	}
+
+	/**
+	 * Adds interfaces to the grid
+	 * @param interfaces Collection of interfaces to add
+	 */
+	public void addInterfaces(Collection<NetworkInterface> interfaces) {
+		for (NetworkInterface ni : interfaces) {
+			addInterface(ni);
+		}
+	}
+
+	/**
+	 * Checks and updates (if necessary) interface's position in the grid
+	 * @param ni The interface to update
+	 */
+	public void updateLocation(NetworkInterface ni) {
+		int address = ni.getAddress();
+		int cell = cellIndex(ni.getLocation());
+		if (this.cellOf[address] != cell) {
+			remove(address);
+			insert(address, cell);
+		}
+	}
+
+	/**
+	 * Returns all interfaces of the grid, ordered by their address
+	 */
+	public Collection<NetworkInterface> getAllInterfaces() {
+		List<NetworkInterface> all =
+			new ArrayList<NetworkInterface>(this.nrofInterfaces);
+		for (NetworkInterface ni : this.interfaces) {
+			if (ni != null) {
+				all.add(ni);
+			}
+		}
+		return all;
+	}
+
+	/**
+	 * Returns all interfaces that are "near" (i.e., in neighboring grid cells)
+	 * and use the same technology and channel as the given interface
+	 * @param ni The interface whose neighboring interfaces are returned
+	 * @return List of near interfaces
+	 */
+	public Collection<NetworkInterface> getNearInterfaces(
+			NetworkInterface ni) {
+		List<NetworkInterface> near = new ArrayList<NetworkInterface>();
+		findNearInterfaces(ni, near);
+		return near;
+	}
+
+	@Override
+	public void findNearInterfaces(NetworkInterface ni,
+			List<NetworkInterface> found) {
+		if (!contains(ni.getAddress())) {
+			return;
+		}
+
+		Coord c = ni.getLocation();
+		int row = row(c);
+		int col = col(c);
+		int lastRow = Math.min(this.rows - 1, row + 1);
+		int lastCol = Math.min(this.cols - 1, col + 1);
+		for (int r = Math.max(0, row - 1); r <= lastRow; r++) {
+			for (int k = Math.max(0, col - 1); k <= lastCol; k++) {
+				int cell = r * this.cols + k;
+				int start = this.cellStart[cell];
+				int end = start + this.cellCount[cell];
+				for (int i = start; i < end; i++) {
+					found.add(this.interfaces[this.members[i]]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the interface with the given address is in the grid
+	 */
+	private boolean contains(int address) {
+		return address < this.cellOf.length && this.cellOf[address] >= 0;
+	}
+
+	/**
+	 * Adds an interface to the end of a cell
+	 * @param address Address of the interface
+	 * @param cell Index of the cell
+	 */
+	private void insert(int address, int cell) {
+		if (this.cellStart[cell] + this.cellCount[cell] ==
+				this.cellStart[cell + 1]) {
+			layout(cell); /* no free slots left in the cell */
+		}
+		int slot = this.cellStart[cell] + this.cellCount[cell]++;
+		this.members[slot] = address;
+		this.slotOf[address] = slot;
+		this.cellOf[address] = cell;
+	}
+
+	/**
+	 * Removes an interface from its cell, keeping the order of the rest
+	 * of the cell's interfaces
+	 * @param address Address of the interface
+	 */
+	private void remove(int address) {
+		int cell = this.cellOf[address];
+		int last = this.cellStart[cell] + --this.cellCount[cell];
+		for (int i = this.slotOf[address]; i < last; i++) {
+			this.members[i] = this.members[i + 1];
+			this.slotOf[this.members[i]] = i;
+		}
+		this.cellOf[address] = -1;
+	}
+
+	/**
+	 * Lays the cells out again to a new members array. Every cell gets free
+	 * slots for at least half of its current interfaces (or
+	 * {@link #MIN_FREE_SLOTS}), and the full cell for as many interfaces as
+	 * it has now.
+	 * @param fullCell Index of the cell that ran out of free slots (or -1)
+	 */
+	private void layout(int fullCell) {
+		int nrofCells = this.cellCount.length;
+		int[] start = new int[nrofCells + 1];
+		for (int c = 0; c < nrofCells; c++) {
+			int count = this.cellCount[c];
+			int free = Math.max(MIN_FREE_SLOTS, count / 2);
+			if (c == fullCell) {
+				free = Math.max(free, count);
+			}
+			start[c + 1] = start[c] + count + free;
+		}
+
+		int[] newMembers = new int[start[nrofCells]];
+		for (int c = 0; c < nrofCells; c++) {
+			int from = this.cellStart[c];
+			int to = start[c];
+			for (int i = 0; i < this.cellCount[c]; i++) {
+				int address = this.members[from + i];
+				newMembers[to + i] = address;
+				this.slotOf[address] = to + i;
+			}
+		}
+		this.members = newMembers;
+		this.cellStart = start;
+	}
+
+	/**
+	 * Makes sure that the per interface arrays have room for the given
+	 * number of addresses
+	 * @param size The number of addresses
+	 */
+	private void ensureCapacity(int size) {
+		int oldSize = this.cellOf.length;
+		if (size <= oldSize) {
+			return;
+		}
+		int newSize = Math.max(size, oldSize * 2);
+		this.interfaces = Arrays.copyOf(this.interfaces, newSize);
+		this.slotOf = Arrays.copyOf(this.slotOf, newSize);
+		this.cellOf = Arrays.copyOf(this.cellOf, newSize);
+		Arrays.fill(this.cellOf, oldSize, newSize, -1);
+	}
+
+	/**
+	 * Returns the index of the cell of a location (locations outside the
+	 * world are in the nearest border cell)
+	 * @param c The location
+	 * @return Index of the cell
+	 */
+	private int cellIndex(Coord c) {
+		return row(c) * this.cols + col(c);
+	}
+
+	private int row(Coord c) {
+		// +1 due empty cells on both sides of the grid
+		int row = (int)(c.getY()/this.cellSize) + 1;
+		return Math.max(0, Math.min(this.rows - 1, row));
+	}
+
+	private int col(Coord c) {
+		int col = (int)(c.getX()/this.cellSize) + 1;
+		return Math.max(0, Math.min(this.cols - 1, col));
+	}
+
+	/**
+	 * Returns a string representation of the grid
+	 * @return a string representation of the grid
+	 */
+	public String toString() {
+		return getClass().getSimpleName() + " of size " +
+			(this.cols - 2) + "x" + (this.rows - 2) + ", cell size=" +
+			this.cellSize;
+	}
+}
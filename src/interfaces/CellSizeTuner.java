@@ -0,0 +1,173 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package interfaces;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+
+import core.Coord;
+import core.NetworkInterface;
+
+/**
+ * Chooses the cell size of the searches of a {@link ConnectivityGrid} that
+ * tunes its cell size automatically. The grid reports its queries. Every
+ * tuning interval, the tuner builds the occupancy histogram of the cells
+ * for every allowed cell size and estimates the cost of an update round with each size: the candidates the
+ * queries would check plus the cells the grid's snapshot goes through
+ * (which get more numerous as the cells shrink). The cheapest size is
+ * chosen if it is clearly cheaper than the current one. The chosen size
+ * doesn't change the results of the grid, only the time they take.
+ */
+class CellSizeTuner implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/** step between the range multipliers that are tried */
+	private static final double MULT_STEP = 0.5;
+	/** cost of a cell in the snapshot, in candidate checks */
+	private static final double CELL_COST = 0.25;
+	/** the new size must reduce the cost at least this much (relative) */
+	private static final double MIN_IMPROVEMENT = 0.1;
+	/** largest number of cells a grid may have */
+	private static final long MAX_CELLS = 1000000;
+
+	private double minMult;
+	private double maxMult;
+	private int interval;
+
+	private int rounds;
+	private long queries;
+
+	/**
+	 * Constructor.
+	 * @param minMult Smallest allowed cell size (as a multiple of the range)
+	 * @param maxMult Largest allowed cell size (as a multiple of the range)
+	 * @param interval Number of update rounds between the tunings
+	 */
+	CellSizeTuner(double minMult, double maxMult, int interval) {
+		this.minMult = minMult;
+		this.maxMult = maxMult;
+		this.interval = interval;
+	}
+
+	/**
+	 * Counts a query of the grid
+	 */
+	void countQuery() {
+		this.queries++;
+	}
+
+	/**
+	 * Counts an update round
+	 * @return True if it is time to tune the cell size
+	 */
+	boolean nextRound() {
+		return ++this.rounds >= this.interval;
+	}
+
+	/**
+	 * Chooses the cell size for the next tuning interval and starts
+	 * collecting the statistics of the interval
+	 * @param interfaces The interfaces of the grid
+	 * @param maxRange The largest range of the interfaces
+	 * @param cellSize The current cell size
+	 * @return The chosen cell size
+	 */
+	int chooseCellSize(Collection<NetworkInterface> interfaces,
+			double maxRange, int cellSize) {
+		double queriesPerRound = this.queries / (double)this.rounds;
+		this.rounds = 0;
+		this.queries = 0;
+		if (interfaces.isEmpty() || queriesPerRound == 0) {
+			return cellSize;
+		}
+
+		double currentCost = cost(interfaces, cellSize, queriesPerRound);
+		int bestSize = cellSize;
+		double bestCost = currentCost;
+		for (double m = this.minMult; m <= this.maxMult; m += MULT_STEP) {
+			int size = (int)Math.ceil(m * maxRange);
+			if (size == cellSize || nrofCells(size) > MAX_CELLS) {
+				continue;
+			}
+			double cost = cost(interfaces, size, queriesPerRound);
+			if (cost < bestCost) {
+				bestSize = size;
+				bestCost = cost;
+			}
+		}
+		if (bestCost > (1 - MIN_IMPROVEMENT) * currentCost) {
+			return cellSize;
+		}
+		return bestSize;
+	}
+
+	/**
+	 * Estimates the cost of an update round with the given cell size
+	 * @param interfaces The interfaces of the grid
+	 * @param size The cell size
+	 * @param queriesPerRound Measured queries per round
+	 * @return The cost
+	 */
+	private double cost(Collection<NetworkInterface> interfaces, int size,
+			double queriesPerRound) {
+		HashMap<Long, int[]> cells = histogram(interfaces, size);
+		long total = 0;
+		for (NetworkInterface ni : interfaces) {
+			Coord c = ni.getLocation();
+			long row = row(c, size);
+			long col = col(c, size);
+			for (long r = row - 1; r <= row + 1; r++) {
+				for (long k = col - 1; k <= col + 1; k++) {
+					int[] count = cells.get(key(r, k));
+					if (count != null) {
+						total += count[0];
+					}
+				}
+			}
+		}
+		double candidatesPerQuery = total / (double)interfaces.size();
+		return candidatesPerQuery * queriesPerRound +
+			CELL_COST * nrofCells(size);
+	}
+
+	/**
+	 * Returns the number of interfaces in each non-empty cell
+	 * @param interfaces The interfaces
+	 * @param size The cell size
+	 * @return The counts by cell key
+	 */
+	private HashMap<Long, int[]> histogram(
+			Collection<NetworkInterface> interfaces, int size) {
+		HashMap<Long, int[]> cells = new HashMap<Long, int[]>();
+		for (NetworkInterface ni : interfaces) {
+			Coord c = ni.getLocation();
+			Long key = key(row(c, size), col(c, size));
+			int[] count = cells.get(key);
+			if (count == null) {
+				count = new int[1];
+				cells.put(key, count);
+			}
+			count[0]++;
+		}
+		return cells;
+	}
+
+	private long nrofCells(int size) {
+		return (ConnectivityGrid.getWorldSizeY() / size + 3L) *
+			(ConnectivityGrid.getWorldSizeX() / size + 3L);
+	}
+
+	private static long row(Coord c, int size) {
+		return (long)(c.getY() / size);
+	}
+
+	private static long col(Coord c, int size) {
+		return (long)(c.getX() / size);
+	}
+
+	private static Long key(long row, long col) {
+		return (row << 32) + col;
+	}
+}
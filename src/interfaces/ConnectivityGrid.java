@@ -4,15 +4,21 @@
  */
 package interfaces;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 
 import movement.MovementModel;
 
 import core.Coord;
 import core.DTNSim;
 import core.NetworkInterface;
+import core.PositionStore;
 import core.Settings;
 import core.SettingsError;
 import core.World;
@@ -35,11 +41,31 @@ import core.World;
  * connectivity.
  * </P>
  * <P>
+ * If {@link #VERLET_SKIN_S} is set, the grid works in Verlet list mode:
+ * every interface has a cached list of the interfaces that were within its
+ * range plus the skin distance when the lists were built, and the near
+ * interfaces are returned from that list. The lists are built again when
+ * some interface has moved more than half of the skin distance since the
+ * last build, so no interface that is within range can be missing from
+ * the lists.
+ * </P>
+ * <P>
+ * If {@link #AUTO_CELL_SIZE_S} is set, the near interfaces are searched
+ * from the snapshot of the interfaces' current cells (see
+ * {@link #prepareSensing()}), which is built before every update round
+ * with a cell size that is tuned periodically (see {@link CellSizeTuner})
+ * within the bounds of {@link #AUTO_CELL_SIZE_BOUNDS_S}. Only the
+ * interfaces within range are returned, but they are the ones that the
+ * (untuned) cells would return and in the same order, so the results
+ * don't depend on the tuning.
+ * </P>
+ * <P>
  * <strong>Note:</strong> this class does NOT support negative
  * coordinates. Also, it makes sense to normalize the coordinates to start
  * from zero to conserve memory.
  */
 public class ConnectivityGrid extends ConnectivityOptimizer {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Cell based optimization cell size multiplier -setting id ({@value}).
@@ -51,17 +77,115 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	 * Smallest accepted value is 1.
 	 */
 	public static final String CELL_SIZE_MULT_S = "cellSizeMult";
+	/**
+	 * Verlet list skin distance -setting id ({@value}). Used in
+	 * {@link World#OPTIMIZATION_SETTINGS_NS} name space. If larger than
+	 * zero, the grids work in Verlet list mode (see the class description)
+	 * and cache the interfaces within range plus this distance. Larger
+	 * values make the lists longer but need fewer rebuilds. Default is 0
+	 * (Verlet lists are not used).
+	 */
+	public static final String VERLET_SKIN_S = "verletSkin";
+	/**
+	 * Automatic cell size -setting id ({@value}). Used in
+	 * {@link World#OPTIMIZATION_SETTINGS_NS} name space. Boolean. If true,
+	 * the grids tune the cell size of their searches during the simulation
+	 * (see the class description). Default is false.
+	 */
+	public static final String AUTO_CELL_SIZE_S = "autoCellSize";
+	/**
+	 * Automatic cell size bounds -setting id ({@value}). Used in
+	 * {@link World#OPTIMIZATION_SETTINGS_NS} name space. The smallest and
+	 * largest cell size as multiples of the range (comma separated
+	 * decimal values, the smallest at least 1). Default is
+	 * {@link #DEF_AUTO_CELL_SIZE_BOUNDS}.
+	 */
+	public static final String AUTO_CELL_SIZE_BOUNDS_S = "autoCellSizeBounds";
+	/** default value for the automatic cell size bounds */
+	public static final double[] DEF_AUTO_CELL_SIZE_BOUNDS = {1, 10};
+	/**
+	 * Automatic cell size tuning interval -setting id ({@value}). Used in
+	 * {@link World#OPTIMIZATION_SETTINGS_NS} name space. Number of update
+	 * rounds between the tunings. Default is
+	 * {@link #DEF_AUTO_CELL_SIZE_INTERVAL}.
+	 */
+	public static final String AUTO_CELL_SIZE_INTERVAL_S =
+		"autoCellSizeInterval";
+	/** default value for the automatic cell size tuning interval ({@value}) */
+	public static final int DEF_AUTO_CELL_SIZE_INTERVAL = 100;
 	/** default value for cell size multiplier ({@value}) */
 	public static final int DEF_CON_CELL_SIZE_MULT = 5;
 
 	private GridCell[][] cells;
 	private HashMap<NetworkInterface, GridCell> ginterfaces;
+	/** the interfaces of the grid in the order they were added */
+	private ArrayList<NetworkInterface> interfaceOrder;
 	private int cellSize;
 	private int rows;
 	private int cols;
 	private static int worldSizeX;
 	private static int worldSizeY;
 	private static int cellSizeMultiplier;
+	private static double verletSkin;
+	private static boolean autoCellSize;
+	private static double[] autoCellSizeBounds;
+	private static int autoCellSizeInterval;
+
+	/** the largest range of the interfaces using the grid */
+	private double maxRange;
+	/** tuner of the snapshot's cell size (null if the size is not tuned) */
+	private CellSizeTuner tuner;
+	/** the order in which the interfaces entered their current cells
+	 * (kept only when the cell size is tuned) */
+	private HashMap<NetworkInterface, Long> cellEntries;
+	/** the number of times interfaces have entered cells */
+	private long nrofCellEntries;
+	/** sort keys of the near interfaces found with a tuned cell size */
+	private long[] nearKeys;
+
+	/** cell size of the snapshot of {@link #senseOrder} */
+	private int senseCellSize;
+	/** number of rows of the snapshot (without the empty rows) */
+	private int senseRows;
+	/** number of columns of the snapshot (without the empty columns) */
+	private int senseCols;
+
+	/** interfaces ordered by their current cell (for sensing) */
+	private NetworkInterface[] senseOrder;
+	/** index of each cell's first interface in {@link #senseOrder} */
+	private int[] senseCellStart;
+	/** number of interfaces put to each cell of {@link #senseOrder} */
+	private int[] senseCellFill;
+	/** cell index of each interface of {@link #interfaceOrder} */
+	private int[] senseCellOf;
+	/** cell index of each interface of {@link #senseOrder} */
+	private int[] senseCellSorted;
+	/** largest sense range of the interfaces in the last sensing round */
+	private double senseMaxRange;
+	/** x coordinates of the interfaces in {@link #senseOrder} */
+	private double[] senseX;
+	/** y coordinates of the interfaces in {@link #senseOrder} */
+	private double[] senseY;
+	/** sense ranges of the interfaces in {@link #senseOrder} */
+	private double[] senseRange;
+	/** indexes found by the (single threaded) batch range checks */
+	private int[] senseFound;
+
+	/** the Verlet lists (interfaces within range plus skin), or null if
+	 * the lists need to be built */
+	private HashMap<NetworkInterface, ArrayList<NetworkInterface>> verletLists;
+	/** locations of the interfaces when the Verlet lists were built */
+	private HashMap<NetworkInterface, Coord> verletOrigins;
+	/** the range (without the skin) the Verlet lists were built for */
+	private double verletRange;
+
+	/** orders interfaces by their address */
+	private static final Comparator<NetworkInterface> ADDRESS_ORDER =
+		new Comparator<NetworkInterface>() {
+			public int compare(NetworkInterface n1, NetworkInterface n2) {
+				return n1.getAddress() - n2.getAddress();
+			}
+		};
 
 	static HashMap<Integer,ConnectivityGrid> gridobjects;
 
@@ -90,14 +214,91 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 					") for " + World.OPTIMIZATION_SETTINGS_NS +
 					"." + CELL_SIZE_MULT_S);
 		}
+		verletSkin = s.getDouble(VERLET_SKIN_S, 0);
+		if (verletSkin < 0) {
+			throw new SettingsError("Negative value (" + verletSkin +
+					") for " + World.OPTIMIZATION_SETTINGS_NS +
+					"." + VERLET_SKIN_S);
+		}
+
+		autoCellSize = s.getBoolean(AUTO_CELL_SIZE_S, false);
+		autoCellSizeBounds = DEF_AUTO_CELL_SIZE_BOUNDS;
+		if (s.contains(AUTO_CELL_SIZE_BOUNDS_S)) {
+			autoCellSizeBounds = s.getCsvDoubles(AUTO_CELL_SIZE_BOUNDS_S, 2);
+		}
+		if (autoCellSizeBounds[0] < 1 ||
+				autoCellSizeBounds[1] < autoCellSizeBounds[0]) {
+			throw new SettingsError("Invalid bounds for " +
+					World.OPTIMIZATION_SETTINGS_NS + "." +
+					AUTO_CELL_SIZE_BOUNDS_S + ": the smallest must be at " +
+					"least 1 and the largest at least the smallest");
+		}
+		autoCellSizeInterval = s.getInt(AUTO_CELL_SIZE_INTERVAL_S,
+				DEF_AUTO_CELL_SIZE_INTERVAL);
+		if (autoCellSizeInterval < 1) {
+			throw new SettingsError("Too small value (" +
+					autoCellSizeInterval + ") for " +
+					World.OPTIMIZATION_SETTINGS_NS + "." +
+					AUTO_CELL_SIZE_INTERVAL_S);
+		}
+	}
+
+	/**
+	 * Returns the size of the cells of a grid for interfaces with the given
+	 * maximum range (the range times the cell size multiplier)
+	 * @param maxRange The maximum range
+	 * @return The cell size
+	 */
+	static int getCellSize(double maxRange) {
+		return (int)Math.ceil(maxRange * cellSizeMultiplier);
+	}
+
+	/**
+	 * Returns the width of the world covered by the grids
+	 * @return The width
+	 */
+	static int getWorldSizeX() {
+		return worldSizeX;
+	}
+
+	/**
+	 * Returns the height of the world covered by the grids
+	 * @return The height
+	 */
+	static int getWorldSizeY() {
+		return worldSizeY;
 	}
 
 	/**
 	 * Creates a new overlay connectivity grid
+	 * @param maxRange Maximum range used by the radio technology using this
+	 *  connectivity grid.
+	 */
+	private ConnectivityGrid(double maxRange) {
+		int cellSize = getCellSize(maxRange);
+		this.maxRange = maxRange;
+		createCells(cellSize);
+		setSenseCellSize(cellSize);
+		if (autoCellSize) {
+			this.tuner = new CellSizeTuner(autoCellSizeBounds[0],
+					autoCellSizeBounds[1], autoCellSizeInterval);
+			this.cellEntries = new HashMap<NetworkInterface, Long>();
+			cellSize = Math.max(cellSize,
+					(int)Math.ceil(maxRange * autoCellSizeBounds[0]));
+			cellSize = Math.min(cellSize,
+					(int)Math.ceil(maxRange * autoCellSizeBounds[1]));
+			setSenseCellSize(cellSize);
+		}
+		ginterfaces = new HashMap<NetworkInterface,GridCell>();
+		interfaceOrder = new ArrayList<NetworkInterface>();
+	}
+
+	/**
+	 * Creates the (empty) cells of the grid
 	 * @param cellSize Cell's edge's length (must be larger than the largest
 	 * 	radio coverage's diameter)
 	 */
-	private ConnectivityGrid(int cellSize) {
+	private void createCells(int cellSize) {
 		this.rows = worldSizeY/cellSize + 1;
 		this.cols = worldSizeX/cellSize + 1;
 		// leave empty cells on both sides to make neighbor search easier
@@ -106,10 +307,21 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 
 		for (int i=0; i<rows+2; i++) {
 			for (int j=0; j<cols+2; j++) {
-				this.cells[i][j] = new GridCell();
+				this.cells[i][j] = new GridCell(i, j);
 			}
 		}
-		ginterfaces = new HashMap<NetworkInterface,GridCell>();
+	}
+
+	/**
+	 * Sets the cell size of the snapshot of the interfaces' cells (see
+	 * {@link #prepareSensing()}). The new size is used from the next
+	 * snapshot on.
+	 * @param cellSize The new cell size
+	 */
+	private void setSenseCellSize(int cellSize) {
+		this.senseRows = worldSizeY/cellSize + 1;
+		this.senseCols = worldSizeX/cellSize + 1;
+		this.senseCellSize = cellSize;
 	}
 
 	/**
@@ -124,9 +336,7 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		if (gridobjects.containsKey((Integer)key)) {
 			return (ConnectivityGrid)gridobjects.get((Integer)key);
 		} else {
-			ConnectivityGrid newgrid =
-				new ConnectivityGrid((int)Math.ceil(maxRange *
-						cellSizeMultiplier));
+			ConnectivityGrid newgrid = new ConnectivityGrid(maxRange);
 			gridobjects.put((Integer)key,newgrid);
 			return newgrid;
 		}
@@ -139,7 +349,13 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	public void addInterface(NetworkInterface ni) {
 		GridCell c = cellFromCoord(ni.getLocation());
 		c.addInterface(ni);
-		ginterfaces.put(ni,c);
+		if (ginterfaces.put(ni,c) == null) {
+			interfaceOrder.add(ni);
+		}
+		if (cellEntries != null) {
+			cellEntries.put(ni, nrofCellEntries++);
+		}
+		verletLists = null;
 	}
 
 	/**
@@ -151,7 +367,13 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		if (c != null) {
 			c.removeInterface(ni);
 		}
-		ginterfaces.remove(ni);
+		if (ginterfaces.remove(ni) != null) {
+			interfaceOrder.remove(ni);
+		}
+		if (cellEntries != null) {
+			cellEntries.remove(ni);
+		}
+		verletLists = null;
 	}
 
 	/**
@@ -175,6 +397,9 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		if (newCell != oldCell) {
 			oldCell.moveInterface(ni, newCell);
 			ginterfaces.put(ni,newCell);
+			if (cellEntries != null) {
+				cellEntries.put(ni, nrofCellEntries++);
+			}
 		}
 	}
 
@@ -222,10 +447,11 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	}
 
 	/**
-	 * Returns all interfaces that use the same technology and channel
+	 * Returns all interfaces that use the same technology and channel, in
+	 * the order they were added
 	 */
 	public Collection<NetworkInterface> getAllInterfaces() {
-		return (Collection<NetworkInterface>)ginterfaces.keySet();
+		return Collections.unmodifiableList(interfaceOrder);
 	}
 
 	/**
@@ -239,6 +465,10 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		ArrayList<NetworkInterface> niList = new ArrayList<NetworkInterface>();
 		GridCell loc = (GridCell)ginterfaces.get(ni);
 
+		if (loc != null && (findVerletNeighbors(ni, niList) ||
+				findInRange(ni, niList))) {
+			return niList;
+		}
 		if (loc != null) {
 			GridCell[] neighbors =
 				getNeighborCellsByCoord(ni.getLocation());
@@ -250,6 +480,405 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		return niList;
 	}
 
+	/**
+	 * Adds the interfaces that are "near" the given interface (see
+	 * {@link #getNearInterfaces(NetworkInterface)}) to the given list
+	 * without creating any temporary objects
+	 * @param ni The interface whose neighboring interfaces are found
+	 * @param found List where the near interfaces are added to
+	 */
+	@Override
+	public void findNearInterfaces(NetworkInterface ni,
+			List<NetworkInterface> found) {
+		if (!ginterfaces.containsKey(ni) || findVerletNeighbors(ni, found) ||
+				findInRange(ni, found)) {
+			return;
+		}
+
+		Coord c = ni.getLocation();
+		// +1 due empty cells on both sides of the matrix
+		int row = (int)(c.getY()/cellSize) + 1;
+		int col = (int)(c.getX()/cellSize) + 1;
+		for (int r = row - 1; r <= row + 1; r++) {
+			for (int k = col - 1; k <= col + 1; k++) {
+				ArrayList<NetworkInterface> list = cells[r][k].interfaces;
+				for (int i=0, n=list.size(); i < n; i++) {
+					found.add(list.get(i));
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Checks, in Verlet list mode, if some interface has moved more than
+	 * half of the skin distance since the Verlet lists were built, and
+	 * builds the lists again if so. If the cell size is tuned, tunes it
+	 * when it is time for it and builds the snapshot of the interfaces'
+	 * cells for the round's searches.
+	 */
+	@Override
+	public void prepareUpdate() {
+		if (tuner != null) {
+			if (tuner.nextRound()) {
+				setSenseCellSize(tuner.chooseCellSize(interfaceOrder, maxRange,
+						senseCellSize));
+			}
+			prepareSensing();
+		}
+		if (verletSkin <= 0 || verletLists == null) {
+			return;
+		}
+		for (NetworkInterface ni : interfaceOrder) {
+			if (ni.getLocation().distance(verletOrigins.get(ni)) >
+					verletSkin / 2) {
+				buildVerletLists(verletRange);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Adds, when the cell size is tuned, the interfaces that are within the
+	 * interface's range to the given list. The interfaces are searched from
+	 * the snapshot of the current cells, but only the interfaces that are
+	 * in the (untuned) cells next to the interface's location are added,
+	 * in the order those cells would give them: by the cell and then by
+	 * the order in which the interfaces entered the cell.
+	 * @param ni The interface whose neighbors are found
+	 * @param found List where the neighbors are added to
+	 * @return True if the neighbors were added, false if the cell size is
+	 * not tuned
+	 */
+	private boolean findInRange(NetworkInterface ni,
+			List<NetworkInterface> found) {
+		if (tuner == null) {
+			return false;
+		}
+		if (senseOrder == null || senseOrder.length != interfaceOrder.size()) {
+			prepareSensing(); /* interfaces added after the round started */
+		}
+
+		Coord c = ni.getLocation();
+		double range = ni.getSenseRange();
+		// +1 due empty cells on both sides of the matrix
+		int cellRow = (int)(c.getY()/cellSize) + 1;
+		int cellCol = (int)(c.getX()/cellSize) + 1;
+		int reach = Math.max(1, (int)Math.ceil(range / senseCellSize));
+		int row = senseRow(c);
+		int col = senseCol(c);
+		int lastRow = Math.min(senseRows + 1, row + reach);
+		int firstCol = Math.max(0, col - reach);
+		int lastCol = Math.min(senseCols + 1, col + reach);
+		int start = found.size();
+		for (int r = Math.max(0, row - reach); r <= lastRow; r++) {
+			int rowBase = r * (senseCols + 2);
+			int from = senseCellStart[rowBase + firstCol];
+			int to = senseCellStart[rowBase + lastCol + 1];
+			int count = PositionStore.findInRange(c.getX(), c.getY(), range,
+					senseX, senseY, null, from, to, senseFound);
+			for (int i=0; i < count; i++) {
+				NetworkInterface other = senseOrder[senseFound[i]];
+				GridCell cell = ginterfaces.get(other);
+				int dr = cell.row - cellRow + 1;
+				int dc = cell.col - cellCol + 1;
+				if (dr < 0 || dr > 2 || dc < 0 || dc > 2) {
+					continue; /* not in the cells next to the location */
+				}
+				long key = ((long)(dr * 3 + dc) << 56) +
+					cellEntries.get(other);
+				addInKeyOrder(found, start, other, key);
+			}
+		}
+		tuner.countQuery();
+		return true;
+	}
+
+	/**
+	 * Inserts an interface to the given list so that the interfaces after
+	 * the start index stay in the order of their keys
+	 * @param found The list
+	 * @param start Index of the first interface in key order
+	 * @param ni The interface to insert
+	 * @param key The key of the interface
+	 */
+	private void addInKeyOrder(List<NetworkInterface> found, int start,
+			NetworkInterface ni, long key) {
+		int n = found.size() - start;
+		if (nearKeys == null || nearKeys.length == n) {
+			nearKeys = Arrays.copyOf(nearKeys == null ? new long[0] : nearKeys,
+					Math.max(16, 2 * n));
+		}
+		int j = n;
+		found.add(ni);
+		for (; j > 0 && nearKeys[j - 1] > key; j--) {
+			nearKeys[j] = nearKeys[j - 1];
+			found.set(start + j, found.get(start + j - 1));
+		}
+		nearKeys[j] = key;
+		found.set(start + j, ni);
+	}
+
+	/**
+	 * Adds the interface's Verlet neighbors to the given list, building the
+	 * lists first if needed
+	 * @param ni The interface whose neighbors are found
+	 * @param found List where the neighbors are added to
+	 * @return True if the neighbors were added, false if Verlet lists are
+	 * not used
+	 */
+	private boolean findVerletNeighbors(NetworkInterface ni,
+			List<NetworkInterface> found) {
+		if (verletSkin <= 0) {
+			return false;
+		}
+		if (verletLists == null || ni.getSenseRange() > verletRange) {
+			/* no lists yet or they don't cover the current range */
+			buildVerletLists(ni.getSenseRange());
+		}
+		found.addAll(verletLists.get(ni));
+		return true;
+	}
+
+	/**
+	 * Builds the Verlet lists of all interfaces from their current
+	 * locations. The lists are in the order of the interfaces' addresses.
+	 * @param minRange Smallest range the lists must cover (in addition to
+	 * the interfaces' current sense ranges)
+	 */
+	private void buildVerletLists(double minRange) {
+		if (verletLists == null) {
+			verletLists =
+				new HashMap<NetworkInterface, ArrayList<NetworkInterface>>();
+			verletOrigins = new HashMap<NetworkInterface, Coord>();
+		}
+		prepareSensing();
+		verletRange = Math.max(senseMaxRange, Math.max(minRange,
+				verletRange));
+		double radius = verletRange + verletSkin;
+		int reach = Math.max(1, (int)Math.ceil(radius / senseCellSize));
+
+		for (NetworkInterface ni : senseOrder) {
+			ArrayList<NetworkInterface> list = verletLists.get(ni);
+			if (list == null) {
+				list = new ArrayList<NetworkInterface>();
+				verletLists.put(ni, list);
+			}
+			list.clear();
+			Coord loc = ni.getLocation();
+			verletOrigins.put(ni, loc.clone());
+
+			int row = senseRow(loc);
+			int col = senseCol(loc);
+			int lastRow = Math.min(senseRows + 1, row + reach);
+			int firstCol = Math.max(0, col - reach);
+			int lastCol = Math.min(senseCols + 1, col + reach);
+			for (int r = Math.max(0, row - reach); r <= lastRow; r++) {
+				int rowBase = r * (senseCols + 2);
+				int count = PositionStore.findInRange(loc.getX(), loc.getY(),
+						radius, senseX, senseY, null,
+						senseCellStart[rowBase + firstCol],
+						senseCellStart[rowBase + lastCol + 1], senseFound);
+				for (int i=0; i < count; i++) {
+					list.add(senseOrder[senseFound[i]]);
+				}
+			}
+			Collections.sort(list, ADDRESS_ORDER);
+		}
+	}
+
+	/**
+	 * Builds a snapshot of the interfaces' current cells. Unlike the cells
+	 * used by {@link #getNearInterfaces(NetworkInterface)}, which are updated
+	 * only when the interface itself is updated, the snapshot uses the
+	 * current locations of all interfaces. The locations and sense ranges
+	 * are copied to arrays in the snapshot's order (from the
+	 * {@link PositionStore}, if it is enabled), so the range checks of a
+	 * cell row go through consecutive memory. The interfaces are sorted in
+	 * the order they were added to the grid, and the arrays are reused
+	 * from round to round unless the number of interfaces or cells changes.
+	 */
+	@Override
+	public void prepareSensing() {
+		int nrofCells = (senseRows + 2) * (senseCols + 2);
+		int n = interfaceOrder.size();
+
+		if (senseCellStart == null || senseCellStart.length != nrofCells + 1) {
+			senseCellStart = new int[nrofCells + 1];
+			senseCellFill = new int[nrofCells];
+		} else {
+			Arrays.fill(senseCellStart, 0);
+			Arrays.fill(senseCellFill, 0);
+		}
+		if (senseOrder == null || senseOrder.length != n) {
+			senseOrder = new NetworkInterface[n];
+			senseCellOf = new int[n];
+			senseCellSorted = new int[n];
+			senseX = new double[n];
+			senseY = new double[n];
+			senseRange = new double[n];
+			senseFound = new int[n];
+		}
+
+		/* counting sort of the interfaces by their cell index */
+		senseMaxRange = 0;
+		for (int i=0; i < n; i++) {
+			NetworkInterface ni = interfaceOrder.get(i);
+			senseCellOf[i] = senseCellIndex(ni.getLocation());
+			senseCellStart[senseCellOf[i] + 1]++;
+			if (ni.getSenseRange() > senseMaxRange) {
+				senseMaxRange = ni.getSenseRange();
+			}
+		}
+		for (int c=0; c < nrofCells; c++) {
+			senseCellStart[c + 1] += senseCellStart[c];
+		}
+		boolean stored = PositionStore.isEnabled();
+		for (int i=0; i < n; i++) {
+			int c = senseCellOf[i];
+			int j = senseCellStart[c] + senseCellFill[c]++;
+			NetworkInterface ni = interfaceOrder.get(i);
+			senseOrder[j] = ni;
+			senseCellSorted[j] = c;
+			if (stored) {
+				int address = ni.getHost().getAddress();
+				senseX[j] = PositionStore.getX(address);
+				senseY[j] = PositionStore.getY(address);
+			} else {
+				senseX[j] = ni.getLocation().getX();
+				senseY[j] = ni.getLocation().getY();
+			}
+			senseRange[j] = ni.getSenseRange();
+		}
+	}
+
+	@Override
+	public boolean senseNearInterfaces(NetworkInterface ni,
+			List<NetworkInterface> found) {
+		if (senseOrder == null) {
+			return false;
+		}
+
+		Coord loc = ni.getLocation();
+		double x = loc.getX();
+		double y = loc.getY();
+		double myRange = ni.getSenseRange();
+		int reach = (int)Math.ceil(senseMaxRange / senseCellSize);
+		if (reach < 1) {
+			reach = 1;
+		}
+		int row = senseRow(loc);
+		int col = senseCol(loc);
+		int firstRow = Math.max(0, row - reach);
+		int lastRow = Math.min(senseRows + 1, row + reach);
+		int firstCol = Math.max(0, col - reach);
+		int lastCol = Math.min(senseCols + 1, col + reach);
+
+		for (int r = firstRow; r <= lastRow; r++) {
+			int rowBase = r * (senseCols + 2);
+			int start = senseCellStart[rowBase + firstCol];
+			int end = senseCellStart[rowBase + lastCol + 1];
+			/* inline range checks, since this can run in many threads */
+			for (int i = start; i < end; i++) {
+				double range = senseRange[i];
+				if (myRange < range) {
+					range = myRange;
+				}
+				double dx = x - senseX[i];
+				double dy = y - senseY[i];
+				if (Math.sqrt(dx*dx + dy*dy) <= range) {
+					found.add(senseOrder[i]);
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Senses the pairs of interfaces that are in range using a half
+	 * neighborhood of cells: the interfaces of a cell are paired with the
+	 * later interfaces of the same cell, the cells after it on the same row
+	 * and the cells on the following rows (within the reach of the largest
+	 * range). Only the cells that have interfaces are visited.
+	 */
+	@Override
+	public boolean sensePairs() {
+		if (senseOrder == null) {
+			return false;
+		}
+
+		int reach = (int)Math.ceil(senseMaxRange / senseCellSize);
+		if (reach < 1) {
+			reach = 1;
+		}
+		int width = senseCols + 2;
+		for (int i=0, n=senseOrder.length; i < n; i++) {
+			int r = senseCellSorted[i] / width;
+			int k = senseCellSorted[i] % width;
+			int lastRow = Math.min(senseRows + 1, r + reach);
+			int firstCol = Math.max(0, k - reach);
+			int lastCol = Math.min(senseCols + 1, k + reach);
+			senseOrder[i].addSensed(senseOrder[i]);
+			/* rest of the cell and the cells after it on the row */
+			sensePairs(i, i + 1, senseCellStart[r * width + lastCol + 1]);
+			for (int row = r + 1; row <= lastRow; row++) {
+				sensePairs(i, senseCellStart[row * width + firstCol],
+						senseCellStart[row * width + lastCol + 1]);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks the pairs of an interface and a range of the sensing order
+	 * @param index Index of the interface in the sensing order
+	 * @param start Index of the first interface of the range
+	 * @param end Index after the last interface of the range
+	 */
+	private void sensePairs(int index, int start, int end) {
+		NetworkInterface ni = senseOrder[index];
+		int count = PositionStore.findInRange(senseX[index], senseY[index],
+				senseRange[index], senseX, senseY, senseRange, start, end,
+				senseFound);
+		for (int i=0; i < count; i++) {
+			NetworkInterface other = senseOrder[senseFound[i]];
+			ni.addSensed(other);
+			other.addSensed(ni);
+		}
+	}
+
+	/**
+	 * Returns the (bounded) row of the cell of the given location, including
+	 * the empty row on both sides of the grid
+	 * @param c The location
+	 * @return The row index
+	 */
+	private int senseRow(Coord c) {
+		int row = (int)(c.getY()/senseCellSize) + 1;
+		return Math.max(0, Math.min(senseRows + 1, row));
+	}
+
+	/**
+	 * Returns the (bounded) column of the cell of the given location,
+	 * including the empty column on both sides of the grid
+	 * @param c The location
+	 * @return The column index
+	 */
+	private int senseCol(Coord c) {
+		int col = (int)(c.getX()/senseCellSize) + 1;
+		return Math.max(0, Math.min(senseCols + 1, col));
+	}
+
+	/**
+	 * Returns the index of the cell of the given location in a row-major
+	 * ordering of the grid cells
+	 * @param c The location
+	 * @return The index
+	 */
+	private int senseCellIndex(Coord c) {
+		return senseRow(c) * (senseCols + 2) + senseCol(c);
+	}
 
 	/**
 	 * Returns a string representation of the ConnectivityCells object
@@ -257,21 +886,27 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	 */
 	public String toString() {
 		return getClass().getSimpleName() + " of size " +
-			this.cols + "x" + this.rows + ", cell size=" + this.cellSize;
+			this.cols + "x" + this.rows + ", cell size=" + this.cellSize +
+			(tuner != null ? ", tuned search cell size=" + senseCellSize : "");
 	}
 
 	/**
 	 * A single cell in the cell grid. Contains the interfaces that are
 	 * currently in that part of the grid.
 	 */
-	public class GridCell {
+	public class GridCell implements Serializable {
+		private static final long serialVersionUID = 1L;
 		// how large array is initially chosen
 		private static final int EXPECTED_INTERFACE_COUNT = 5;
 		private ArrayList<NetworkInterface> interfaces;
+		/** row and column of the cell in the grid */
+		private int row, col;
 
-		private GridCell() {
+		private GridCell(int row, int col) {
 			this.interfaces = new ArrayList<NetworkInterface>(
 					EXPECTED_INTERFACE_COUNT);
+			this.row = row;
+			this.col = col;
 		}
 
 		/**
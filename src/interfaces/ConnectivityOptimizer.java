@@ -4,7 +4,9 @@
  */
 package interfaces;
 
+import java.io.Serializable;
 import java.util.Collection;
+import java.util.List;
 
 import core.NetworkInterface;
 
@@ -12,7 +14,8 @@ import core.NetworkInterface;
  * A superclass for schemes for optimizing the location of possible contacts
  * with network interfaces of a specific range
  */
-abstract public class ConnectivityOptimizer {
+abstract public class ConnectivityOptimizer implements Serializable {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Adds a network interface to the optimizer (unless it is already present)
@@ -40,9 +43,73 @@ abstract public class ConnectivityOptimizer {
 	abstract public Collection<NetworkInterface> getNearInterfaces(
 			NetworkInterface ni);
 
+	/**
+	 * Finds all network interfaces that might be located so that they can be
+	 * connected with the network interface and adds them to the given list,
+	 * in the same order as {@link #getNearInterfaces(NetworkInterface)}
+	 * returns them. Lets the caller reuse the list between the queries.
+	 * This implementation adds the interfaces returned by
+	 * {@link #getNearInterfaces(NetworkInterface)}.
+	 * @param ni network interface that needs to be connected
+	 * @param found List where the found interfaces are added to
+	 */
+	public void findNearInterfaces(NetworkInterface ni,
+			List<NetworkInterface> found) {
+		found.addAll(getNearInterfaces(ni));
+	}
+
 	/**
 	 * Finds all other interfaces that are registered to the
 	 * ConnectivityOptimizer
 	 */
 	abstract public Collection<NetworkInterface> getAllInterfaces();
+
+	/**
+	 * Prepares the optimizer for a round of host updates. Called once, from
+	 * a single thread, before the interfaces of the hosts are updated (also
+	 * before the sensing phase, if any). This implementation does nothing.
+	 */
+	public void prepareUpdate() { }
+
+	/**
+	 * Prepares the optimizer for a round of
+	 * {@link #senseNearInterfaces(NetworkInterface, List)} queries. Called
+	 * once, from a single thread, before the queries of every sensing round.
+	 * This implementation does nothing.
+	 */
+	public void prepareSensing() { }
+
+	/**
+	 * Finds all network interfaces that are, at their current locations,
+	 * within the given range of the network interface. This is the read-only
+	 * "sense" query of the parallel host update: it must not modify the
+	 * optimizer or the interfaces and it may be called concurrently for
+	 * different interfaces after {@link #prepareSensing()}. The ranges are
+	 * the interfaces' {@link NetworkInterface#getSenseRange()} values.
+	 * This implementation does not support sensing and returns false.
+	 * @param ni The network interface whose neighbors are searched
+	 * @param found List where the found interfaces are added to
+	 * @return True if the list was filled, false if the optimizer doesn't
+	 * support sensing
+	 */
+	public boolean senseNearInterfaces(NetworkInterface ni,
+			List<NetworkInterface> found) {
+		return false;
+	}
+
+	/**
+	 * Finds all pairs of network interfaces that are, at their current
+	 * locations, within range of each other (the smaller of their
+	 * {@link NetworkInterface#getSenseRange()} values), checking every pair
+	 * only once. Both interfaces of such a pair are given the other one with
+	 * {@link NetworkInterface#addSensed(NetworkInterface)}, and every
+	 * interface is also given itself. Called after {@link #prepareSensing()}
+	 * and {@link NetworkInterface#startSensing()}. This implementation does
+	 * not support pairwise sensing and returns false.
+	 * @return True if the pairs were sensed, false if the optimizer doesn't
+	 * support pairwise sensing
+	 */
+	public boolean sensePairs() {
+		return false;
+	}
 }
@@ -17,6 +17,7 @@ import core.VBRConnection;
  * values using setting {@link #TRANSMIT_SPEEDS_S}.
  */
 public class DistanceCapacityInterface extends NetworkInterface {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Comma-separated list of speed values -setting id ({@value} ). The first
@@ -95,8 +96,7 @@ public class DistanceCapacityInterface extends NetworkInterface {
 			}
 		}
 		// Then find new possible connections
-		Collection<NetworkInterface> interfaces =
-			optimizer.getNearInterfaces(this);
+		Collection<NetworkInterface> interfaces = getNearInterfaces();
 		for (NetworkInterface i : interfaces) {
 			connect(i);
 		}
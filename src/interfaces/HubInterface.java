@@ -19,6 +19,7 @@ import java.util.Set;
  */
 public class HubInterface
 extends SimpleBroadcastInterface {
+  private static final long serialVersionUID = 1L;
 
   //=============================================================================//
   // Settings
@@ -61,6 +62,11 @@ extends SimpleBroadcastInterface {
     }
   }
 
+  @Override
+  public boolean hasPredictableContacts() {
+    return false;
+  }
+
   @Override
   public HubInterface replicate() {
     return new HubInterface( this );
@@ -16,10 +16,26 @@ import core.VBRConnection;
  * the bit-rate depends on the number of other transmitting stations within
  * range The current transmit speed is updated only if there are ongoing
  * transmissions. The configured transmit speed is the maximum obtainable speed.
+ * The numbers of transmissions and transmitting neighbors are kept up to
+ * date when transfers start and end and when connections come and go, and
+ * the transmit speed is recomputed only when they change. The transferring
+ * connections are told when the speed changes, so they don't need updating
+ * at every round.
  */
 public class InterferenceLimitedInterface extends NetworkInterface {
+	private static final long serialVersionUID = 1L;
 	protected int currentTransmitSpeed;
 	protected int numberOfTransmissions;
+	/** number of this interface's connections that transfer a message */
+	private int transferringConnections;
+	/** number of connected interfaces that were transmitting when they
+	 * were last updated (see {@link #isTransferring()}) */
+	private int transmittingNeighbors;
+	/** number of active stations, number of transmissions and the maximum
+	 * speed that the current transmit speed was computed from */
+	private int speedActive;
+	private int speedTransmissions;
+	private int speedMax;
 
 	public InterferenceLimitedInterface(Settings s) {
 		super(s);
@@ -53,6 +69,15 @@ public class InterferenceLimitedInterface extends NetworkInterface {
 		return this.currentTransmitSpeed;
 	}
 
+	/**
+	 * Returns Double.MAX_VALUE since the connections are told about the
+	 * speed changes
+	 */
+	@Override
+	public double getSpeedChangeTime() {
+		return Double.MAX_VALUE;
+	}
+
 	/**
 	 * Tries to connect this host to another host. The other host must be
 	 * active and within range of this host for the connection to succeed.
@@ -98,41 +123,76 @@ public class InterferenceLimitedInterface extends NetworkInterface {
 			}
 		}
 		// Then find new possible connections
-		Collection<NetworkInterface> interfaces =
-			optimizer.getNearInterfaces(this);
+		Collection<NetworkInterface> interfaces = getNearInterfaces();
 		for (NetworkInterface i : interfaces)
 			connect(i);
 
 		// Find the current number of transmissions
 		// (to calculate the current transmission speed
-		numberOfTransmissions = 0;
-		int numberOfActive = 1;
-		for (Connection con : this.connections) {
-			if (con.getMessage() != null) {
-				numberOfTransmissions++;
-			}
-			if (((InterferenceLimitedInterface)con.getOtherInterface(this)).
-					isTransferring() == true) {
-				numberOfActive++;
+		boolean wasTransferring = isTransferring();
+		numberOfTransmissions = this.transferringConnections;
+		if (isTransferring() != wasTransferring) {
+			/* tell the neighbors that this station started/stopped */
+			int change = isTransferring() ? 1 : -1;
+			for (Connection con : this.connections) {
+				((InterferenceLimitedInterface)con.getOtherInterface(this)).
+					transmittingNeighbors += change;
 			}
 		}
+		int numberOfActive = 1 + this.transmittingNeighbors;
 
 		int ntrans = numberOfTransmissions;
 		if ( numberOfTransmissions < 1) ntrans = 1;
 		if ( numberOfActive <2 ) numberOfActive = 2;
 
-		// Based on the equation of Gupta and Kumar - and the transmission speed
-		// is divided equally to all the ongoing transmissions
-		currentTransmitSpeed = (int)Math.floor((double)transmitSpeed /
-				(Math.sqrt((1.0*numberOfActive) *
-						Math.log(1.0*numberOfActive))) /
-							ntrans );
+		if (numberOfActive != this.speedActive ||
+				ntrans != this.speedTransmissions ||
+				transmitSpeed != this.speedMax) {
+			// Based on the equation of Gupta and Kumar - and the transmission
+			// speed is divided equally to all the ongoing transmissions
+			int oldSpeed = currentTransmitSpeed;
+			currentTransmitSpeed = (int)Math.floor((double)transmitSpeed /
+					(Math.sqrt((1.0*numberOfActive) *
+							Math.log(1.0*numberOfActive))) /
+								ntrans );
+			this.speedActive = numberOfActive;
+			this.speedTransmissions = ntrans;
+			this.speedMax = transmitSpeed;
+
+			if (currentTransmitSpeed != oldSpeed) {
+				/* idle connections compute their speed when a transfer
+				 * starts (see VBRConnection) */
+				for (int i=0, n = this.connections.size(); i < n; i++) {
+					Connection con = this.connections.get(i);
+					if (con.isTransferring()) {
+						((VBRConnection)con).speedChanged();
+					}
+				}
+			}
+		}
+	}
 
-		for (Connection con : getConnections()) {
-			con.update();
+	@Override
+	protected void connectionAdded(Connection con,
+			NetworkInterface anotherInterface) {
+		if (anotherInterface.isTransferring()) {
+			this.transmittingNeighbors++;
+		}
+	}
+
+	@Override
+	protected void connectionRemoved(Connection con,
+			NetworkInterface anotherInterface) {
+		if (anotherInterface.isTransferring()) {
+			this.transmittingNeighbors--;
 		}
 	}
 
+	@Override
+	protected void transferChanged(Connection con, boolean transferring) {
+		this.transferringConnections += transferring ? 1 : -1;
+	}
+
 	/**
 	 * Creates a connection to another host. This method does not do any checks
 	 * on whether the other node is in range or active
@@ -16,6 +16,7 @@ import core.Settings;
  * one transmission can be on at a time.
  */
 public class SimpleBroadcastInterface extends NetworkInterface {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Reads the interface settings from the Settings file
@@ -42,9 +43,21 @@ public class SimpleBroadcastInterface extends NetworkInterface {
 	 * @param anotherInterface The interface to connect to
 	 */
 	public void connect(NetworkInterface anotherInterface) {
+		connect(anotherInterface, false);
+	}
+
+	/**
+	 * Tries to connect this host to another host (see
+	 * {@link #connect(NetworkInterface)})
+	 * @param anotherInterface The interface to connect to
+	 * @param sensed True if the range is known from the sensing of the
+	 * current update round (see {@link #isSensedInRange(NetworkInterface)})
+	 */
+	private void connect(NetworkInterface anotherInterface, boolean sensed) {
 		if (isScanning()
 				&& anotherInterface.getHost().isRadioActive()
-				&& isWithinRange(anotherInterface)
+				&& (sensed ? isSensedInRange(anotherInterface) :
+					isWithinRange(anotherInterface))
 				&& !isConnected(anotherInterface)
 				&& (this != anotherInterface)) {
 			// new contact within range
@@ -62,7 +75,8 @@ public class SimpleBroadcastInterface extends NetworkInterface {
 
 	/**
 	 * Updates the state of current connections (i.e. tears down connections
-	 * that are out of range and creates new ones).
+	 * that are out of range and creates new ones). If the interface was
+	 * sensed during this round, the ranges are taken from the sensing.
 	 */
 	public void update() {
 		if (optimizer == null) {
@@ -71,6 +85,7 @@ public class SimpleBroadcastInterface extends NetworkInterface {
 
 		// First break the old ones
 		optimizer.updateLocation(this);
+		boolean sensed = markSensed();
 		for (int i=0; i<this.connections.size(); ) {
 			Connection con = this.connections.get(i);
 			NetworkInterface anotherInterface = con.getOtherInterface(this);
@@ -78,7 +93,8 @@ public class SimpleBroadcastInterface extends NetworkInterface {
 			// all connections should be up at this stage
 			assert con.isUp() : "Connection " + con + " was down!";
 
-			if (!isWithinRange(anotherInterface)) {
+			if (!(sensed ? isSensedInRange(anotherInterface) :
+					isWithinRange(anotherInterface))) {
 				disconnect(con,anotherInterface);
 				connections.remove(i);
 			}
@@ -87,13 +103,17 @@ public class SimpleBroadcastInterface extends NetworkInterface {
 			}
 		}
 		// Then find new possible connections
-		Collection<NetworkInterface> interfaces =
-			optimizer.getNearInterfaces(this);
+		Collection<NetworkInterface> interfaces = getNearInterfaces();
 		for (NetworkInterface i : interfaces) {
-			connect(i);
+			connect(i, sensed);
 		}
 	}
 
+	@Override
+	public boolean hasPredictableContacts() {
+		return true;
+	}
+
 	/**
 	 * Creates a connection to another host. This method does not do any checks
 	 * on whether the other node is in range or active
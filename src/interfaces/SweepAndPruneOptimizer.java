@@ -0,0 +1,393 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package interfaces;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import core.Coord;
+import core.DTNSim;
+import core.NetworkInterface;
+
+/**
+ * <P>
+ * Sort and sweep ("sweep and prune") connectivity optimizer. The interfaces
+ * are kept sorted by their x coordinate. Since the interfaces move only a
+ * little between the updates, the order is kept up to date incrementally
+ * with insertion sort steps: an interface whose location is updated is
+ * moved left or right until the order is correct again. The interfaces
+ * near an interface are then searched from the part of the order whose x
+ * coordinates overlap with the range of the interface, and only those are
+ * tested for the y coordinate and the distance. Unlike with the
+ * {@link ConnectivityGrid}, the work doesn't grow with the number of
+ * interfaces crowded into the same cell, but with the number of interfaces
+ * within the range's x interval.</P>
+ * <P>
+ * The x coordinates in the order are refreshed from the current locations
+ * of all interfaces at the start of every update round (see
+ * {@link #prepareUpdate()}) and when an interface's location is updated.
+ * The hosts don't move during the update round, so the order is exact when
+ * the near interfaces are searched. The near interfaces are returned in the
+ * order of their x coordinates (only those within range), so the
+ * connections may be created in a different order than with the grid.</P>
+ */
+public class SweepAndPruneOptimizer extends ConnectivityOptimizer {
+	private static final long serialVersionUID = 1L;
+	private static HashMap<Integer, SweepAndPruneOptimizer> optimizers;
+
+	/** the interfaces ordered by their x coordinate */
+	private NetworkInterface[] order;
+	/** the x coordinates of the interfaces in {@link #order} */
+	private double[] keys;
+	/** number of interfaces in the order */
+	private int size;
+	/** index of each interface (by address) in the order, or -1 */
+	private int[] indexOf;
+
+	/** interfaces ordered by their current x coordinate (for sensing) */
+	private NetworkInterface[] senseOrder;
+	/** the x coordinates of the interfaces in {@link #senseOrder} */
+	private double[] senseKeys;
+
+	static {
+		DTNSim.registerForReset(SweepAndPruneOptimizer.class.getCanonicalName());
+		reset();
+	}
+
+	public static void reset() {
+		optimizers = new HashMap<Integer, SweepAndPruneOptimizer>();
+	}
+
+	/**
+	 * Creates a new optimizer
+	 */
+	private SweepAndPruneOptimizer() {
+		this.order = new NetworkInterface[0];
+		this.keys = new double[0];
+		this.indexOf = new int[0];
+		this.size = 0;
+	}
+
+	/**
+	 * Returns an optimizer object based on a hash value
+	 * @param key A hash value that separates different interfaces from each
+	 * other
+	 * @param maxRange Maximum range used by the radio technology using this
+	 *  optimizer (not needed, since the ranges of the interfaces are used)
+	 * @return The optimizer object for a specific interface
+	 */
+	public static SweepAndPruneOptimizer SweepAndPruneOptimizerFactory(int key,
+			double maxRange) {
+		SweepAndPruneOptimizer o = optimizers.get(key);
+		if (o == null) {
+			o = new SweepAndPruneOptimizer();
+			optimizers.put(key, o);
+		}
+		return o;
+	}
+
+	/**
+	 * Adds a network interface to the optimizer (unless it is already there)
+	 * @param ni The new network interface
+	 */
+	public void addInterface(NetworkInterface ni) {
+		int address = ni.getAddress();
+		ensureCapacity(address + 1, this.size + 1);
+		if (this.indexOf[address] >= 0) {
+			return;
+		}
+		int i = this.size++;
+		this.order[i] = ni;
+		this.keys[i] = ni.getLocation().getX();
+		this.indexOf[address] = i;
+		sort(i);
+	}
+
+	/**
+	 * Removes a network interface from the optimizer
+	 * @param ni The interface to be removed
+	 */
+	public void removeInterface(NetworkInterface ni) {
+		int address = ni.getAddress();
+		if (!contains(address)) {
+			return;
+		}
+		this.size--;
+		for (int i = this.indexOf[address]; i < this.size; i++) {
+			this.order[i] = this.order[i + 1];
+			this.keys[i] = this.keys[i + 1];
+			this.indexOf[this.order[i].getAddress()] = i;
+		}
+		this.order[this.size] = null;
+		this.indexOf[address] = -1;
+	}
+
+	/**
+	 * Adds interfaces to the optimizer
+	 * @param interfaces Collection of interfaces to add
+	 */
+	public void addInterfaces(Collection<NetworkInterface> interfaces) {
+		for (NetworkInterface ni : interfaces) {
+			addInterface(ni);
+		}
+	}
+
+	/**
+	 * Updates the interface's x coordinate and its place in the order
+	 * @param ni The interface to update
+	 */
+	public void updateLocation(NetworkInterface ni) {
+		int i = this.indexOf[ni.getAddress()];
+		this.keys[i] = ni.getLocation().getX();
+		sort(i);
+	}
+
+	/**
+	 * Returns all interfaces of the optimizer, ordered by their x coordinate
+	 */
+	public Collection<NetworkInterface> getAllInterfaces() {
+		List<NetworkInterface> all = new ArrayList<NetworkInterface>(this.size);
+		for (int i=0; i < this.size; i++) {
+			all.add(this.order[i]);
+		}
+		return all;
+	}
+
+	/**
+	 * Returns all interfaces that are within the range of the given
+	 * interface
+	 * @param ni The interface whose near interfaces are returned
+	 * @return List of near interfaces
+	 */
+	public Collection<NetworkInterface> getNearInterfaces(
+			NetworkInterface ni) {
+		List<NetworkInterface> near = new ArrayList<NetworkInterface>();
+		findNearInterfaces(ni, near);
+		return near;
+	}
+
+	@Override
+	public void findNearInterfaces(NetworkInterface ni,
+			List<NetworkInterface> found) {
+		if (!contains(ni.getAddress())) {
+			return;
+		}
+
+		Coord loc = ni.getLocation();
+		double range = ni.getSenseRange();
+		double maxX = loc.getX() + range;
+		for (int i = firstIndex(this.keys, this.size, loc.getX() - range);
+				i < this.size && this.keys[i] <= maxX; i++) {
+			Coord other = this.order[i].getLocation();
+			if (Math.abs(other.getY() - loc.getY()) <= range &&
+					loc.distance(other) <= range) {
+				found.add(this.order[i]);
+			}
+		}
+	}
+
+	/**
+	 * Refreshes the x coordinates of all interfaces from their current
+	 * locations and sorts the order again. The order is nearly sorted
+	 * already, so insertion sort is used.
+	 */
+	@Override
+	public void prepareUpdate() {
+		for (int i=0; i < this.size; i++) {
+			this.keys[i] = this.order[i].getLocation().getX();
+		}
+		for (int i=1; i < this.size; i++) {
+			if (this.keys[i - 1] > this.keys[i]) {
+				sort(i); /* moves it left to its place */
+			}
+		}
+	}
+
+	/**
+	 * Sorts the interfaces by their current x coordinates for the sensing
+	 * round. The order is nearly sorted already, so insertion sort is used.
+	 */
+	@Override
+	public void prepareSensing() {
+		if (this.senseOrder == null || this.senseOrder.length != this.size) {
+			this.senseOrder = new NetworkInterface[this.size];
+			this.senseKeys = new double[this.size];
+		}
+		for (int i=0; i < this.size; i++) {
+			NetworkInterface ni = this.order[i];
+			double x = ni.getLocation().getX();
+			int j = i;
+			for (; j > 0 && this.senseKeys[j - 1] > x; j--) {
+				this.senseOrder[j] = this.senseOrder[j - 1];
+				this.senseKeys[j] = this.senseKeys[j - 1];
+			}
+			this.senseOrder[j] = ni;
+			this.senseKeys[j] = x;
+		}
+	}
+
+	@Override
+	public boolean senseNearInterfaces(NetworkInterface ni,
+			List<NetworkInterface> found) {
+		if (this.senseOrder == null) {
+			return false;
+		}
+
+		Coord loc = ni.getLocation();
+		double myRange = ni.getSenseRange();
+		double maxX = loc.getX() + myRange;
+		int n = this.senseOrder.length;
+		for (int i = firstIndex(this.senseKeys, n, loc.getX() - myRange);
+				i < n && this.senseKeys[i] <= maxX; i++) {
+			NetworkInterface other = this.senseOrder[i];
+			if (isInRange(loc, myRange, other)) {
+				found.add(other);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Senses the pairs of interfaces that are in range by sweeping the
+	 * interfaces in the order of their x coordinates: an interface is paired
+	 * only with the following interfaces whose x coordinate is within its
+	 * range.
+	 */
+	@Override
+	public boolean sensePairs() {
+		if (this.senseOrder == null) {
+			return false;
+		}
+
+		int n = this.senseOrder.length;
+		for (int i=0; i < n; i++) {
+			NetworkInterface ni = this.senseOrder[i];
+			Coord loc = ni.getLocation();
+			double myRange = ni.getSenseRange();
+			double maxX = this.senseKeys[i] + myRange;
+			ni.addSensed(ni);
+			for (int j = i + 1; j < n && this.senseKeys[j] <= maxX; j++) {
+				NetworkInterface other = this.senseOrder[j];
+				if (isInRange(loc, myRange, other)) {
+					ni.addSensed(other);
+					other.addSensed(ni);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if an interface is within the smaller of the two sense
+	 * ranges from a location
+	 * @param loc The location
+	 * @param myRange The sense range at the location
+	 * @param other The other interface
+	 * @return True if the other interface is within range
+	 */
+	private boolean isInRange(Coord loc, double myRange,
+			NetworkInterface other) {
+		double range = other.getSenseRange();
+		if (myRange < range) {
+			range = myRange;
+		}
+		Coord c = other.getLocation();
+		return Math.abs(c.getY() - loc.getY()) <= range &&
+			loc.distance(c) <= range;
+	}
+
+	/**
+	 * Moves the interface at the given index of the order left or right
+	 * until the order is correct again (one insertion sort step)
+	 * @param i The index
+	 */
+	private void sort(int i) {
+		double key = this.keys[i];
+		NetworkInterface ni = this.order[i];
+		int j = i;
+		for (; j > 0 && this.keys[j - 1] > key; j--) {
+			move(j - 1, j);
+		}
+		if (j == i) {
+			for (; j < this.size - 1 && this.keys[j + 1] < key; j++) {
+				move(j + 1, j);
+			}
+		}
+		this.order[j] = ni;
+		this.keys[j] = key;
+		this.indexOf[ni.getAddress()] = j;
+	}
+
+	/**
+	 * Moves an interface in the order
+	 * @param from The old index of the interface
+	 * @param to The new index of the interface
+	 */
+	private void move(int from, int to) {
+		this.order[to] = this.order[from];
+		this.keys[to] = this.keys[from];
+		this.indexOf[this.order[to].getAddress()] = to;
+	}
+
+	/**
+	 * Returns the index of the first key that is at least the given value
+	 * @param keys The sorted keys
+	 * @param n Number of keys
+	 * @param value The value
+	 * @return The index (n if all keys are smaller)
+	 */
+	private static int firstIndex(double[] keys, int n, double value) {
+		int low = 0;
+		int high = n;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid] < value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns true if the interface with the given address is in the order
+	 */
+	private boolean contains(int address) {
+		return address < this.indexOf.length && this.indexOf[address] >= 0;
+	}
+
+	/**
+	 * Makes sure that the arrays have room for the given number of addresses
+	 * and interfaces
+	 * @param addresses The number of addresses
+	 * @param interfaces The number of interfaces
+	 */
+	private void ensureCapacity(int addresses, int interfaces) {
+		int oldSize = this.indexOf.length;
+		if (addresses > oldSize) {
+			int newSize = Math.max(addresses, oldSize * 2);
+			this.indexOf = Arrays.copyOf(this.indexOf, newSize);
+			Arrays.fill(this.indexOf, oldSize, newSize, -1);
+		}
+		if (interfaces > this.order.length) {
+			int newSize = Math.max(interfaces, this.order.length * 2);
+			this.order = Arrays.copyOf(this.order, newSize);
+			this.keys = Arrays.copyOf(this.keys, newSize);
+		}
+	}
+
+	/**
+	 * Returns a string representation of the optimizer
+	 * @return a string representation of the optimizer
+	 */
+	public String toString() {
+		return getClass().getSimpleName() + " of " + this.size +
+			" interfaces";
+	}
+}
@@ -9,6 +9,7 @@ import core.SimClock;
  */
 public class ActivityPeriodRwp
 extends MovementModel {
+  private static final long serialVersionUID = 1L;
 
   //==========================================================================//
   // Settings
@@ -73,6 +74,11 @@ extends MovementModel {
     return this.lastWaypoint;
   }
 
+  @Override
+  public boolean isParallelMovementSafe() {
+    return true;
+  }
+
   @Override
   public MovementModel replicate() {
     return new ActivityPeriodRwp( this );
@@ -9,6 +9,7 @@ import java.util.List;
 
 import movement.map.MapNode;
 import core.Coord;
+import core.DTNSim;
 import core.Settings;
 
 /**
@@ -18,10 +19,16 @@ import core.Settings;
  * @author Frans Ekman
  */
 public class BusMovement extends MapRouteMovement {
+	private static final long serialVersionUID = 1L;
 
 	private BusControlSystem controlSystem;
 	private int id;
 	private static int nextID = 0;
+
+	static {
+		DTNSim.registerForReset(BusMovement.class.getCanonicalName());
+		reset();
+	}
 	private boolean startMode;
 	private List<Coord> stops;
 
@@ -86,4 +93,8 @@ public class BusMovement extends MapRouteMovement {
 		return id;
 	}
 
+	public static void reset() {
+		nextID = 0;
+	}
+
 }
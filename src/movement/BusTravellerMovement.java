@@ -4,6 +4,7 @@
  */
 package movement;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Random;
 
@@ -11,6 +12,7 @@ import movement.map.DijkstraPathFinder;
 import movement.map.MapNode;
 import movement.map.SimMap;
 import core.Coord;
+import core.DTNSim;
 import core.Settings;
 
 /**
@@ -27,6 +29,7 @@ import core.Settings;
  */
 public class BusTravellerMovement extends MapBasedMovement implements
 	SwitchableMovement, TransportMovement {
+	private static final long serialVersionUID = 1L;
 
 	public static final String PROBABILITIES_STRING = "probs";
 	public static final String PROBABILITY_TAKE_OTHER_BUS = "probTakeOtherBus";
@@ -54,6 +57,11 @@ public class BusTravellerMovement extends MapBasedMovement implements
 
 	private static int nextID = 0;
 
+	static {
+		DTNSim.registerForReset(BusTravellerMovement.class.getCanonicalName());
+		reset();
+	}
+
 	/**
 	 * Creates a BusTravellerModel
 	 * @param settings
@@ -229,7 +237,8 @@ public class BusTravellerMovement extends MapBasedMovement implements
 	 *
 	 * @author Frans Ekman
 	 */
-	class ContinueBusTripDecider {
+	class ContinueBusTripDecider implements Serializable {
+		private static final long serialVersionUID = 1L;
 
 		private double[] probabilities; // Probability to travel with bus
 		private int state;
@@ -8,6 +8,7 @@ import core.Settings;
  */
 public class DiscontinuousRwp
 extends MovementModel {
+  private static final long serialVersionUID = 1L;
 
   //==========================================================================//
   // Implementation
@@ -36,6 +37,11 @@ extends MovementModel {
     return this.randomCoord();
   }
 
+  @Override
+  public boolean isParallelMovementSafe() {
+    return true;
+  }
+
   @Override
   public MovementModel replicate() {
     return new DiscontinuousRwp( this );
@@ -14,6 +14,7 @@ import movement.map.DijkstraPathFinder;
 import movement.map.MapNode;
 import movement.map.SimMap;
 import core.Coord;
+import core.DTNSim;
 import core.Settings;
 
 /**
@@ -26,6 +27,7 @@ import core.Settings;
  */
 public class EveningActivityMovement extends MapBasedMovement
 	implements SwitchableMovement {
+	private static final long serialVersionUID = 1L;
 
 	private static final int WALKING_TO_MEETING_SPOT_MODE = 0;
 	private static final int EVENING_ACTIVITY_MODE = 1;
@@ -62,6 +64,11 @@ public class EveningActivityMovement extends MapBasedMovement
 
 	private static int nextID = 0;
 
+	static {
+		DTNSim.registerForReset(EveningActivityMovement.class.getCanonicalName());
+		reset();
+	}
+
 	private int minGroupSize;
 	private int maxGroupSize;
 
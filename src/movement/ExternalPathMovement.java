@@ -21,6 +21,7 @@ import core.SimClock;
  *
  */
 public class ExternalPathMovement extends MovementModel {
+	private static final long serialVersionUID = 1L;
 	/** external locations file's path -setting id ({@value})*/
 	public static final String MOVEMENT_FILE_S = "traceFile";
 	/** activity file's path -setting id ({@value})*/
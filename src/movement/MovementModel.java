@@ -4,9 +4,11 @@
  */
 package movement;
 
+import java.io.Serializable;
 import java.util.Random;
 
 import util.ActivenessHandler;
+import util.SplitRandom;
 
 import core.Coord;
 import core.DTNHost;
@@ -26,7 +28,8 @@ import core.SimError;
  * {@link #getInitialLocation()} and {@link #getPath()} are worthwhile to
  * override.</P>
  */
-public abstract class MovementModel {
+public abstract class MovementModel implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/** node's speed CSV (min, max) -setting id ({@value})*/
 	public static final String SPEED = "speed";
 	/** node's wait time CSV (min, max) -setting id ({@value})*/
@@ -44,9 +47,27 @@ public abstract class MovementModel {
 	public static final String WORLD_SIZE = "worldSize";
 	/** movement models' rng seed -setting id ({@value})*/
 	public static final String RNG_SEED = "rngSeed";
+	/**
+	 * Per host random number streams -setting id ({@value}). Boolean
+	 * (true/false) variable. If true, the movement model of every host draws
+	 * its random values from a stream of its own, derived from the
+	 * {@link #RNG_SEED} and the address of the host, instead of the common
+	 * random number generator. The hosts' movement then doesn't depend on the
+	 * order the hosts are moved in, which is required for moving the hosts
+	 * in parallel (see {@link core.World#PARALLEL_MOVEMENT_S}). Default is
+	 * false.
+	 */
+	public static final String RNG_PER_HOST_S = "rngPerHost";
 
 	/** common rng for all movement models in the simulation */
-	protected static Random rng;
+	private static Random sharedRng;
+	/** seed of the random number generators */
+	private static int rngSeed;
+	/** should every host have a random number stream of its own */
+	private static boolean rngPerHost;
+
+	/** rng of this movement model: the common rng or the host's own one */
+	protected Random rng;
 
 	/** DTNHost to which this movement model is attached */
 	protected DTNHost host;
@@ -93,6 +114,7 @@ public abstract class MovementModel {
 	 */
 	public MovementModel() {
 		super();
+		this.rng = sharedRng;
 	}
 
 	/**
@@ -103,6 +125,7 @@ public abstract class MovementModel {
 		double[] speeds;
 		double[] times;
 
+		this.rng = sharedRng;
 		ah = new ActivenessHandler(settings);
 
 		if (settings.contains(SPEED)) {
@@ -149,6 +172,7 @@ public abstract class MovementModel {
 		this.maxY = mm.maxY;
 		this.ah = mm.ah;
 		this.comBus = null;
+		this.rng = sharedRng;
 	}
 
 	/**
@@ -217,10 +241,47 @@ public abstract class MovementModel {
 	}
 
 	/**
+	 * Sets the host of this movement model. If hosts have their own random
+	 * number streams, also creates the stream for the host.
 	 * @param host the host to set
 	 */
 	public void setHost(DTNHost host) {
 		this.host = host;
+		if (rngPerHost && host != null) {
+			setRng(new SplitRandom(rngSeed, host.getAddress()));
+		}
+	}
+
+	/**
+	 * Sets the random number generator this movement model uses. Movement
+	 * models that hand the generator over to other objects should override
+	 * this and give the new generator also to those objects.
+	 * @param rng The random number generator
+	 */
+	protected void setRng(Random rng) {
+		this.rng = rng;
+	}
+
+	/**
+	 * Returns true if hosts using this movement model can be moved
+	 * concurrently with other hosts. This requires that the model's
+	 * {@link #getPath()}, {@link #nextPathAvailable()} and
+	 * {@link #isActive()} only modify the model's own state and draw random
+	 * values only from the model's own random number stream. This
+	 * implementation returns false; safe models must override this.
+	 * @return true if the model supports parallel movement
+	 */
+	public boolean isParallelMovementSafe() {
+		return false;
+	}
+
+	/**
+	 * Returns true if the movement models of the hosts have random number
+	 * streams of their own (see {@link #RNG_PER_HOST_S}).
+	 * @return true if hosts have their own random number streams
+	 */
+	public static boolean isRngPerHost() {
+		return rngPerHost;
 	}
 
 	/**
@@ -232,6 +293,16 @@ public abstract class MovementModel {
 		return ah.isActive();
 	}
 
+	/**
+	 * Returns the earliest time when the value returned by
+	 * {@link #isActive()} can change, if it was called at the current time
+	 * @return The time of the next possible change (or infinity if the
+	 * activeness never changes)
+	 */
+	public double getActivenessChangeTime() {
+		return ah.nextChangeTime(0);
+	}
+
 	/**
 	 * Returns a sim time when the next path is available. This implementation
 	 * returns a random time in future that is {@link #WAIT_TIME} from now.
@@ -277,12 +348,13 @@ public abstract class MovementModel {
 	public static void reset() {
 		Settings s = new Settings(MOVEMENT_MODEL_NS);
 		if (s.contains(RNG_SEED)) {
-			int seed = s.getInt(RNG_SEED);
-			rng = new Random(seed);
+			rngSeed = s.getInt(RNG_SEED);
 		}
 		else {
-			rng = new Random(0);
+			rngSeed = 0;
 		}
+		sharedRng = new Random(rngSeed);
+		rngPerHost = s.getBoolean(RNG_PER_HOST_S, false);
 	}
 
 }
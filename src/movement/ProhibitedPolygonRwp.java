@@ -15,6 +15,7 @@ import java.util.List;
  */
 public class ProhibitedPolygonRwp
 extends MovementModel {
+  private static final long serialVersionUID = 1L;
 
   //==========================================================================//
   // Settings
@@ -83,6 +84,11 @@ extends MovementModel {
     return this.lastWaypoint;
   }
 
+  @Override
+  public boolean isParallelMovementSafe() {
+    return true;
+  }
+
   @Override
   public MovementModel replicate() {
     return new ProhibitedPolygonRwp( this );
@@ -5,6 +5,7 @@
 package movement;
 
 import java.util.List;
+import java.util.Random;
 
 import movement.map.DijkstraPathFinder;
 import movement.map.MapNode;
@@ -17,6 +18,7 @@ import core.Settings;
  */
 public class ShortestPathMapBasedMovement extends MapBasedMovement implements
 	SwitchableMovement {
+	private static final long serialVersionUID = 1L;
 	/** the Dijkstra shortest path finder */
 	private DijkstraPathFinder pathFinder;
 
@@ -65,6 +67,29 @@ public class ShortestPathMapBasedMovement extends MapBasedMovement implements
 		return p;
 	}
 
+	/**
+	 * Sets the random number generator and, since the POI handler and path
+	 * finder are no longer shared with other hosts then, creates own ones
+	 * for this model.
+	 * @param rng The random number generator
+	 */
+	@Override
+	protected void setRng(Random rng) {
+		super.setRng(rng);
+		this.pois = new PointsOfInterest(this.pois, rng);
+		this.pathFinder = new DijkstraPathFinder(getOkMapNodeTypes());
+	}
+
+	/**
+	 * Returns true if this model has a random number stream of its own
+	 * (and hence also an own POI handler and path finder)
+	 * @return true if the model can be moved in parallel
+	 */
+	@Override
+	public boolean isParallelMovementSafe() {
+		return isRngPerHost();
+	}
+
 	@Override
 	public ShortestPathMapBasedMovement replicate() {
 		return new ShortestPathMapBasedMovement(this);
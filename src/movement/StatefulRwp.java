@@ -13,6 +13,7 @@ import core.Settings;
  */
 public class StatefulRwp
 extends MovementModel {
+  private static final long serialVersionUID = 1L;
 
   //==========================================================================//
   // Instance vars
@@ -49,6 +50,11 @@ extends MovementModel {
     return this.lastWaypoint;
   }
 
+  @Override
+  public boolean isParallelMovementSafe() {
+    return true;
+  }
+
   @Override
   public MovementModel replicate() {
     return new StatefulRwp( this );
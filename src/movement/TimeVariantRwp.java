@@ -13,6 +13,7 @@ import core.SimScenario;
  */
 public class TimeVariantRwp
 extends MovementModel {
+  private static final long serialVersionUID = 1L;
 
   //==========================================================================//
   // Instance vars
@@ -80,6 +81,11 @@ extends MovementModel {
     super( other );
   }
 
+  @Override
+  public boolean isParallelMovementSafe() {
+    return true;
+  }
+
   @Override
   public MovementModel replicate() {
     return new TimeVariantRwp( this );
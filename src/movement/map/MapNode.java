@@ -4,9 +4,14 @@
  */
 package movement.map;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.List;
 import java.util.Vector;
 
+import core.Checkpoint;
 import core.Coord;
 import core.SettingsError;
 
@@ -14,7 +19,9 @@ import core.SettingsError;
  * A node in a SimMap. Node has a location, 0-n neighbors that it is
  * connected to and possibly a type identifier.
  */
-public class MapNode implements Comparable<MapNode> {
+public class MapNode implements Comparable<MapNode>, Serializable,
+		Checkpoint.Deferred {
+	private static final long serialVersionUID = 1L;
 	/** Smallest valid type of a node: {@value}*/
 	public static final int MIN_TYPE = 1;
 	/** Biggest valid type of a node: {@value} */
@@ -22,7 +29,8 @@ public class MapNode implements Comparable<MapNode> {
 
 
 	private Coord location;
-	private Vector<MapNode> neighbors;
+	/** written separately in the checkpoints (see writeReferences) */
+	private transient Vector<MapNode> neighbors;
 	// bit mask of map node's types or 0 if no type's are defined
 	private int type;
 
@@ -143,4 +151,25 @@ public class MapNode implements Comparable<MapNode> {
 		return this.getLocation().compareTo((o).getLocation());
 	}
 
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		Checkpoint.writeLater(out, this);
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		Checkpoint.readLater(in, this);
+	}
+
+	public void writeReferences(ObjectOutputStream out) throws IOException {
+		out.writeObject(this.neighbors);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void readReferences(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		this.neighbors = (Vector<MapNode>)in.readObject();
+	}
+
 }
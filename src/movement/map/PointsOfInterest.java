@@ -8,6 +8,7 @@ import input.WKTReader;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -22,7 +23,8 @@ import core.SettingsError;
 /**
  * Handler for points of interest data.
  */
-public class PointsOfInterest {
+public class PointsOfInterest implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/** Points Of Interest settings namespace ({@value})*/
 	public static final String POI_NS = "PointsOfInterest";
 	/** Points Of Interest file path -prefix id ({@value})*/
@@ -67,6 +69,20 @@ public class PointsOfInterest {
 		readPois(settings);
 	}
 
+	/**
+	 * Copy constructor. Creates a POI handler that shares the POIs with the
+	 * given handler but uses another random number generator.
+	 * @param poi The POI handler whose POIs are used
+	 * @param rng The random number generator to use
+	 */
+	public PointsOfInterest(PointsOfInterest poi, Random rng) {
+		this.poiLists = poi.poiLists;
+		this.poiProbs = poi.poiProbs;
+		this.map = poi.map;
+		this.okMapNodeTypes = poi.okMapNodeTypes;
+		this.rng = rng;
+	}
+
 	/**
 	 * Selects a random destination from POIs or all MapNodes. Selecting among
 	 * POI groups is done by their probabilities. If sum of their probabilities
@@ -26,6 +26,7 @@ import core.SimClock;
 import core.UpdateListener;
 
 public class BufferOccupancyReport extends Report implements UpdateListener {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Record occupancy every nth second -setting id ({@value}).
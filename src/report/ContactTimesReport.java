@@ -4,6 +4,7 @@
  */
 package report;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Vector;
 
@@ -18,6 +19,7 @@ import core.Settings;
  * <code>time nrofContacts</code>
  */
 public class ContactTimesReport extends Report implements ConnectionListener {
+	private static final long serialVersionUID = 1L;
 	protected HashMap<ConnectionInfo, ConnectionInfo> connections;
 	private Vector<Integer> nrofContacts;
 
@@ -124,7 +126,8 @@ public class ContactTimesReport extends Report implements ConnectionListener {
 	/**
 	 * Objects of this class store time information about contacts.
 	 */
-	protected class ConnectionInfo {
+	protected class ConnectionInfo implements Serializable {
+		private static final long serialVersionUID = 1L;
 		private double startTime;
 		private double endTime;
 		private DTNHost h1;
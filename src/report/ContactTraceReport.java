@@ -0,0 +1,181 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import input.ContactTraceReader;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+
+import core.ConnectionListener;
+import core.DTNHost;
+import core.Settings;
+import core.SettingsError;
+import core.SimError;
+
+/**
+ * Records all connection up and down events into a compact binary contact
+ * trace (see {@link ContactTraceReader} for the format). The trace can be
+ * replayed as external events (with the {@link input.ExternalEventsQueue}),
+ * so that e.g. different routers can be compared using the same contacts
+ * without simulating the movement and the connectivity again. The trace is
+ * written to the report's output file, with the
+ * {@link ContactTraceReader#TRACE_EXT} extension (in place of
+ * {@value report.Report#OUT_SUFFIX}, if the name ends with it), so that the
+ * trace is read as one. Since the replayed events are for the hosts' first
+ * network interfaces, all hosts must have only one network interface.
+ */
+public class ContactTraceReport extends Report implements ConnectionListener {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Time resolution of the trace -setting id ({@value}). Number of time
+	 * units per second; the event times are rounded to the nearest unit.
+	 * Default is {@value #DEF_RESOLUTION}.
+	 */
+	public static final String RESOLUTION_S = "timeResolution";
+	/** Default time resolution (time units per second) */
+	public static final int DEF_RESOLUTION = 1000;
+
+	private transient OutputStream trace;
+	private String traceFile;
+	private int resolution;
+	/** time of the previous event in time units */
+	private long time;
+
+	/**
+	 * Constructor.
+	 */
+	public ContactTraceReport() {
+		Settings s = getSettings();
+		this.resolution = s.getInt(RESOLUTION_S, DEF_RESOLUTION);
+		if (this.resolution < 1) {
+			throw new SettingsError("Invalid value (" + this.resolution +
+					") for " + s.getFullPropertyName(RESOLUTION_S));
+		}
+
+		this.traceFile = traceFileName(getOutputFileName());
+		openTrace();
+	}
+
+	/**
+	 * Returns the name of the trace file for an output file name
+	 * @param name The output file name
+	 * @return The name with the {@link ContactTraceReader#TRACE_EXT}
+	 * extension
+	 */
+	private static String traceFileName(String name) {
+		if (name.endsWith(OUT_SUFFIX)) {
+			name = name.substring(0, name.length() - OUT_SUFFIX.length());
+		}
+		if (!name.endsWith(ContactTraceReader.TRACE_EXT)) {
+			name += ContactTraceReader.TRACE_EXT;
+		}
+		return name;
+	}
+
+	/**
+	 * Creates the trace file and writes the header
+	 */
+	private void openTrace() {
+		try {
+			this.trace = new BufferedOutputStream(
+					new FileOutputStream(this.traceFile));
+			this.trace.write(ContactTraceReader.MAGIC);
+			writeVarint(ContactTraceReader.VERSION);
+			writeVarint(this.resolution);
+		} catch (IOException e) {
+			throw new SimError("Couldn't create contact trace '" +
+					this.traceFile + "'", e);
+		}
+		this.time = 0;
+	}
+
+	/**
+	 * Reads the report from a checkpoint and starts a new trace, named
+	 * after the restored output file (see {@link Report}), so the trace of
+	 * the original run isn't overwritten. Only the events that happen after
+	 * the restore end up in the new trace.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.traceFile = traceFileName(getOutputFileName());
+		openTrace();
+	}
+
+	public void hostsConnected(DTNHost host1, DTNHost host2) {
+		writeEvent(host1, host2, true);
+	}
+
+	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
+		writeEvent(host1, host2, false);
+	}
+
+	/**
+	 * Writes a connection event to the trace
+	 * @param from The host whose interface created or tore down the
+	 * connection
+	 * @param to The other host
+	 * @param up True for connection up events
+	 */
+	private void writeEvent(DTNHost from, DTNHost to, boolean up) {
+		checkInterfaces(from);
+		checkInterfaces(to);
+		long now = Math.round(getSimTime() * this.resolution);
+		if (now < this.time) {
+			now = this.time; /* no negative deltas */
+		}
+		try {
+			writeVarint(now - this.time);
+			writeVarint(((long)from.getAddress() << 1) | (up ? 1 : 0));
+			writeVarint(to.getAddress());
+		} catch (IOException e) {
+			throw new SimError("Couldn't write contact trace '" +
+					this.traceFile + "'", e);
+		}
+		this.time = now;
+	}
+
+	/**
+	 * Checks that a host has only one network interface, since the trace
+	 * doesn't tell which interfaces were connected
+	 * @param host The host
+	 * @throws SimError if the host has more than one interface
+	 */
+	private void checkInterfaces(DTNHost host) {
+		if (host.getInterfaces().size() > 1) {
+			throw new SimError(getClass().getSimpleName() + " supports " +
+					"only hosts with one network interface, but " + host +
+					" has " + host.getInterfaces().size());
+		}
+	}
+
+	/**
+	 * Writes an unsigned variable length integer to the trace
+	 * @param value The value
+	 * @throws IOException if the writing fails
+	 */
+	private void writeVarint(long value) throws IOException {
+		while ((value & ~0x7fL) != 0) {
+			this.trace.write((int)(value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		this.trace.write((int)value);
+	}
+
+	@Override
+	public void done() {
+		try {
+			this.trace.close();
+		} catch (IOException e) {
+			throw new SimError("Couldn't write contact trace '" +
+					this.traceFile + "'", e);
+		}
+		super.done();
+	}
+}
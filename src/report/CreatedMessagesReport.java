@@ -14,6 +14,7 @@ import core.MessageListener;
  * For output syntax, see {@link #HEADER}.
  */
 public class CreatedMessagesReport extends Report implements MessageListener {
+	private static final long serialVersionUID = 1L;
 	public static String HEADER = "# time  ID  size  fromHost  toHost  TTL  " +
 		"isResponse";
 
@@ -17,6 +17,7 @@ import core.UpdateListener;
  */
 public class EncountersVSUniqueEncountersReport extends Report
 	implements ConnectionListener, UpdateListener {
+	private static final long serialVersionUID = 1L;
 
 	private TotalEncountersReport totalEncountersReport;
 	private UniqueEncountersReport uniqueEncountersReport;
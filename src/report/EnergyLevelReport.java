@@ -18,6 +18,7 @@ import core.UpdateListener;
  */
 public class EnergyLevelReport extends SnapshotReport 
 	implements UpdateListener {
+	private static final long serialVersionUID = 1L;
 
 	@Override
 	protected void writeSnapshot(DTNHost h) {
@@ -17,6 +17,7 @@ import java.util.Map;
 public class FlightLengthReport
 extends Report
 implements MovementListener {
+  private static final long serialVersionUID = 1L;
 
   final List <Double> lengths = new ArrayList <>( 10000 );
   final Map <DTNHost, Coord> previousPositions = new HashMap<>( 100 );
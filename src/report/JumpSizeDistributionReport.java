@@ -31,6 +31,7 @@ import java.util.List;
  */
 public final class JumpSizeDistributionReport
 extends SamplingReport {
+	private static final long serialVersionUID = 1L;
 
 	//========================================================================//
 	// Constants
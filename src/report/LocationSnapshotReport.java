@@ -15,6 +15,7 @@ import core.DTNHost;
  * Uses {@link Report#format} for location formatting.
  */
 public class LocationSnapshotReport extends SnapshotReport {
+	private static final long serialVersionUID = 1L;
 
 	@Override
 	protected void writeSnapshot(DTNHost h) {
@@ -22,6 +22,7 @@ import core.SettingsError;
  * {@link MessageLocationReport}
  */
 public class MessageAvailabilityReport extends MessageLocationReport {
+	private static final long serialVersionUID = 1L;
 
 	/** Number of tracked hosts -setting id ({@value}). Defines how many
 	 * hosts are selected for sampling message availability */
@@ -17,6 +17,7 @@ import core.MessageListener;
  * Ignores the messages that were created during the warm up period.
  */
 public class MessageDelayReport extends Report implements MessageListener {
+	private static final long serialVersionUID = 1L;
 	public static final String HEADER =
 	    "# messageDelay  cumulativeProbability";
 	/** all message delays */
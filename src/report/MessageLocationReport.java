@@ -18,6 +18,7 @@ import core.UpdateListener;
  * The messages that are reported and the reporting interval can be configured.
  */
 public class MessageLocationReport extends Report implements UpdateListener {
+	private static final long serialVersionUID = 1L;
 	/** Reporting granularity -setting id ({@value}).
 	 * Defines the interval how often (seconds) a new snapshot of message
 	 * locations is created */
@@ -12,6 +12,7 @@ import core.MovementListener;
 public final class MovementListenerTestReport
 extends Report
 implements MovementListener {
+	private static final long serialVersionUID = 1L;
 	private static MovementListener DELEGATE;
 
 	public static void setDelegate(final MovementListener delegate) {
@@ -22,6 +22,7 @@ import java.util.List;
  */
 public class NodeDensityReport
 extends SamplingReport {
+	private static final long serialVersionUID = 1L;
 	//========================================================================//
 	// Settings
 	//========================================================================//
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package report;
+
+import core.Profiler;
+
+/**
+ * Reports how the (real) time of the simulation loop was divided between
+ * its phases and router classes, and how much memory was allocated in each
+ * phase. Enables the {@link Profiler} when created. The times include only
+ * the world updates after this report was created (i.e., no warm up
+ * movement or initialization).
+ */
+public class PhaseTimeReport extends Report {
+	private static final long serialVersionUID = 1L;
+	public static final String HEADER =
+		"# phase  time(s)  share(%)  calls  allocated(MB)  alloc(MB/s)";
+
+	/**
+	 * Constructor.
+	 */
+	public PhaseTimeReport() {
+		init();
+		Profiler.setEnabled(true);
+	}
+
+	@Override
+	public void done() {
+		double total = Profiler.getTotalNanos();
+
+		write("updates: " + Profiler.getNrofUpdates());
+		write("total time (s): " + format(total / 1e9));
+		if (Profiler.isAllocationMeasured()) {
+			write("allocated (MB): " + format(mb(
+					Profiler.getTotalAllocatedBytes())));
+			write("allocation rate (MB/s): " + format(rate(
+					Profiler.getTotalAllocatedBytes(), total)));
+		}
+
+		write("");
+		write(HEADER);
+		for (int i=0; i < Profiler.PHASE_NAMES.length; i++) {
+			long nanos = Profiler.getNanos(i);
+			long bytes = Profiler.getAllocatedBytes(i);
+			write(Profiler.PHASE_NAMES[i] + " " + format(nanos / 1e9) + " " +
+					format(share(nanos, total)) + " " +
+					Profiler.getCalls(i) + " " + format(mb(bytes)) + " " +
+					format(rate(bytes, nanos)));
+		}
+		long other = Profiler.getOtherNanos();
+		write(Profiler.OTHER_NAME + " " + format(other / 1e9) + " " +
+				format(share(other, total)));
+
+		write("");
+		write("# router  time(s)  share(%)");
+		for (String name : Profiler.getRouterNames()) {
+			long nanos = Profiler.getRouterNanos(name);
+			write(name + " " + format(nanos / 1e9) + " " +
+					format(share(nanos, total)));
+		}
+
+		super.done();
+	}
+
+	private double share(long nanos, double total) {
+		return total > 0 ? 100 * nanos / total : 0;
+	}
+
+	private double mb(long bytes) {
+		return bytes / 1e6;
+	}
+
+	private double rate(long bytes, double nanos) {
+		return nanos > 0 ? mb(bytes) / (nanos / 1e9) : 0;
+	}
+}
@@ -29,6 +29,7 @@ import java.util.List;
  */
 public final class RadiusOfGyrationReport
 extends SamplingReport {
+	private static final long serialVersionUID = 1L;
 
 	//========================================================================//
 	// Instance vars
@@ -7,7 +7,9 @@ package report;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -26,7 +28,8 @@ import core.SimScenario;
  * the reports implement warm up feature ({@link #WARMUP_S}) but the
  * implementations are always report specific.
  */
-public abstract class Report {
+public abstract class Report implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/** Name space of the settings that are common to all reports ({@value}). */
 	public static final String REPORT_NS = "Report";
 	/** The interval (simulated seconds) of creating new settings files
@@ -51,10 +54,13 @@ public abstract class Report {
 	public static final String WARMUP_S = "warmup";
 	/** Suffix of report files without explicit output */
 	public static final String OUT_SUFFIX = ".txt";
+	/** Part added to the output file names of restored reports, followed
+	 * by the run number */
+	public static final String RESTORED_INFIX = "_restored";
 	/** Suffix for reports that are created on n second intervals */
 	public static final String INTERVALLED_FORMAT ="%04d" + OUT_SUFFIX;
 	/** The print writer used to write output. See {@link #write(String)} */
-	protected PrintWriter out;
+	protected transient PrintWriter out;
 	/** String value for values that could not be calculated */
 	public static final String NAN = "NaN";
 	private String prefix = "";
@@ -66,6 +72,8 @@ public abstract class Report {
 	private double outputInterval;
 	private double lastReportTime;
 	private String outFileName;
+	/** name of the file the output is currently written to */
+	private String currentOutput;
 	private String scenarioName;
 
 	/**
@@ -193,6 +201,7 @@ public abstract class Report {
 	private void createOutput(String outFileName) {
 		try {
 			this.out = new PrintWriter(new FileWriter(outFileName));
+			this.currentOutput = outFileName;
 		} catch (IOException e) {
 			throw new SimError("Couldn't open file '" + outFileName +
 					"' for report output\n" + e.getMessage(), e);
@@ -210,6 +219,46 @@ public abstract class Report {
 		this.lastOutputSuffix++;
 	}
 
+	/**
+	 * Reads the report from a checkpoint and opens a new output file in
+	 * place of the one the report was writing. The name of the new file
+	 * has {@value #RESTORED_INFIX} and the number of the restoring run
+	 * added, so that the output of the original run isn't overwritten, and
+	 * runs that continue from the same checkpoint don't overwrite each
+	 * other's output. Only the output that is written after the restore
+	 * ends up in the file.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.outFileName = restoredName(this.outFileName);
+		if (this.currentOutput == null) {
+			return;
+		}
+		if (this.outputInterval > 0) {
+			this.lastOutputSuffix--; // same interval, new name
+			createSuffixedOutput(this.outFileName);
+		}
+		else {
+			createOutput(this.outFileName);
+		}
+	}
+
+	/**
+	 * Returns the output file name of a restored report
+	 * @param name The name in the original run
+	 * @return The name with {@value #RESTORED_INFIX} and the run number
+	 * added (before the {@value #OUT_SUFFIX} suffix, if there is one)
+	 */
+	private String restoredName(String name) {
+		String tag = RESTORED_INFIX + (Settings.getRunIndex() + 1);
+		if (name.endsWith(OUT_SUFFIX)) {
+			return name.substring(0, name.length() - OUT_SUFFIX.length()) +
+				tag + OUT_SUFFIX;
+		}
+		return name + tag;
+	}
+
 	/**
 	 * This method should be called before every new (complete) event the
 	 * report logs. If the report has no meaningful use for multiple reports,
@@ -264,6 +313,15 @@ public abstract class Report {
 		return this.scenarioName;
 	}
 
+	/**
+	 * Returns the name of the report's output file (without the number
+	 * suffix of intervalled reports)
+	 * @return the name of the output file
+	 */
+	protected String getOutputFileName() {
+		return this.outFileName;
+	}
+
 	/**
 	 * Returns the current simulation time from the SimClock
 	 * @return the current simulation time from the SimClock
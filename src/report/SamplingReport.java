@@ -16,6 +16,7 @@ import java.util.List;
 public abstract class SamplingReport
 extends Report
 implements UpdateListener {
+	private static final long serialVersionUID = 1L;
 
 	//========================================================================//
 	// Settings
@@ -17,6 +17,7 @@ import core.UpdateListener;
  * configurable-amount-of seconds (see {@link #GRANULARITY}).
  */
 public abstract class SnapshotReport extends Report implements UpdateListener {
+	private static final long serialVersionUID = 1L;
 	/** Reporting granularity -setting id ({@value}).
 	 * Defines the interval how often (seconds) a new snapshot is created */
 	public static final String GRANULARITY = "granularity";
@@ -19,6 +19,7 @@ import core.UpdateListener;
  */
 public class TotalContactTimeReport extends ContactTimesReport implements
 		UpdateListener {
+	private static final long serialVersionUID = 1L;
 
 	/** The header of every report file */
 	public static final String HEADER = "# time totalContactTime";
@@ -12,6 +12,7 @@ import routing.SpyRouter;
  * Report metrics corresponding to the spy router scenario.
  */
 public class UniReport extends Report implements ConnectionListener, UpdateListener , MessageListener{
+    private static final long serialVersionUID = 1L;
     private int spyMeetings;
     private int spyCounterMeeting;
 
@@ -24,7 +25,6 @@ public class UniReport extends Report implements ConnectionListener, UpdateListe
     private int informationTransfers;
     private int disruptedTransfers;
     private int interrupted;
-    private static int counter = 0;
 
     public UniReport() {
     }
@@ -45,7 +45,8 @@ public class UniReport extends Report implements ConnectionListener, UpdateListe
 
     @Override
     protected String getScenarioName() {
-        return "Uni Report iter:" + String.valueOf(counter++);
+        // the batch run index, so that parallel runs are numbered like sequential ones
+        return "Uni Report iter:" + String.valueOf(Settings.getRunIndex());
     }
 
 
@@ -73,7 +74,6 @@ public class UniReport extends Report implements ConnectionListener, UpdateListe
         write("Number of Information Exchanges: " + informationTransfers);
         write("Number of Disrupted Exchanges: " + disruptedTransfers);
         write("Number of Interrupted Exchanges: " + interrupted);
-        counter++;
 
 
         super.done();
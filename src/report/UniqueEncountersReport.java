@@ -18,6 +18,7 @@ import core.UpdateListener;
  */
 public class UniqueEncountersReport extends Report implements
 	ConnectionListener, UpdateListener {
+	private static final long serialVersionUID = 1L;
 
 	private int[][] nodeRelationships;
 
@@ -29,6 +29,7 @@ import core.SimClock;
  * {@link #update()}).
  */
 public abstract class ActiveRouter extends MessageRouter {
+	private static final long serialVersionUID = 1L;
 	/** Delete delivered messages -setting id ({@value}). Boolean valued.
 	 * If set to true and final recipient of a message rejects it because it
 	 * already has it, the message is deleted from buffer. Default=false. */
@@ -631,6 +632,23 @@ public abstract class ActiveRouter extends MessageRouter {
 		}
 	}
 
+	/**
+	 * Returns the current time if the router has connections, applications
+	 * or an energy model, and otherwise the time of the next TTL check,
+	 * which is the only thing {@link #update()} does without connections.
+	 * Subclasses whose updates do something else without connections must
+	 * override this.
+	 */
+	@Override
+	public double getNextUpdateTime() {
+		if (!this.sendingConnections.isEmpty() ||
+				!getConnections().isEmpty() || hasApplications() ||
+				this.energy != null) {
+			return SimClock.getTime();
+		}
+		return this.lastTtlCheck + TTL_CHECK_INTERVAL;
+	}
+
 	/**
 	 * Method is called just before a transfer is aborted at {@link #update()}
 	 * due connection going down. This happens on the sending host.
@@ -11,6 +11,7 @@ import core.Settings;
  * connections at a time.
  */
 public class EpidemicRouter extends ActiveRouter {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Constructor. Creates a new message router based on the settings in
@@ -14,6 +14,7 @@ import core.Settings;
  * (or fragments) and forwards it to the first available contact.
  */
 public class FirstContactRouter extends ActiveRouter {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Constructor. Creates a new message router based on the settings in
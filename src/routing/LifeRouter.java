@@ -15,6 +15,7 @@ import core.Connection;
  * Router module mimicking the game-of-life behavior
  */
 public class LifeRouter extends ActiveRouter {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Neighboring message count -setting id ({@value}). Two comma
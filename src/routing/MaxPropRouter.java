@@ -36,6 +36,7 @@ import core.Settings;
  * Protocols</I> Chants, 2008
  */
 public class MaxPropRouter extends ActiveRouter {
+	private static final long serialVersionUID = 1L;
     /** Router's setting namespace ({@value})*/
 	public static final String MAXPROP_NS = "MaxPropRouter";
 	/**
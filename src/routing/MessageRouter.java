@@ -4,6 +4,7 @@
  */
 package routing;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -26,7 +27,8 @@ import util.Tuple;
 /**
  * Superclass for message routers.
  */
-public abstract class MessageRouter {
+public abstract class MessageRouter implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/** Message buffer size -setting id ({@value}). Long value in bytes.*/
 	public static final String B_SIZE_S = "bufferSize";
 	/**
@@ -189,6 +191,27 @@ public abstract class MessageRouter {
 		}
 	}
 
+	/**
+	 * Returns the earliest time when {@link #update()} can do something,
+	 * provided that nothing (e.g., a new connection or message) happens to
+	 * the router before it. The update rounds before that time can be
+	 * skipped when no other host needs them either (see
+	 * {@link core.World#EVENT_DRIVEN_CONTACTS_S}). This implementation
+	 * returns the current time, i.e., the router is updated at every round.
+	 * @return The time of the next update that is needed
+	 */
+	public double getNextUpdateTime() {
+		return SimClock.getTime();
+	}
+
+	/**
+	 * Returns true if some applications are attached to this router
+	 * @return true if the router has applications
+	 */
+	protected boolean hasApplications() {
+		return !this.applications.isEmpty();
+	}
+
 	/**
 	 * Informs the router about change in connections state.
 	 * @param con The connection that changed
@@ -567,12 +590,10 @@ public abstract class MessageRouter {
 	protected int compareByQueueMode(Message m1, Message m2) {
 		switch (sendQueueMode) {
 		case Q_MODE_RANDOM:
-			/* return randomly (enough) but consistently -1, 0 or 1 */
-			int hash_diff = m1.hashCode() - m2.hashCode();
-			if (hash_diff == 0) {
-				return 0;
-			}
-			return (hash_diff < 0 ? -1 : 1);
+			/* return randomly (enough) but consistently -1, 0 or 1. The
+			 * order is derived from the message IDs (not identity hash codes)
+			 * so that it is the same also after restoring a checkpoint. */
+			return Integer.compare(randomOrderKey(m1), randomOrderKey(m2));
 		case Q_MODE_FIFO:
 			double diff = m1.getReceiveTime() - m2.getReceiveTime();
 			if (diff == 0) {
@@ -585,6 +606,16 @@ public abstract class MessageRouter {
 		}
 	}
 
+	/**
+	 * Returns a key that orders messages randomly but consistently
+	 * @param m The message
+	 * @return The key of the message
+	 */
+	private static int randomOrderKey(Message m) {
+		int h = m.getId().hashCode() * 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
 	/**
 	 * Returns routing information about this router.
 	 * @return The routing information.
@@ -8,6 +8,7 @@ import core.Settings;
 import java.util.List;
 
 public class SpyCounterRouter extends ActiveRouter{
+    private static final long serialVersionUID = 1L;
 
 
     /**
@@ -9,6 +9,7 @@ import java.util.List;
  * Router module mimicking the game-of-life behavior
  */
 public class SpyRouter extends ActiveRouter {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Neighboring message count -setting id ({@value}). Two comma
@@ -5,6 +5,7 @@
 
 package routing.schedule;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -19,20 +20,21 @@ import java.util.Set;
  * Dijkstra's shortest path implementation for schedule data
  */
 /* TODO: combine this with movement.map.DijkstraPathFinder? */
-public class ScheduleDijkstra {
+public class ScheduleDijkstra implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/** Value for infinite distance  */
 	private static final Double INFINITY = Double.MAX_VALUE;
 	/** Initial size of the priority queue */
 	private static final int PQ_INIT_SIZE = 11;
 
 	/** Map of the times when one could be at certain node */
-	private TimeMap times;
+	private transient TimeMap times;
 	/** Set of already visited nodes (where the shortest path is known) */
-	private Set<Integer> visited;
+	private transient Set<Integer> visited;
 	/** Priority queue of unvisited nodes discovered so far */
-	private Queue<Integer> unvisited;
+	private transient Queue<Integer> unvisited;
 	/** Map of previous schedule on the shortest path(s) */
-	private Map<Integer, ScheduleEntry> prevHops;
+	private transient Map<Integer, ScheduleEntry> prevHops;
 	/** Oracle that know all schedules */
 	private ScheduleOracle oracle;
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import interfaces.ArrayConnectivityGrid;
+import interfaces.ConnectivityGrid;
+import interfaces.ConnectivityOptimizer;
+import interfaces.SweepAndPruneOptimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.Coord;
+import core.DTNHost;
+import core.NetworkInterface;
+
+/**
+ * Superclass for connectivity optimizer tests. Creates interfaces that use
+ * the optimizer given by {@link #getOptimizerType()} and checks the
+ * contract all optimizers share: the near interfaces of every interface
+ * include all the interfaces within its range, compared to a
+ * {@link ConnectivityGrid} that is updated the same way. The subclasses can
+ * check the found interfaces further with
+ * {@link #checkNear(List, List, List)}.
+ */
+public abstract class AbstractConnectivityOptimizerTest extends TestCase {
+	protected static final int NROF_HOSTS = 100;
+	protected static final double RANGE = 10;
+	protected static final double AREA_SIZE = 200;
+	protected TestUtils utils;
+	protected ConnectivityOptimizer optimizer;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		TestSettings ts = new TestSettings();
+		ConnectivityGrid.reset();
+		ArrayConnectivityGrid.reset();
+		SweepAndPruneOptimizer.reset();
+		NetworkInterface.reset();
+
+		ts.setNameSpace(TestUtils.IFACE_NS);
+		ts.putSetting(NetworkInterface.TRANSMIT_RANGE_S, "" + RANGE);
+		ts.putSetting(NetworkInterface.TRANSMIT_SPEED_S, "1");
+		ts.putSetting(NetworkInterface.OPTIMIZER_S, getOptimizerType());
+		this.utils = new TestUtils(null, null, ts);
+	}
+
+	/**
+	 * Returns the type of the tested optimizer (a value of the
+	 * {@link NetworkInterface#OPTIMIZER_S} setting)
+	 * @return The optimizer type
+	 */
+	protected abstract String getOptimizerType();
+
+	/**
+	 * Checks the interfaces the tested optimizer found near an interface.
+	 * This implementation checks nothing; the subclasses check what is
+	 * specific to their optimizer.
+	 * @param candidates The near interfaces returned by the reference grid
+	 * @param inRange The candidates that are within range
+	 * @param near The near interfaces returned by the tested optimizer
+	 */
+	protected void checkNear(List<NetworkInterface> candidates,
+			List<NetworkInterface> inRange, List<NetworkInterface> near) { }
+
+	protected NetworkInterface createInterface(double x, double y) {
+		DTNHost host = utils.createHost(new Coord(x, y));
+		NetworkInterface ni = host.getInterfaces().get(0);
+		this.optimizer = ni.getOptimizer();
+		optimizer.updateLocation(ni); /* added before the host got location */
+		return ni;
+	}
+
+	protected List<NetworkInterface> findNear(NetworkInterface ni) {
+		List<NetworkInterface> near = new ArrayList<NetworkInterface>();
+		optimizer.findNearInterfaces(ni, near);
+		return near;
+	}
+
+	private List<NetworkInterface> createRandomInterfaces(Random rng) {
+		List<NetworkInterface> all = new ArrayList<NetworkInterface>();
+		for (int i=0; i < NROF_HOSTS; i++) {
+			all.add(createInterface(rng.nextDouble() * AREA_SIZE,
+					rng.nextDouble() * AREA_SIZE));
+		}
+		return all;
+	}
+
+	public void testGetNearInterfacesSameAsFind() {
+		List<NetworkInterface> all = createRandomInterfaces(new Random(1));
+		for (NetworkInterface ni : all) {
+			assertEquals(new ArrayList<NetworkInterface>(
+					optimizer.getNearInterfaces(ni)), findNear(ni));
+		}
+	}
+
+	public void testFindsAllInRange() {
+		Random rng = new Random(1);
+		List<NetworkInterface> all = createRandomInterfaces(rng);
+		ConnectivityGrid reference =
+			ConnectivityGrid.ConnectivityGridFactory(-1, RANGE);
+		reference.addInterfaces(all);
+
+		for (int round=0; round < 50; round++) {
+			for (NetworkInterface ni : all) {
+				Coord c = ni.getLocation();
+				ni.getHost().setLocation(new Coord(
+						bound(c.getX() + rng.nextDouble() * 20 - 10),
+						bound(c.getY() + rng.nextDouble() * 20 - 10)));
+			}
+			optimizer.prepareUpdate();
+			for (NetworkInterface ni : all) {
+				optimizer.updateLocation(ni);
+				reference.updateLocation(ni);
+			}
+			for (NetworkInterface ni : all) {
+				List<NetworkInterface> candidates =
+					new ArrayList<NetworkInterface>(
+							reference.getNearInterfaces(ni));
+				List<NetworkInterface> inRange =
+					new ArrayList<NetworkInterface>();
+				for (NetworkInterface other : candidates) {
+					if (ni.getLocation().distance(other.getLocation())
+							<= RANGE) {
+						inRange.add(other);
+					}
+				}
+				List<NetworkInterface> near = findNear(ni);
+				assertTrue(near.containsAll(inRange));
+				checkNear(candidates, inRange, near);
+			}
+		}
+	}
+
+	private double bound(double value) {
+		return Math.max(0, Math.min(AREA_SIZE, value));
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+import core.ActiveHostSet;
+import core.Coord;
+import core.DTNHost;
+import core.NetworkInterface;
+
+/**
+ * Tests for the ActiveHostSet
+ */
+public class ActiveHostSetTest extends TestCase {
+	private TestUtils utils;
+	private List<DTNHost> hosts;
+	private ActiveHostSet set;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		DTNHost.reset();
+		NetworkInterface.reset();
+		TestSettings ts = new TestSettings();
+		this.utils = new TestUtils(null, null, ts);
+		for (int i=0; i < 4; i++) {
+			utils.createHost(new Coord(0, 0));
+		}
+		this.hosts = utils.getAllHosts();
+		this.set = new ActiveHostSet(hosts);
+	}
+
+	private void assertAwake(DTNHost... expected) {
+		DTNHost[] awake = set.getHosts();
+		assertEquals(expected.length, set.size());
+		for (int i=0; i < expected.length; i++) {
+			assertEquals(expected[i], awake[i]);
+		}
+		for (DTNHost host : hosts) {
+			boolean shouldBeAwake = false;
+			for (DTNHost h : expected) {
+				shouldBeAwake |= h == host;
+			}
+			assertEquals(shouldBeAwake, host.isAwake());
+		}
+	}
+
+	public void testSleepAndWakeUp() {
+		DTNHost h0 = hosts.get(0);
+		DTNHost h1 = hosts.get(1);
+		DTNHost h2 = hosts.get(2);
+		DTNHost h3 = hosts.get(3);
+		assertAwake(h0, h1, h2, h3);
+
+		DTNHost[] round = set.getHosts();
+		h2.sleep();
+		h0.sleep();
+		h0.sleep();
+		/* the round's array isn't modified before the next round */
+		assertEquals(h0, round[0]);
+		assertEquals(h2, round[2]);
+		assertAwake(h1, h3);
+
+		h2.wakeUp();
+		assertAwake(h1, h2, h3);
+		h0.wakeUp();
+		h0.wakeUp();
+		assertAwake(h0, h1, h2, h3);
+	}
+
+	public void testTimers() {
+		DTNHost h0 = hosts.get(0);
+		DTNHost h1 = hosts.get(1);
+		DTNHost h2 = hosts.get(2);
+		DTNHost h3 = hosts.get(3);
+
+		h1.sleepUntil(20);
+		h0.sleepUntil(10);
+		h3.sleep();
+		assertAwake(h2);
+
+		set.processTimers(9.9);
+		assertAwake(h2);
+		set.processTimers(15);
+		assertAwake(h0, h2);
+		set.processTimers(20);
+		assertAwake(h0, h1, h2);
+	}
+
+	public void testCancelledTimers() {
+		DTNHost h0 = hosts.get(0);
+		DTNHost h1 = hosts.get(1);
+
+		h0.sleepUntil(10);
+		h0.wakeUp(); /* woken up earlier */
+		h0.sleep(); /* and put to sleep with no wake-up time */
+		h1.sleepUntil(20);
+		h1.sleepUntil(30); /* replaces the earlier time */
+		assertEquals(30.0, set.getNextTimerTime());
+
+		set.processTimers(25);
+		assertAwake(hosts.get(2), hosts.get(3));
+		set.processTimers(30);
+		assertAwake(h1, hosts.get(2), hosts.get(3));
+		assertEquals(Double.POSITIVE_INFINITY, set.getNextTimerTime());
+	}
+
+	public void testConnectionWakesUp() {
+		DTNHost h0 = hosts.get(0);
+		DTNHost h1 = hosts.get(1);
+		h0.sleep();
+		h1.sleep();
+		h0.forceConnection(h1, null, true);
+		assertTrue(h0.isAwake());
+		assertTrue(h1.isAwake());
+	}
+}
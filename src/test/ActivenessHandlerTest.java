@@ -70,5 +70,43 @@ public class ActivenessHandlerTest extends TestCase {
 
 	}
 
+	public void testNextChangeTime() {
+		clock.setTime(0);
+		assertFalse(ah.isActive());
+		assertEquals(in, ah.nextChangeTime(0));
+		clock.setTime(in);
+		assertTrue(ah.isActive());
+		assertEquals(out, ah.nextChangeTime(0));
+		clock.setTime(out + 0.1);
+		assertFalse(ah.isActive());
+		assertEquals(100.0, ah.nextChangeTime(0));
+		clock.setTime(500);
+		assertFalse(ah.isActive());
+		assertFalse(ah.isActive());
+		assertFalse(ah.isActive());
+		assertFalse(ah.isActive());
+		assertEquals(Double.POSITIVE_INFINITY, ah.nextChangeTime(0));
+	}
+
+	public void testNextChangeTimeOfPeriods() {
+		TestSettings ts = new TestSettings();
+		ts.putSetting(ActivenessHandler.ACTIVE_PERIODS_S, "10,5");
+		ActivenessHandler periods = new ActivenessHandler(ts);
+
+		double t = 0;
+		while (t < 50) {
+			clock.setTime(t);
+			boolean active = periods.isActive();
+			double change = periods.nextChangeTime(0);
+			assertTrue(change > t);
+			for (; t < change; t += 0.1) {
+				clock.setTime(t);
+				assertEquals("at " + t, active, periods.isActive());
+			}
+			clock.setTime(t);
+			assertTrue(active != periods.isActive());
+		}
+	}
+
 }
 
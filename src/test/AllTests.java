@@ -25,6 +25,7 @@ public class AllTests {
 		//$JUnit-BEGIN$
 		suite.addTestSuite(WorldTest.class);
 		suite.addTestSuite(ConnectionTest.class);
+		suite.addTestSuite(ConnectionTableTest.class);
 		suite.addTestSuite(ExternalMovementReaderTest.class);
 		suite.addTestSuite(ExternalMovementTest.class);
 		suite.addTestSuite(WKTReaderTest.class);
@@ -47,9 +48,19 @@ public class AllTests {
 		suite.addTestSuite(MaxPropDijkstraTest.class);
 		suite.addTestSuite(MaxPropRouterTest.class);
 		suite.addTestSuite(ScheduledUpdatesQueueTest.class);
+		suite.addTestSuite(MergedEventQueueTest.class);
+		suite.addTestSuite(CheckpointTest.class);
+		suite.addTestSuite(WarmupCacheTest.class);
 		suite.addTestSuite(MessageTest.class);
 		suite.addTestSuite(ModuleCommunicationBusTest.class);
 		suite.addTestSuite(DTNHostTest.class);
+		suite.addTestSuite(ConnectivityGridTest.class);
+		suite.addTestSuite(ArrayConnectivityGridTest.class);
+		suite.addTestSuite(SweepAndPruneOptimizerTest.class);
+		suite.addTestSuite(ActiveHostSetTest.class);
+		suite.addTestSuite(ObstacleMapTest.class);
+		suite.addTestSuite(InterferenceLimitedInterfaceTest.class);
+		suite.addTestSuite(PositionStoreTest.class);
 		//$JUnit-END$
 		return suite;
 	}
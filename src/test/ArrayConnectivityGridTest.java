@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import interfaces.ArrayConnectivityGrid;
+
+import java.util.List;
+
+import core.Coord;
+import core.NetworkInterface;
+
+/**
+ * Tests for the ArrayConnectivityGrid
+ */
+public class ArrayConnectivityGridTest extends
+		AbstractConnectivityOptimizerTest {
+
+	@Override
+	protected String getOptimizerType() {
+		return NetworkInterface.ARRAY_GRID_OPTIMIZER;
+	}
+
+	/**
+	 * Checks that the near interfaces are the same as the
+	 * ConnectivityGrid's, in the same order
+	 */
+	@Override
+	protected void checkNear(List<NetworkInterface> candidates,
+			List<NetworkInterface> inRange, List<NetworkInterface> near) {
+		assertEquals(candidates, near);
+	}
+
+	public void testNearInterfaces() {
+		/* cell size is 5 * range = 50 */
+		NetworkInterface n1 = createInterface(10, 10);
+		NetworkInterface n2 = createInterface(60, 10);
+		NetworkInterface n3 = createInterface(120, 10);
+		NetworkInterface n4 = createInterface(10, 60);
+		ArrayConnectivityGrid grid = (ArrayConnectivityGrid)optimizer;
+
+		List<NetworkInterface> near = findNear(n1);
+		assertEquals(3, near.size());
+		assertEquals(n1, near.get(0));
+		assertEquals(n2, near.get(1));
+		assertEquals(n4, near.get(2));
+
+		near = findNear(n3);
+		assertEquals(2, near.size());
+		assertEquals(n2, near.get(0));
+		assertEquals(n3, near.get(1));
+
+		n3.getHost().setLocation(new Coord(210, 10));
+		grid.updateLocation(n3);
+		assertEquals(1, findNear(n3).size());
+		assertEquals(3, findNear(n2).size());
+
+		grid.removeInterface(n1);
+		assertEquals(0, findNear(n1).size());
+		assertEquals(3, grid.getAllInterfaces().size());
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import util.SplitRandom;
+import core.Checkpoint;
+import core.Coord;
+import core.DTNHost;
+import core.DTNSim;
+import core.Message;
+import core.SimClock;
+import core.SimScenario;
+import core.World;
+
+/**
+ * Tests for saving and restoring checkpoints
+ */
+public class CheckpointTest extends TestCase {
+	private File file;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		/* earlier tests may have left e.g. hosts with listeners that
+		 * can't be serialized to the static fields */
+		DTNSim.resetForNextRun();
+		file = File.createTempFile("checkpoint", ".gz");
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		file.delete();
+		SimScenario.reset();
+	}
+
+	public void testRestore() {
+		SplitRandom rng = new SplitRandom(1, 2);
+		rng.nextDouble();
+		ArrayList<Object> state = new ArrayList<Object>();
+		state.add(rng);
+		state.add(new Coord(1, 2));
+		state.add(state.get(1));
+		SimClock.getInstance().setTime(42);
+
+		Checkpoint.save(file.getPath(), state);
+		SimClock.getInstance().setTime(100);
+
+		List<?> restored = (List<?>)Checkpoint.restore(file.getPath());
+		assertEquals(42.0, SimClock.getTime());
+		assertEquals(3, restored.size());
+		assertEquals(new Coord(1, 2), restored.get(1));
+		assertSame(restored.get(1), restored.get(2));
+
+		SplitRandom restoredRng = (SplitRandom)restored.get(0);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(rng.nextDouble(), restoredRng.nextDouble());
+			assertEquals(rng.nextInt(7), restoredRng.nextInt(7));
+		}
+	}
+
+	public void testRestoredWorldContinuesIdentically() {
+		TestSettings ts = new TestSettings();
+		ts.putSetting("Scenario.updateInterval", "0.5");
+		ts.putSetting("MovementModel.worldSize", "200,200");
+		ts.putSetting("MovementModel.rngSeed", "1");
+		ts.putSetting("Group.nrofHosts", "40");
+		ts.putSetting("Group.groupID", "n");
+		ts.putSetting("Group.movementModel", "RandomWaypoint");
+		ts.putSetting("Group.speed", "0.5, 1.5");
+		ts.putSetting("Group.waitTime", "0, 60");
+		ts.putSetting("Group.router", "EpidemicRouter");
+		ts.putSetting("Group.bufferSize", "10M");
+		ts.putSetting("Group.msgTtl", "2");
+		ts.putSetting("Group.nrofInterfaces", "1");
+		ts.putSetting("Group.interface1", "btInterface");
+		ts.putSetting("btInterface.type", "SimpleBroadcastInterface");
+		ts.putSetting("btInterface.transmitSpeed", "250k");
+		ts.putSetting("btInterface.transmitRange", "20");
+		ts.putSetting("Events.nrof", "1");
+		ts.putSetting("Events1.class", "MessageEventGenerator");
+		ts.putSetting("Events1.interval", "1, 2");
+		ts.putSetting("Events1.size", "10k, 100k");
+		ts.putSetting("Events1.hosts", "0, 39");
+		ts.putSetting("Events1.prefix", "M");
+		DTNSim.resetForNextRun();
+
+		SimScenario scen = SimScenario.getInstance();
+		World world = scen.getWorld();
+		run(world, 1000);
+
+		Checkpoint.save(file.getPath(), scen);
+		List<String> expected = run(world, 1000);
+
+		SimScenario restored = (SimScenario)Checkpoint.restore(file.getPath());
+		assertNotSame(scen, restored);
+		assertEquals(expected, run(restored.getWorld(), 1000));
+	}
+
+	/**
+	 * Updates the world and returns the state of the hosts after every
+	 * update: the exact locations and the messages and connections in the
+	 * order they are iterated
+	 */
+	private List<String> run(World world, int nrofUpdates) {
+		List<String> states = new ArrayList<String>();
+		for (int i = 0; i < nrofUpdates; i++) {
+			world.update();
+			StringBuilder state = new StringBuilder();
+			state.append(Double.doubleToLongBits(SimClock.getTime()));
+			for (DTNHost h : world.getHosts()) {
+				Coord c = h.getLocation();
+				state.append(" " + Double.doubleToLongBits(c.getX()) + "," +
+						Double.doubleToLongBits(c.getY()) + ":");
+				for (Message m : h.getMessageCollection()) {
+					state.append(m.getId() + ",");
+				}
+				state.append(h.getConnections());
+			}
+			states.add(state.toString());
+		}
+		return states;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.CBRConnection;
+import core.Connection;
+import core.ConnectionTable;
+
+/**
+ * Tests for the ConnectionTable
+ */
+public class ConnectionTableTest extends TestCase {
+	private ConnectionTable table;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.table = new ConnectionTable();
+	}
+
+	private Connection newConnection() {
+		return new CBRConnection(null, null, null, null, 1);
+	}
+
+	/**
+	 * Returns addresses whose home slot is the last slot of a table with
+	 * the given capacity. Uses the same hash as the table.
+	 */
+	private List<Integer> lastSlotAddresses(int capacity, int count) {
+		List<Integer> addresses = new ArrayList<Integer>();
+		int mask = capacity - 1;
+		for (int a=0; addresses.size() < count; a++) {
+			if (((a * 0x9E3779B9 >>> 16) & mask) == mask) {
+				addresses.add(a);
+			}
+		}
+		return addresses;
+	}
+
+	public void testPutGetRemove() {
+		Connection c1 = newConnection();
+		Connection c2 = newConnection();
+		Connection c3 = newConnection();
+
+		assertNull(table.get(1));
+		table.put(1, c1);
+		table.put(2, c2);
+		assertEquals(2, table.size());
+		assertSame(c1, table.get(1));
+		assertSame(c2, table.get(2));
+		assertNull(table.get(3));
+
+		table.put(1, c3); /* replaces */
+		assertEquals(2, table.size());
+		assertSame(c3, table.get(1));
+
+		assertSame(c3, table.remove(1));
+		assertNull(table.remove(1));
+		assertNull(table.get(1));
+		assertSame(c2, table.get(2));
+		assertEquals(1, table.size());
+	}
+
+	public void testResize() {
+		Connection[] cons = new Connection[100];
+		for (int i=0; i < cons.length; i++) {
+			cons[i] = newConnection();
+			table.put(i * 7, cons[i]);
+			assertEquals(i + 1, table.size());
+			for (int j=0; j <= i; j++) {
+				assertSame(cons[j], table.get(j * 7));
+			}
+		}
+		for (int i=0; i < cons.length; i += 2) {
+			assertSame(cons[i], table.remove(i * 7));
+		}
+		assertEquals(cons.length / 2, table.size());
+		for (int i=0; i < cons.length; i++) {
+			assertEquals(i % 2 == 0 ? null : cons[i], table.get(i * 7));
+		}
+	}
+
+	public void testWrapAroundProbeChain() {
+		/* three entries take a table of 8 slots; all of these start
+		 * their probe sequence from the last slot */
+		List<Integer> a = lastSlotAddresses(8, 3);
+		Connection c0 = newConnection();
+		Connection c1 = newConnection();
+		Connection c2 = newConnection();
+		table.put(a.get(0), c0);
+		table.put(a.get(1), c1); /* wraps to the first slot */
+		table.put(a.get(2), c2);
+		assertSame(c0, table.get(a.get(0)));
+		assertSame(c1, table.get(a.get(1)));
+		assertSame(c2, table.get(a.get(2)));
+
+		/* the rest of the chain must move back over the wrap */
+		assertSame(c0, table.remove(a.get(0)));
+		assertNull(table.get(a.get(0)));
+		assertSame(c1, table.get(a.get(1)));
+		assertSame(c2, table.get(a.get(2)));
+
+		assertSame(c1, table.remove(a.get(1)));
+		assertSame(c2, table.get(a.get(2)));
+		assertSame(c2, table.remove(a.get(2)));
+		assertEquals(0, table.size());
+	}
+
+	public void testSameAsHashMap() {
+		Random rng = new Random(1);
+		HashMap<Integer, Connection> reference =
+			new HashMap<Integer, Connection>();
+
+		for (int i=0; i < 10000; i++) {
+			int address = rng.nextInt(64);
+			if (rng.nextBoolean()) {
+				Connection con = newConnection();
+				reference.put(address, con);
+				table.put(address, con);
+			} else {
+				assertSame(reference.remove(address), table.remove(address));
+			}
+			assertEquals(reference.size(), table.size());
+			for (int a=0; a < 64; a++) {
+				assertSame(reference.get(a), table.get(a));
+			}
+		}
+	}
+}
@@ -14,6 +14,7 @@ import core.Message;
 import core.NetworkInterface;
 import core.ModuleCommunicationBus;
 import core.SimClock;
+import core.VBRConnection;
 
 /**
  * Some tests for the Connection class.
@@ -198,9 +199,82 @@ public class ConnectionTest extends TestCase {
 		assertEquals(count, c[0].getTotalBytesTransferred(), 1);
 	}
 
+	public void testVBRSpeedChanges() {
+		int[] speeds = {100, 50};
+		TestSettings ts = new TestSettings();
+		ts.setNameSpace(TestUtils.IFACE_NS);
+		ts.putSetting(NetworkInterface.TRANSMIT_RANGE_S, "1.0");
+		ts.putSetting(NetworkInterface.TRANSMIT_SPEED_S, "1");
+		TestDTNHost[] hosts = new TestDTNHost[2];
+		for (int i=0; i < hosts.length; i++) {
+			NetworkInterface ni = new VBRTestInterface(ts, speeds, i);
+			List<NetworkInterface> li = new ArrayList<NetworkInterface>();
+			li.add(ni);
+			hosts[i] = new TestDTNHost(li, new ModuleCommunicationBus(), ts);
+		}
+		VBRConnection con = new VBRConnection(hosts[0],
+				hosts[0].getInterfaces().get(0), hosts[1],
+				hosts[1].getInterfaces().get(0));
+
+		con.startTransfer(hosts[0], new Message(hosts[0], hosts[1], "v",
+				1000));
+		assertEquals(50.0, con.getSpeed());
+		assertEquals(START_TIME + 20, con.getTransferDoneTime());
+
+		clock.advance(4);
+		speeds[1] = 25; /* not told, so no effect */
+		con.update();
+		assertEquals(800, con.getRemainingByteCount());
+
+		speeds[1] = 100;
+		con.speedChanged();
+		assertEquals(100.0, con.getSpeed());
+		assertEquals(800, con.getRemainingByteCount());
+		assertEquals(START_TIME + 12, con.getTransferDoneTime());
+
+		clock.advance(7.5);
+		assertFalse(con.isMessageTransferred());
+		assertEquals(50, con.getRemainingByteCount());
+		clock.advance(0.5);
+		assertTrue(con.isMessageTransferred());
+	}
+
 	public void testGetOtherNode() {
 		assertEquals(h[1], c[0].getOtherNode(h[0]));
 		assertEquals(h[0], c[0].getOtherNode(h[1]));
 	}
 
+	/**
+	 * Interface whose transmit speed is read from an array and whose speed
+	 * changes are told to the connections by the test
+	 */
+	private static class VBRTestInterface extends TestInterface {
+		private int[] speeds;
+		private int index;
+
+		public VBRTestInterface(TestSettings s, int[] speeds, int index) {
+			super(s);
+			this.speeds = speeds;
+			this.index = index;
+		}
+
+		public VBRTestInterface(VBRTestInterface ti) {
+			super(ti);
+			this.speeds = ti.speeds;
+			this.index = ti.index;
+		}
+
+		public NetworkInterface replicate() {
+			return new VBRTestInterface(this);
+		}
+
+		public int getTransmitSpeed(NetworkInterface ni) {
+			return speeds[index];
+		}
+
+		public double getSpeedChangeTime() {
+			return Double.MAX_VALUE;
+		}
+	}
+
 }
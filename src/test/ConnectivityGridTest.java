@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import interfaces.ConnectivityGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.Coord;
+import core.DTNHost;
+import core.NetworkInterface;
+import core.World;
+
+/**
+ * Tests for the ConnectivityGrid
+ */
+public class ConnectivityGridTest extends TestCase {
+	private static final int NROF_HOSTS = 100;
+	private static final double RANGE = 10;
+	private TestSettings ts;
+	private TestUtils utils;
+	private ConnectivityGrid grid;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ts = new TestSettings();
+		ConnectivityGrid.reset();
+		NetworkInterface.reset();
+
+		ts.setNameSpace(TestUtils.IFACE_NS);
+		ts.putSetting(NetworkInterface.TRANSMIT_RANGE_S, "" + RANGE);
+		ts.putSetting(NetworkInterface.TRANSMIT_SPEED_S, "1");
+		this.utils = new TestUtils(null, null, ts);
+	}
+
+	/**
+	 * Sets an optimization setting and reads the grid settings again
+	 */
+	private void setOptimization(String name, String value) {
+		ts.setNameSpace(World.OPTIMIZATION_SETTINGS_NS);
+		ts.putSetting(name, value);
+		ts.setNameSpace(TestUtils.IFACE_NS);
+		ConnectivityGrid.reset();
+	}
+
+	private NetworkInterface createInterface(double x, double y) {
+		DTNHost host = utils.createHost(new Coord(x, y));
+		NetworkInterface ni = host.getInterfaces().get(0);
+		this.grid = (ConnectivityGrid)ni.getOptimizer();
+		grid.updateLocation(ni); /* added before the host got its location */
+		return ni;
+	}
+
+	private List<NetworkInterface> findNear(NetworkInterface ni) {
+		List<NetworkInterface> near = new ArrayList<NetworkInterface>();
+		grid.findNearInterfaces(ni, near);
+		return near;
+	}
+
+	public void testTunedCellSizeKeepsOrder() {
+		ConnectivityGrid reference =
+			ConnectivityGrid.ConnectivityGridFactory(-1, RANGE);
+		setOptimization(ConnectivityGrid.AUTO_CELL_SIZE_S, "true");
+		setOptimization(ConnectivityGrid.AUTO_CELL_SIZE_INTERVAL_S, "1");
+
+		Random rng = new Random(1);
+		List<NetworkInterface> all = new ArrayList<NetworkInterface>();
+		for (int i=0; i < NROF_HOSTS; i++) {
+			all.add(createInterface(rng.nextDouble() * 200,
+					rng.nextDouble() * 200));
+		}
+		reference.addInterfaces(all);
+
+		for (int round=0; round < 50; round++) {
+			for (NetworkInterface ni : all) {
+				Coord c = ni.getLocation();
+				ni.getHost().setLocation(new Coord(
+						bound(c.getX() + rng.nextDouble() * 20 - 10),
+						bound(c.getY() + rng.nextDouble() * 20 - 10)));
+			}
+			grid.prepareUpdate();
+			/* the cells are updated one interface at a time, as in the
+			 * host updates, so the later interfaces are in old cells */
+			for (NetworkInterface ni : all) {
+				grid.updateLocation(ni);
+				reference.updateLocation(ni);
+				List<NetworkInterface> inRange =
+					new ArrayList<NetworkInterface>();
+				for (NetworkInterface other :
+						reference.getNearInterfaces(ni)) {
+					if (ni.getLocation().distance(other.getLocation())
+							<= RANGE) {
+						inRange.add(other);
+					}
+				}
+				assertEquals(inRange, findNear(ni));
+			}
+		}
+	}
+
+	public void testVerletListsRebuiltAfterLongMove() {
+		setOptimization(ConnectivityGrid.VERLET_SKIN_S, "4");
+		NetworkInterface n1 = createInterface(100, 100);
+		NetworkInterface n2 = createInterface(115, 100);
+		assertEquals(1, findNear(n1).size()); /* range + skin is 14 */
+
+		/* less than half of the skin: the lists are kept */
+		n2.getHost().setLocation(new Coord(113.5, 100));
+		grid.prepareUpdate();
+		assertEquals(1, findNear(n1).size());
+
+		/* more than half of the skin since the build: built again */
+		n2.getHost().setLocation(new Coord(109, 100));
+		grid.prepareUpdate();
+		List<NetworkInterface> near = findNear(n1);
+		assertEquals(2, near.size());
+		assertEquals(n1, near.get(0));
+		assertEquals(n2, near.get(1));
+	}
+
+	private double bound(double value) {
+		return Math.max(0, Math.min(200, value));
+	}
+}
@@ -5,6 +5,8 @@
 package test;
 
 import input.BinaryEventsReader;
+import input.ConnectionEvent;
+import input.ContactTraceReader;
 import input.ExternalEvent;
 import input.ExternalEventsQueue;
 import input.ExternalEventsReader;
@@ -12,6 +14,7 @@ import input.MessageCreateEvent;
 import input.StandardEventsReader;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.PrintWriter;
 import java.util.List;
 
@@ -82,6 +85,33 @@ public class ExternalEventsQueueTest extends TestCase {
 	}
 
 
+	public void testContactTraceEEQ() throws Exception {
+		File traceFile = File.createTempFile("TempTraceTest",
+				ContactTraceReader.TRACE_EXT);
+		FileOutputStream out = new FileOutputStream(traceFile);
+		out.write(ContactTraceReader.MAGIC);
+		out.write(new byte[] {1, 10}); // version 1, 10 units per second
+		out.write(new byte[] {15, 1<<1 | 1, 2}); // 1 up 2 @ 1.5
+		out.write(new byte[] {0, 2<<1 | 1, 3}); // 2 up 3 @ 1.5
+		out.write(new byte[] {(byte)0xac, 0x02, 1<<1, (byte)0xac, 0x02});
+		out.close(); // ^ 1 down 300 @ 31.5 (delta 300 as a two byte varint)
+
+		eeq = new ExternalEventsQueue(traceFile.getAbsolutePath(), 2);
+		double[] times = {1.5, 1.5, 31.5};
+		int[][] hosts = {{1, 2}, {2, 3}, {1, 300}};
+		for (int i=0; i < times.length; i++) {
+			assertEquals(times[i], eeq.nextEventsTime());
+			ExternalEvent ee = eeq.nextEvent();
+			assertTrue(ee instanceof ConnectionEvent);
+			assertEquals(times[i], ee.getTime());
+			assertEquals(hosts[i][0], ee.getAffectedHosts()[0]);
+			assertEquals(hosts[i][1], ee.getAffectedHosts()[1]);
+			assertEquals(i < 2, ee.toString().startsWith("CONN up"));
+		}
+		assertEquals(Double.MAX_VALUE, eeq.nextEventsTime());
+		assertTrue(traceFile.delete()); // make sure all locks are gone
+	}
+
 	private void checkEeq(ExternalEventsQueue eeq, int preloadVal) {
 		ExternalEvent ee;
 		assertEquals(msgTimes[0],eeq.nextEventsTime());
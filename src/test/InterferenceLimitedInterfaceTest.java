@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import interfaces.ConnectivityGrid;
+import interfaces.InterferenceLimitedInterface;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import routing.PassiveRouter;
+import core.Connection;
+import core.Coord;
+import core.DTNHost;
+import core.Message;
+import core.MessageListener;
+import core.ModuleCommunicationBus;
+import core.NetworkInterface;
+import core.SimClock;
+
+/**
+ * Tests for the InterferenceLimitedInterface
+ */
+public class InterferenceLimitedInterfaceTest extends TestCase {
+	private static final int SPEED = 1000000;
+	private TestSettings ts;
+	private List<DTNHost> hosts;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		SimClock.reset();
+		DTNHost.reset();
+		NetworkInterface.reset();
+		ts = new TestSettings();
+		ConnectivityGrid.reset();
+		ts.setNameSpace(TestUtils.IFACE_NS);
+		ts.putSetting(NetworkInterface.TRANSMIT_RANGE_S, "10");
+		ts.putSetting(NetworkInterface.TRANSMIT_SPEED_S, "" + SPEED);
+		hosts = new ArrayList<DTNHost>();
+	}
+
+	private DTNHost createHost(double x, double y) {
+		List<NetworkInterface> li = new ArrayList<NetworkInterface>();
+		li.add(new InterferenceLimitedInterface(ts));
+		DTNHost host = new DTNHost(new ArrayList<MessageListener>(), null,
+				"n", li, new ModuleCommunicationBus(),
+				new StationaryMovement(new Coord(x, y)), new PassiveRouter(ts));
+		hosts.add(host);
+		return host;
+	}
+
+	private NetworkInterface iface(DTNHost host) {
+		return host.getInterfaces().get(0);
+	}
+
+	/**
+	 * Updates the interface of the host and checks that its speed is
+	 * computed from the current number of transmitting neighbors and
+	 * transmissions
+	 */
+	private void updateAndCheck(DTNHost host) {
+		NetworkInterface ni = iface(host);
+		ni.update();
+
+		int active = 1;
+		int transmissions = 0;
+		for (Connection con : ni.getConnections()) {
+			if (con.getOtherInterface(ni).isTransferring()) {
+				active++;
+			}
+			if (con.isTransferring()) {
+				transmissions++;
+			}
+		}
+		active = Math.max(2, active);
+		transmissions = Math.max(1, transmissions);
+		int expected = (int)Math.floor((double)SPEED /
+				(Math.sqrt(active * Math.log(active))) / transmissions);
+		assertEquals(expected, ni.getTransmitSpeed(null));
+	}
+
+	private void updateAll() {
+		for (DTNHost host : hosts) {
+			updateAndCheck(host);
+		}
+	}
+
+	public void testTransmittingNeighbors() {
+		DTNHost h0 = createHost(0, 0);
+		DTNHost h1 = createHost(5, 0);
+		DTNHost h2 = createHost(0, 5);
+		createHost(100, 100);
+		updateAll();
+		assertEquals(2, iface(h0).getConnections().size());
+
+		/* a transfer between h0 and h1 */
+		Connection con = iface(h0).getConnections().get(0);
+		assertEquals(h1, con.getOtherNode(h0));
+		con.startTransfer(h0, new Message(h0, h1, "M1", 100));
+		updateAll();
+		assertTrue(iface(h0).isTransferring());
+		assertTrue(iface(h1).isTransferring());
+		assertFalse(iface(h2).isTransferring());
+
+		/* h2 leaves and comes back while the transfer goes on */
+		h2.setLocation(new Coord(50, 50));
+		updateAll();
+		assertEquals(0, iface(h2).getConnections().size());
+		h2.setLocation(new Coord(0, 5));
+		updateAll();
+		assertEquals(2, iface(h2).getConnections().size());
+
+		/* the transfer ends */
+		con.finalizeTransfer();
+		updateAll();
+		assertFalse(iface(h0).isTransferring());
+		updateAll();
+
+		/* a transferring connection goes down */
+		con = iface(h0).getConnections().get(0);
+		con.startTransfer(h0, new Message(h0, con.getOtherNode(h0), "M2",
+				100));
+		updateAll();
+		h0.setLocation(new Coord(50, 0));
+		updateAll();
+		assertEquals(0, iface(h0).getConnections().size());
+		updateAll();
+		assertFalse(iface(h1).isTransferring());
+		assertFalse(iface(h2).isTransferring());
+	}
+}
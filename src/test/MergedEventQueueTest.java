@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import input.MergedEventQueue;
+import input.ScheduledUpdatesQueue;
+import junit.framework.TestCase;
+import core.SimClock;
+
+/**
+ * Tests for the MergedEventQueue
+ */
+public class MergedEventQueueTest extends TestCase {
+	private static double MAX = Double.MAX_VALUE;
+	private MergedEventQueue meq;
+	private ScheduledUpdatesQueue q1;
+	private ScheduledUpdatesQueue q2;
+	private ScheduledUpdatesQueue q3;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		SimClock.reset();
+		meq = new MergedEventQueue();
+		q1 = new ScheduledUpdatesQueue();
+		q2 = new ScheduledUpdatesQueue();
+		q3 = new ScheduledUpdatesQueue();
+	}
+
+	public void testEmpty() {
+		assertEquals(MAX, meq.nextEventsTime());
+		assertNull(meq.nextQueue());
+		assertEquals(MAX, meq.nextEvent().getTime());
+
+		meq.addQueue(q1);
+		assertEquals(MAX, meq.nextEventsTime());
+		assertEquals(MAX, meq.nextEvent().getTime());
+	}
+
+	public void testMerging() {
+		q1.addUpdate(1);
+		q1.addUpdate(7);
+		q2.addUpdate(3);
+		q2.addUpdate(4);
+		q3.addUpdate(0.5);
+		q3.addUpdate(9);
+		meq.addQueue(q1);
+		meq.addQueue(q2);
+		meq.addQueue(q3);
+
+		double[] times = {0.5, 1, 3, 4, 7, 9, MAX};
+		for (double time : times) {
+			assertEquals(time, meq.nextEventsTime());
+			assertEquals(time, meq.nextEvent().getTime());
+		}
+	}
+
+	public void testEqualTimesInAddingOrder() {
+		q1.addUpdate(2);
+		q2.addUpdate(1);
+		q2.addUpdate(2);
+		q3.addUpdate(2);
+		meq.addQueue(q3);
+		meq.addQueue(q2);
+		meq.addQueue(q1);
+
+		assertEquals(q2, meq.nextQueue());
+		assertEquals(1.0, meq.nextEvent().getTime());
+		assertEquals(q3, meq.nextQueue());
+		meq.nextEvent();
+		assertEquals(q2, meq.nextQueue());
+		meq.nextEvent();
+		assertEquals(q1, meq.nextQueue());
+		meq.nextEvent();
+		assertEquals(MAX, meq.nextEventsTime());
+	}
+
+	public void testUpdate() {
+		q1.addUpdate(5);
+		q2.addUpdate(6);
+		int i1 = meq.addQueue(q1);
+		int i2 = meq.addQueue(q2);
+
+		q2.addUpdate(2);
+		assertEquals(5.0, meq.nextEventsTime()); // not updated yet
+		meq.update(i2);
+		assertEquals(2.0, meq.nextEventsTime());
+		assertEquals(q2, meq.nextQueue());
+
+		q1.addUpdate(1);
+		meq.update(i1);
+		assertEquals(1.0, meq.nextEvent().getTime());
+		assertEquals(2.0, meq.nextEvent().getTime());
+		assertEquals(5.0, meq.nextEvent().getTime());
+		assertEquals(6.0, meq.nextEvent().getTime());
+		assertEquals(MAX, meq.nextEventsTime());
+	}
+
+	public void testUnpredictableQueue() {
+		q1.addUpdate(5);
+		meq.addQueue(q1);
+		meq.addQueue(q2, true);
+
+		q2.addUpdate(3);
+		assertEquals(3.0, meq.nextEventsTime());
+		assertEquals(q2, meq.nextQueue());
+	}
+
+	public void testManyQueues() {
+		ScheduledUpdatesQueue[] queues = new ScheduledUpdatesQueue[20];
+		for (int i = 0; i < queues.length; i++) {
+			queues[i] = new ScheduledUpdatesQueue();
+			queues[i].addUpdate((i * 7) % queues.length);
+			queues[i].addUpdate(queues.length + i);
+			meq.addQueue(queues[i]);
+		}
+
+		for (int i = 0; i < queues.length * 2; i++) {
+			assertEquals((double)i, meq.nextEvent().getTime());
+		}
+		assertEquals(MAX, meq.nextEventsTime());
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.Coord;
+import core.ObstacleMap;
+
+/**
+ * Tests for the ObstacleMap
+ */
+public class ObstacleMapTest extends TestCase {
+	/** a 10 x 10 room at (10, 10) and a wall at x = 30 */
+	private List<List<Coord>> walls;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.walls = new ArrayList<List<Coord>>();
+		walls.add(Arrays.asList(c(10, 10), c(20, 10), c(20, 20), c(10, 20),
+				c(10, 10)));
+		walls.add(Arrays.asList(c(30, 0), c(30, 30)));
+	}
+
+	private static Coord c(double x, double y) {
+		return new Coord(x, y);
+	}
+
+	public void testCountWalls() {
+		ObstacleMap map = new ObstacleMap(walls, 0, 4, 0);
+		assertEquals(5, map.getNrofWalls());
+		assertEquals(0, map.countWalls(c(12, 12), c(18, 18)));
+		assertEquals(1, map.countWalls(c(15, 15), c(25, 15)));
+		assertEquals(2, map.countWalls(c(5, 15), c(25, 15)));
+		assertEquals(3, map.countWalls(c(5, 15), c(35, 15)));
+		assertEquals(0, map.countWalls(c(5, 25), c(25, 25)));
+		assertEquals(0, map.countWalls(c(40, 5), c(50, 50)));
+		/* links touching a wall are blocked */
+		assertEquals(1, map.countWalls(c(25, 30), c(35, 30)));
+	}
+
+	public void testCachedCountsAreExact() {
+		Random rng = new Random(1);
+		ObstacleMap cached = new ObstacleMap(walls, 0, 4, 3);
+		ObstacleMap uncached = new ObstacleMap(walls, 0, 4, 0);
+		Coord[] locs = new Coord[6];
+		for (int i=0; i < locs.length; i++) {
+			locs[i] = c(rng.nextDouble() * 40, rng.nextDouble() * 30);
+		}
+
+		for (int round=0; round < 2000; round++) {
+			for (int i=0; i < locs.length; i++) {
+				double step = (i % 2 == 0 ? 0.2 : 2);
+				locs[i] = c(locs[i].getX() + (rng.nextDouble() - 0.5) * step,
+						locs[i].getY() + (rng.nextDouble() - 0.5) * step);
+			}
+			for (int i=0; i < locs.length; i++) {
+				for (int j=0; j < locs.length; j++) {
+					if (i == j) {
+						continue;
+					}
+					assertEquals(uncached.countWalls(locs[i], locs[j]),
+							cached.countWalls(i, locs[i], j, locs[j]));
+				}
+			}
+		}
+	}
+
+	public void testReadWalls() throws Exception {
+		File file = File.createTempFile("obstacleTest", ".json");
+		PrintWriter out = new PrintWriter(file);
+		out.println("{ \"vertices\": [");
+		out.println("  { \"name\" : \"room\", \"polygon\" : " +
+				"\"POLYGON((10 10, 20 10, 20 20, 10 20, 10 10))\" },");
+		out.println("  { \"name\" : \"wall\", \"polygon\" : " +
+				"\"LINESTRING (30 0, 30 30)\" },");
+		out.println("  { \"name\" : \"spot\", \"polygon\" : " +
+				"\"POINT (1 2)\" }");
+		out.println("] }");
+		out.close();
+
+		List<List<Coord>> read = ObstacleMap.readWalls(file);
+		assertEquals(walls, read);
+		assertTrue(file.delete());
+	}
+}
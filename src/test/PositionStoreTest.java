@@ -0,0 +1,106 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.Coord;
+import core.DTNHost;
+import core.NetworkInterface;
+import core.PositionStore;
+
+/**
+ * Tests for the PositionStore
+ */
+public class PositionStoreTest extends TestCase {
+	private static final int NROF_LOCATIONS = 1000;
+	private double[] xs;
+	private double[] ys;
+	private int[] found;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		PositionStore.reset();
+		Random rng = new Random(1);
+		xs = new double[NROF_LOCATIONS];
+		ys = new double[NROF_LOCATIONS];
+		found = new int[NROF_LOCATIONS];
+		for (int i=0; i < NROF_LOCATIONS; i++) {
+			xs[i] = rng.nextDouble() * 1000;
+			ys[i] = rng.nextDouble() * 1000;
+		}
+	}
+
+	protected void tearDown() throws Exception {
+		PositionStore.reset();
+		super.tearDown();
+	}
+
+	/**
+	 * Returns true if the location with the given index is found in range
+	 */
+	private boolean isFound(double x, double y, double range,
+			double[] ranges, int index) {
+		int count = PositionStore.findInRange(x, y, range, xs, ys, ranges,
+				index, index + 1, found);
+		return count == 1;
+	}
+
+	public void testExactBoundary() {
+		xs[0] = 3;
+		ys[0] = 4;
+		assertTrue(isFound(0, 0, 5, null, 0));
+		assertFalse(isFound(0, 0, Math.nextDown(5.0), null, 0));
+	}
+
+	public void testBoundarySameAsCoordDistance() {
+		Coord c = new Coord(500.123, 499.987);
+		for (int i=0; i < NROF_LOCATIONS; i++) {
+			double d = c.distance(new Coord(xs[i], ys[i]));
+			/* the range is exactly the distance or just below it */
+			assertTrue(isFound(c.getX(), c.getY(), d, null, i));
+			assertFalse(isFound(c.getX(), c.getY(), Math.nextDown(d),
+					null, i));
+
+			/* the smaller of the two ranges is used */
+			double[] ranges = new double[NROF_LOCATIONS];
+			ranges[i] = d;
+			assertTrue(isFound(c.getX(), c.getY(), d * 2, ranges, i));
+			ranges[i] = Math.nextDown(d);
+			assertFalse(isFound(c.getX(), c.getY(), d * 2, ranges, i));
+		}
+	}
+
+	public void testFoundIndexes() {
+		double range = 100;
+		int count = PositionStore.findInRange(500, 500, range, xs, ys, null,
+				10, 900, found);
+		int n = 0;
+		for (int i=10; i < 900; i++) {
+			if (new Coord(500, 500).distance(new Coord(xs[i], ys[i])) <=
+					range) {
+				assertEquals(i, found[n++]);
+			}
+		}
+		assertEquals(n, count);
+	}
+
+	public void testStoredDistance() {
+		NetworkInterface.reset();
+		TestUtils utils = new TestUtils(null, null, new TestSettings());
+		DTNHost h0 = utils.createHost(new Coord(xs[0], ys[0]));
+		DTNHost h1 = utils.createHost(new Coord(xs[1], ys[1]));
+		PositionStore.enable(utils.getAllHosts());
+
+		assertEquals(h0.getLocation().distance(h1.getLocation()),
+				PositionStore.distance(h0.getAddress(), h1.getAddress()));
+		h1.setLocation(new Coord(xs[2], ys[2]));
+		PositionStore.update(h1);
+		assertEquals(xs[2], PositionStore.getX(h1.getAddress()));
+		assertEquals(h0.getLocation().distance(h1.getLocation()),
+				PositionStore.distance(h0.getAddress(), h1.getAddress()));
+	}
+}
@@ -4,7 +4,12 @@
  */
 package test;
 
+import input.ExternalEvent;
 import input.ScheduledUpdatesQueue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
 import junit.framework.TestCase;
 import core.SimClock;
 
@@ -107,4 +112,66 @@ public class ScheduledUpdatesQueueTest extends TestCase {
 		assertEquals(5.0, suq.nextEvent().getTime());
 		assertEquals(8.0, suq.nextEvent().getTime());
 	}
+
+	public void testReAddingHandledValue() {
+		suq.addUpdate(5.0);
+		assertEquals(5.0, suq.nextEvent().getTime());
+		suq.addUpdate(5.0); // handled already, so this is a new update
+		assertEquals(5.0, suq.nextEvent().getTime());
+		assertEquals(MAX, suq.nextEventsTime());
+
+		suq.addUpdate(9.0);
+		suq.addUpdate(5.0);
+		assertEquals(5.0, suq.nextEvent().getTime());
+		suq.addUpdate(5.0); // same with other updates still in the queue
+		assertEquals(5.0, suq.nextEvent().getTime());
+		suq.addUpdate(9.0); // still in the queue -> merged
+		assertEquals(9.0, suq.nextEvent().getTime());
+		assertEquals(MAX, suq.nextEventsTime());
+	}
+
+	public void testHostUpdates() {
+		suq.addUpdate(2.0, new int[] {1, 2});
+		suq.addUpdate(3.0);
+		suq.addUpdate(1.0, new int[] {3, 4});
+		suq.addUpdate(2.0, new int[] {5, 6});
+		suq.addUpdate(3.0, new int[] {7, 8}); // covered by the update of all
+
+		assertEquals(1.0, suq.nextEventsTime());
+		ExternalEvent ee = suq.nextEvent();
+		assertEquals(1.0, ee.getTime());
+		assertEquals(2, ee.getAffectedHosts().length);
+		assertEquals(3, ee.getAffectedHosts()[0]);
+
+		ee = suq.nextEvent(); // both updates at 2.0 merged
+		assertEquals(2.0, ee.getTime());
+		assertEquals(4, ee.getAffectedHosts().length);
+
+		ee = suq.nextEvent();
+		assertEquals(3.0, ee.getTime());
+		assertNull(ee.getAffectedHosts());
+		assertEquals(MAX, suq.nextEventsTime());
+	}
+
+	public void testManyRandomUpdates() {
+		Random rng = new Random(1);
+		TreeSet<Double> expected = new TreeSet<Double>();
+
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 100; i++) {
+				double time = rng.nextInt(500) / 4.0;
+				suq.addUpdate(time);
+				expected.add(time);
+			}
+			for (int i = 0; i < 60 && !expected.isEmpty(); i++) {
+				assertEquals(expected.first(), suq.nextEventsTime());
+				assertEquals(expected.pollFirst(), suq.nextEvent().getTime());
+			}
+		}
+
+		while (!expected.isEmpty()) {
+			assertEquals(expected.pollFirst(), suq.nextEvent().getTime());
+		}
+		assertEquals(MAX, suq.nextEvent().getTime());
+	}
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import interfaces.SweepAndPruneOptimizer;
+
+import java.util.List;
+
+import core.Coord;
+import core.NetworkInterface;
+
+/**
+ * Tests for the SweepAndPruneOptimizer
+ */
+public class SweepAndPruneOptimizerTest extends
+		AbstractConnectivityOptimizerTest {
+
+	@Override
+	protected String getOptimizerType() {
+		return NetworkInterface.SWEEP_OPTIMIZER;
+	}
+
+	/**
+	 * Checks that only the interfaces within range are found
+	 */
+	@Override
+	protected void checkNear(List<NetworkInterface> candidates,
+			List<NetworkInterface> inRange, List<NetworkInterface> near) {
+		assertEquals(inRange.size(), near.size());
+	}
+
+	public void testNearInterfaces() {
+		NetworkInterface n1 = createInterface(10, 10);
+		NetworkInterface n2 = createInterface(15, 10);
+		NetworkInterface n3 = createInterface(5, 40);
+		NetworkInterface n4 = createInterface(12, 18);
+		SweepAndPruneOptimizer sap = (SweepAndPruneOptimizer)optimizer;
+
+		List<NetworkInterface> near = findNear(n1);
+		assertEquals(3, near.size());
+		assertEquals(n1, near.get(0)); /* in the order of x coordinates */
+		assertEquals(n4, near.get(1));
+		assertEquals(n2, near.get(2));
+		assertEquals(1, findNear(n3).size());
+
+		n3.getHost().setLocation(new Coord(18, 12));
+		sap.updateLocation(n3);
+		assertEquals(n3, findNear(n2).get(3));
+		assertEquals(4, findNear(n1).size());
+
+		sap.removeInterface(n1);
+		assertEquals(0, findNear(n1).size());
+		assertEquals(3, findNear(n2).size());
+		assertEquals(3, sap.getAllInterfaces().size());
+	}
+
+	public void testPrepareUpdateRefreshesOrder() {
+		NetworkInterface n1 = createInterface(10, 10);
+		NetworkInterface n2 = createInterface(50, 10);
+		NetworkInterface n3 = createInterface(30, 10);
+
+		/* moved farther than the range without a location update */
+		n2.getHost().setLocation(new Coord(5, 12));
+		assertEquals(1, findNear(n1).size());
+
+		optimizer.prepareUpdate();
+		List<NetworkInterface> near = findNear(n1);
+		assertEquals(2, near.size());
+		assertEquals(n2, near.get(0));
+		assertEquals(n1, near.get(1));
+		assertEquals(1, findNear(n3).size());
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package test;
+
+import junit.framework.TestCase;
+import core.WarmupCache;
+
+/**
+ * Tests for the warmup cache key
+ */
+public class WarmupCacheTest extends TestCase {
+	private TestSettings ts;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ts = new TestSettings();
+		ts.putSetting("Group.movementModel", "RandomWaypoint");
+		ts.putSetting("Group.router", "EpidemicRouter");
+		ts.putSetting("MovementModel.rngSeed", "1");
+	}
+
+	public void testKeyIgnoresOtherSettings() {
+		String key = WarmupCache.getKey();
+		ts.putSetting("Group.router", "ProphetRouter");
+		ts.putSetting("Group1.interface1", "btInterface");
+		ts.putSetting("Group2.bufferSize", "5M");
+		ts.putSetting("ProphetRouter.secondsInTimeUnit", "30");
+		ts.putSetting("Report.nrofReports", "2");
+		ts.putSetting("Scenario.endTime", "5000");
+		assertEquals(key, WarmupCache.getKey());
+	}
+
+	public void testKeyDependsOnMovementSettings() {
+		String key = WarmupCache.getKey();
+		ts.putSetting("MovementModel.rngSeed", "2");
+		String seedKey = WarmupCache.getKey();
+		assertFalse(key.equals(seedKey));
+
+		ts.putSetting("Group2.speed", "1, 2");
+		String groupKey = WarmupCache.getKey();
+		assertFalse(seedKey.equals(groupKey));
+
+		ts.putSetting("MapBasedMovement.nrofMapFiles", "1");
+		String mapKey = WarmupCache.getKey();
+		assertFalse(groupKey.equals(mapKey));
+
+		ts.putSetting("Scenario.updateInterval", "1");
+		assertFalse(mapKey.equals(WarmupCache.getKey()));
+	}
+
+	public void testKeyWithRunSettings() {
+		ts.putSetting("MovementModel.rngSeed", "[1;2]");
+		TestSettings.setRunIndex(0);
+		String key1 = WarmupCache.getKey();
+		TestSettings.setRunIndex(1);
+		String key2 = WarmupCache.getKey();
+		TestSettings.setRunIndex(0);
+		assertFalse(key1.equals(key2));
+	}
+}
@@ -8,6 +8,7 @@ import java.util.Vector;
 
 import report.Report;
 import core.ApplicationListener;
+import core.Checkpoint;
 import core.ConnectionListener;
 import core.MessageListener;
 import core.MovementListener;
@@ -17,6 +18,7 @@ import core.SimClock;
 import core.SimError;
 import core.SimScenario;
 import core.UpdateListener;
+import core.WarmupCache;
 import core.World;
 
 /**
@@ -42,6 +44,36 @@ public abstract class DTNSimUI {
 	 */
 	public static final String MM_WARMUP_S =
 		movement.MovementModel.MOVEMENT_MODEL_NS + ".warmup";
+	/**
+	 * Movement model warmup cache directory -setting id ({@value}). If
+	 * defined, the movement state of the nodes after the warmup is cached to
+	 * this directory and later runs with the same movement settings use the
+	 * cached state instead of running the warmup again. The cache is not used
+	 * if there are movement listeners (that would miss the warmup movement).
+	 * @see WarmupCache
+	 */
+	public static final String MM_WARMUP_CACHE_S =
+		movement.MovementModel.MOVEMENT_MODEL_NS + ".warmupCache";
+
+	/**
+	 * Checkpoint file -setting id ({@value}). If defined, the state of the
+	 * simulation is saved to this file when the checkpoint time is reached
+	 * (in the batch mode; the GUI doesn't save checkpoints).
+	 */
+	public static final String CHECKPOINT_FILE_S = "Scenario.checkpointFile";
+	/**
+	 * Checkpoint time -setting id ({@value}). Defines the simulation time
+	 * after which the checkpoint is saved. Default is the end of warmup
+	 * (i.e., zero).
+	 */
+	public static final String CHECKPOINT_TIME_S = "Scenario.checkpointTime";
+	/**
+	 * Restore file -setting id ({@value}). If defined, the simulation is
+	 * continued from the state saved to this checkpoint file instead of
+	 * starting from the beginning. The rest of the settings must be the same
+	 * as when the checkpoint was saved.
+	 */
+	public static final String RESTORE_FILE_S = "Scenario.restoreFile";
 
 	/** report class' package name */
 	private static final String REPORT_PAC = "report.";
@@ -58,6 +90,10 @@ public abstract class DTNSimUI {
 	protected SimScenario scen;
 	/** simtime of last UI update */
 	protected double lastUpdate;
+	/** name of the checkpoint file (or null if no checkpoint is saved) */
+	private String checkpointFile;
+	/** simtime when the checkpoint is saved */
+	private double checkpointTime;
 
 	/**
 	 * Constructor.
@@ -67,6 +103,7 @@ public abstract class DTNSimUI {
 		this.reports = new Vector<Report>();
 		this.simDone = false;
 		this.simCancelled = false;
+		this.checkpointTime = Double.MAX_VALUE;
 	}
 
 	/**
@@ -90,7 +127,20 @@ public abstract class DTNSimUI {
 
 		try {
 			settings = new Settings();
-			
+
+			if (settings.contains(CHECKPOINT_FILE_S)) {
+				this.checkpointFile = settings.valueFillString(
+						settings.getSetting(CHECKPOINT_FILE_S));
+				this.checkpointTime = settings.contains(CHECKPOINT_TIME_S) ?
+						settings.getDouble(CHECKPOINT_TIME_S) : 0;
+			}
+
+			if (settings.contains(RESTORE_FILE_S)) {
+				restoreModel(settings.valueFillString(
+						settings.getSetting(RESTORE_FILE_S)));
+				return;
+			}
+
 			// set time before instantiate scenario
 			double warmupTime = 0;
 			if (settings.contains(MM_WARMUP_S)) {
@@ -111,7 +161,7 @@ public abstract class DTNSimUI {
 			}
 
 			this.world = this.scen.getWorld();
-			world.warmupMovementModel(warmupTime);
+			warmup(settings, warmupTime);
 		}
 		catch (SettingsError se) {
 			System.err.println("Can't start: error in configuration file(s)");
@@ -125,6 +175,58 @@ public abstract class DTNSimUI {
 		}
 	}
 
+	/**
+	 * Runs the movement model warmup or sets the movement state from the
+	 * warmup cache, if the cache is in use and has the state
+	 * @param settings The settings
+	 * @param warmupTime Length of the warmup
+	 */
+	private void warmup(Settings settings, double warmupTime) {
+		WarmupCache cache = null;
+		if (warmupTime > 0 && settings.contains(MM_WARMUP_CACHE_S) &&
+				this.scen.getMovementListeners().isEmpty()) {
+			cache = new WarmupCache(settings.valueFillString(
+					settings.getSetting(MM_WARMUP_CACHE_S)));
+			if (cache.restore(this.scen.getHosts())) {
+				SimClock.getInstance().setTime(0);
+				return;
+			}
+		}
+
+		world.warmupMovementModel(warmupTime);
+		if (cache != null) {
+			cache.save(this.scen.getHosts());
+		}
+	}
+
+	/**
+	 * Restores the simulator model from a checkpoint file
+	 * @param fileName Name of the checkpoint file
+	 */
+	@SuppressWarnings("unchecked")
+	private void restoreModel(String fileName) {
+		Object[] state = (Object[])Checkpoint.restore(fileName);
+		this.scen = (SimScenario)state[0];
+		this.reports = (Vector<Report>)state[1];
+		this.world = this.scen.getWorld();
+	}
+
+	/**
+	 * Saves the state of the simulation to the checkpoint file if the
+	 * checkpoint time has been reached and the checkpoint hasn't been
+	 * saved yet. Called by the text UI after every update; the GUI doesn't
+	 * call this, since its state (e.g., the reports it shows) can't be
+	 * saved.
+	 */
+	protected void checkpointIfDue() {
+		if (SimClock.getTime() < this.checkpointTime) {
+			return;
+		}
+		Checkpoint.save(this.checkpointFile,
+				new Object[] {this.scen, this.reports});
+		this.checkpointTime = Double.MAX_VALUE; // only one checkpoint
+	}
+
 	/**
 	 * Runs maintenance jobs that are needed before exiting.
 	 */
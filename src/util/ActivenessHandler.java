@@ -4,6 +4,7 @@
  */
 package util;
 
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.Queue;
 
@@ -15,7 +16,8 @@ import core.SimClock;
  * Object of this class tell the models when a node belonging
  * to a certain group is active and when not.
  */
-public class ActivenessHandler {
+public class ActivenessHandler implements Serializable {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * <P>Active times -setting id ({@value})</P>
@@ -132,11 +134,66 @@ public class ActivenessHandler {
 			}
 		}
 
+		return isInActiveTimes(SimClock.getTime() + offset);
+	}
+
+	/**
+	 * Returns the earliest sim time when the value returned by
+	 * {@link #isActive(int)} (with the same offset) can change, if
+	 * isActive was called at the current time. Until then, the activeness
+	 * doesn't need to be checked again.
+	 * @param offset The offset
+	 * @return The time of the next possible change (or infinity if the
+	 * activeness never changes)
+	 */
+	public double nextChangeTime(int offset) {
+		if (this.activeTimes == null) {
+			if (this.activePeriods == null) {
+				return Double.POSITIVE_INFINITY;
+			}
+			int period = this.activePeriods[0] + this.activePeriods[1];
+			int intTime = SimClock.getIntTime();
+			int timeIndex = (intTime + this.activePeriodsOffset + offset) %
+				period;
+			if (timeIndex < 0) {
+				return SimClock.getTime(); /* no caching before time 0 */
+			}
+			int change = (timeIndex <= this.activePeriods[0] ?
+					this.activePeriods[0] + 1 : period) - timeIndex;
+			/* the integer time rounds up from half a second before */
+			return intTime + change - 0.5;
+		}
+
+		return nextRangeChange(SimClock.getTime() + offset) - offset;
+	}
+
+	/**
+	 * Returns the earliest time when the result of
+	 * {@link #isInActiveTimes(double)} can change
+	 * @param time The time that was last checked
+	 * @return The time of the next possible change
+	 */
+	private synchronized double nextRangeChange(double time) {
 		if (curRange == null) {
-			return false; // out of active times
+			return Double.POSITIVE_INFINITY;
+		}
+		if (time < curRange.start) {
+			return curRange.start;
 		}
+		return curRange.end;
+	}
 
-		double time = SimClock.getTime() + offset;
+	/**
+	 * Returns true if the given time is within the active times. The
+	 * handler is shared by all nodes of a group, so access to the
+	 * active times is synchronized for nodes that are moved in parallel.
+	 * @param time The time to check
+	 * @return true if the time is within the active times
+	 */
+	private synchronized boolean isInActiveTimes(double time) {
+		if (curRange == null) {
+			return false; // out of active times
+		}
 
 		if (this.curRange.isOut(time)) { // time for the next time range
 			this.curRange = activeTimes.poll();
@@ -151,7 +208,8 @@ public class ActivenessHandler {
 	/**
 	 * Class for handling time ranges
 	 */
-	private class TimeRange {
+	private class TimeRange implements Serializable {
+		private static final long serialVersionUID = 1L;
 		private double start;
 		private double end;
 
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2010 Aalto University, ComNet
+ * Released under GPLv3. See LICENSE.txt for details.
+ */
+package util;
+
+import java.util.Random;
+
+/**
+ * A {@link Random} whose values come from a SplitMix64 stream (the
+ * generator of {@link java.util.SplittableRandom}). Independent streams
+ * can be derived from a common seed and a stream index (e.g., a host
+ * address), so that each stream gives the same values regardless of how
+ * the use of the other streams is interleaved. The state of the stream is
+ * kept in this object, so the stream also continues the same way after
+ * serialization. Unlike Random, instances of this class must not be shared
+ * between threads.
+ */
+public class SplitRandom extends Random {
+	private static final long serialVersionUID = 2L;
+	/** the golden ratio constant used for mixing the seeds */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/** current seed of the stream */
+	private long seed;
+
+	/**
+	 * Creates a stream for the given index from the given common seed
+	 * @param seed The common seed of all streams
+	 * @param index Index of this stream
+	 */
+	public SplitRandom(long seed, long index) {
+		super(0);
+		this.seed = mix64(mix64(seed) + (index + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Advances the stream and returns the new seed
+	 */
+	private long nextSeed() {
+		return (this.seed += GOLDEN_GAMMA);
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int)(nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public int nextInt() {
+		return mix32(nextSeed());
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		int r = nextInt();
+		int m = bound - 1;
+		if ((bound & m) == 0) { // power of two
+			return r & m;
+		}
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1);
+		return r;
+	}
+
+	@Override
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return nextInt() < 0;
+	}
+
+	/**
+	 * Mixes the bits of a 64 bit value (variant 13 of Stafford's mixer)
+	 * @param z The value to mix
+	 * @return The mixed value
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Mixes the bits of a 64 bit value to a 32 bit value
+	 * @param z The value to mix
+	 * @return The mixed value
+	 */
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int)(((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+}